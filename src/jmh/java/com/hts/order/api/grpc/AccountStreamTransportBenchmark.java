@@ -0,0 +1,177 @@
+package com.hts.order.api.grpc;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.*;
+import com.hts.generated.grpc.account.order.MutinyAccountOrderServiceGrpc.MutinyAccountOrderServiceStub;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * account 서비스 호출: 건별 unary RPC와 long-lived ReserveStream(AccountStreamTransport)을
+ * loopback gRPC 서버로 비교. 서버는 모든 명령에 바로 SUCCESS를 돌려주므로 전송 경로 비용만 남는다.
+ * 동시 호출자 수(@Threads)가 늘수록 스트림 쪽의 HTTP/2 stream 생성 비용 절감이 드러난다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+public class AccountStreamTransportBenchmark {
+
+    private static final CommonReply SUCCESS = CommonReply.newBuilder().setCode(AccoutResult.SUCCESS).build();
+
+    private Server server;
+    private ManagedChannel channel;
+    private Vertx vertx;
+    private AccountOrderService accountService;
+    private AccountStreamTransport transport;
+    private final AtomicLong reserveIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(new LoopbackAccountService())
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort())
+                .usePlaintext()
+                .build();
+        accountService = new StubAccountService(MutinyAccountOrderServiceGrpc.newMutinyStub(channel));
+        vertx = Vertx.vertx();
+
+        transport = new AccountStreamTransport();
+        transport.accountService = accountService;
+        transport.vertx = vertx;
+        transport.enabled = true;
+        transport.maxInFlight = 1024;
+        transport.reconnectBackoffMs = 200;
+        transport.onStart(null);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!transport.isAvailable()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("ReserveStream did not connect");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        transport.onStop(null);
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        vertx.closeAndAwait();
+    }
+
+    @Benchmark
+    public CommonReply unary() {
+        return accountService.reserveCash(nextRequest()).await().indefinitely();
+    }
+
+    @Benchmark
+    public CommonReply stream() {
+        ReserveCashRequest request = nextRequest();
+        return transport.send(request.getReserveId(),
+                              AccountCommand.newBuilder().setReserveCash(request).build(),
+                              () -> accountService.reserveCash(request))
+                .await().indefinitely();
+    }
+
+    private ReserveCashRequest nextRequest() {
+        long id = reserveIds.incrementAndGet();
+        return ReserveCashRequest.newBuilder()
+                .setAccountId(id % 1000)
+                .setAmountMicroUnits(1_000_000L)
+                .setCurrency("USD")
+                .setReserveId("bench-" + id)
+                .setOrderId(String.valueOf(id))
+                .build();
+    }
+
+    /**
+     * 모든 reserve/release에 SUCCESS. 스트림 응답은 reserve_id로 짝지어 돌려준다
+     */
+    private static final class LoopbackAccountService extends AccountOrderServiceGrpc.AccountOrderServiceImplBase {
+
+        @Override
+        public void reserveCash(ReserveCashRequest request, StreamObserver<CommonReply> responseObserver) {
+            responseObserver.onNext(SUCCESS);
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public StreamObserver<AccountCommand> reserveStream(StreamObserver<AccountCommandReply> responseObserver) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(AccountCommand command) {
+                    responseObserver.onNext(AccountCommandReply.newBuilder()
+                            .setReserveId(command.getReserveCash().getReserveId())
+                            .setReply(SUCCESS)
+                            .build());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+
+    /**
+     * Quarkus 없이 쓰는 generated Mutiny stub을 @GrpcClient가 주입하는 AccountOrderService 모양으로 감싼다
+     */
+    private record StubAccountService(MutinyAccountOrderServiceStub stub) implements AccountOrderService {
+
+        @Override
+        public Uni<CommonReply> reserveCash(ReserveCashRequest request) {
+            return stub.reserveCash(request);
+        }
+
+        @Override
+        public Uni<CommonReply> releaseCash(ReleaseCashRequest request) {
+            return stub.releaseCash(request);
+        }
+
+        @Override
+        public Uni<CommonReply> reservePosition(ReservePositionRequest request) {
+            return stub.reservePosition(request);
+        }
+
+        @Override
+        public Uni<CommonReply> releasePosition(ReleasePositionRequest request) {
+            return stub.releasePosition(request);
+        }
+
+        @Override
+        public Uni<ReserveBatchReply> reserveBatch(ReserveBatchRequest request) {
+            return stub.reserveBatch(request);
+        }
+
+        @Override
+        public Uni<ListReservationsReply> listReservations(ListReservationsRequest request) {
+            return stub.listReservations(request);
+        }
+
+        @Override
+        public Multi<AccountCommandReply> reserveStream(Multi<AccountCommand> request) {
+            return stub.reserveStream(request);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.hts.order.api.grpc;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.hts.generated.grpc.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderGrpcServer가 받는 요청의 protobuf 파싱과 응답 직렬화 (gRPC marshaller가 하는 일)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RequestParsingBenchmark {
+
+    private byte[] placeBytes;
+    private byte[] cancelBytes;
+    private byte[] basketBytes;
+    private OrderResponse response;
+
+    @Param({"10", "100"})
+    int basketSize;
+
+    @Setup
+    public void setup() {
+        PlaceOrderRequest place = PlaceOrderRequest.newBuilder()
+                .setAccountId(1001).setIdempotencyKey("0b6f4c1e-6a8e-4c55-9d7f-3f0e5d2b8a91")
+                .setSymbol("AAPL").setSide(Side.BUY).setOrderType(OrderType.LIMIT)
+                .setQuantity(100).setPrice(150_000_000L).setTimeInForce(TimeInForce.DAY).build();
+        placeBytes = place.toByteArray();
+        cancelBytes = CancelOrderRequest.newBuilder()
+                .setAccountId(1001).setIdempotencyKey("5d0a3c55-1f7b-4d2e-8b7a-2c9e6f1d4a30")
+                .setSymbol("AAPL").setOrderId(1234567890123L).build().toByteArray();
+
+        PlaceOrdersRequest.Builder basket = PlaceOrdersRequest.newBuilder()
+                .setAccountId(1001).setIdempotencyKey("basket-key");
+        for (int i = 0; i < basketSize; i++) {
+            basket.addOrders(place);
+        }
+        basketBytes = basket.build().toByteArray();
+
+        response = OrderResponse.newBuilder()
+                .setOrderId(1234567890123L).setStatus(OrderStatus.ACCEPTED)
+                .setTimestamp(System.currentTimeMillis()).build();
+    }
+
+    @Benchmark
+    public PlaceOrderRequest parsePlaceOrder() throws InvalidProtocolBufferException {
+        return PlaceOrderRequest.parseFrom(placeBytes);
+    }
+
+    @Benchmark
+    public CancelOrderRequest parseCancelOrder() throws InvalidProtocolBufferException {
+        return CancelOrderRequest.parseFrom(cancelBytes);
+    }
+
+    @Benchmark
+    public PlaceOrdersRequest parseBasket() throws InvalidProtocolBufferException {
+        return PlaceOrdersRequest.parseFrom(basketBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() {
+        return response.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package com.hts.order.domain.model;
+
+import com.hts.generated.grpc.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 1건당 엔티티 생성 + outbox/idempotency payload 인코딩.
+ * legacy* 는 protobuf 전환 이전의 String.format JSON 인코딩 (할당 비교 기준선)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class OrderEntityBenchmark {
+
+    private OrderEntity order;
+    private ServiceResult result;
+
+    @Setup
+    public void setup() {
+        order = create();
+        result = ServiceResult.success(order.orderId());
+    }
+
+    @Benchmark
+    public OrderEntity construct() {
+        return create();
+    }
+
+    @Benchmark
+    public byte[] outboxProtobuf() {
+        return order.serializeForOutbox();
+    }
+
+    @Benchmark
+    public byte[] outboxLegacyJson() {
+        return String.format(
+                "{\"order_id\":\"%d\",\"account_id\":%d,\"symbol\":\"%s\",\"side\":\"%s\",\"quantity\":%d,\"price\":%d}",
+                order.orderId(), order.accountId(), order.symbol(), order.side().name(), order.quantity(), order.price()
+        ).getBytes();
+    }
+
+    @Benchmark
+    public byte[] idempotencyResponseProtobuf() {
+        return ResponsePayloads.encode(result);
+    }
+
+    @Benchmark
+    public String idempotencyResponseLegacyJson() {
+        return String.format("{\"orderId\":%d,\"status\":\"SUCCESS\"}", result.orderId());
+    }
+
+    @Benchmark
+    public byte[] constructAndEncode() {
+        return create().serializeForOutbox();
+    }
+
+    private static OrderEntity create() {
+        return OrderEntity.from(1234567890123L, 1001, "AAPL", Side.BUY, OrderType.LIMIT,
+                100, 150_000_000L, TimeInForce.DAY, "kjh3g2f1a0b9");
+    }
+}
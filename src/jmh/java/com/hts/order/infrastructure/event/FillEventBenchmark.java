@@ -0,0 +1,65 @@
+package com.hts.order.infrastructure.event;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.hts.generated.events.order.ExecutionType;
+import com.hts.generated.events.order.OrderFillEvent;
+import com.hts.generated.grpc.FillGroup;
+import com.hts.generated.grpc.Side;
+import com.hts.order.domain.model.FillDelta;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderFillEventConsumer의 consumer 측 처리량: 레코드 파싱 + FillDelta 변환.
+ * batch는 poll 1번(max.poll.records) 분량을 처리하는 비용
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FillEventBenchmark {
+
+    @Param({"1", "3"})
+    int fillGroups;
+
+    @Param({"500"})
+    int batchSize;
+
+    private byte[][] records;
+
+    @Setup
+    public void setup() {
+        records = new byte[batchSize][];
+        for (int i = 0; i < batchSize; i++) {
+            OrderFillEvent.Builder event = OrderFillEvent.newBuilder()
+                    .setEventId("fill-" + i)
+                    .setClientOrderId(String.valueOf(1234567890000L + i))
+                    .setAccountId(1001)
+                    .setSecurityId(7)
+                    .setSide(Side.BUY)
+                    .setExecutionType(ExecutionType.TRADE)
+                    .setLeavesQuantity(0)
+                    .setTransactTime(System.currentTimeMillis());
+            for (int g = 0; g < fillGroups; g++) {
+                event.addFills(FillGroup.newBuilder().setPriceMicroUnits(150_000_000L + g).setQuantity(10));
+            }
+            records[i] = event.build().toByteArray();
+        }
+    }
+
+    @Benchmark
+    public FillDelta single() throws InvalidProtocolBufferException {
+        OrderFillEvent event = OrderFillEvent.parseFrom(records[0]);
+        return FillDelta.from(event, Long.parseLong(event.getClientOrderId()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(500)
+    public void batch(Blackhole bh) throws InvalidProtocolBufferException {
+        for (byte[] record : records) {
+            OrderFillEvent event = OrderFillEvent.parseFrom(record);
+            bh.consume(FillDelta.from(event, Long.parseLong(event.getClientOrderId())));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.hts.order.infrastructure.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * nextId() 비용과 스레드 경합 시 CAS 재시도 영향
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class OrderIdGeneratorBenchmark {
+
+    private OrderIdGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new OrderIdGenerator();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdContended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String reserveId() {
+        return OrderIdGenerator.reserveIdOf(generator.nextId());
+    }
+}
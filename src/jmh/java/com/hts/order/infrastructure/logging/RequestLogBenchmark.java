@@ -0,0 +1,112 @@
+package com.hts.order.infrastructure.logging;
+
+import com.hts.generated.grpc.*;
+import org.jboss.logmanager.Logger;
+import org.jboss.logmanager.formatters.PatternFormatter;
+import org.jboss.logmanager.handlers.AsyncHandler;
+import org.jboss.logmanager.handlers.OutputStreamHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+
+/**
+ * 요청 1건당 호출 스레드(= gRPC event loop)가 로깅에 쓰는 시간.
+ * Quarkus와 같은 JBoss LogManager + 기본 콘솔 포맷으로 구성한다.
+ *
+ * - infofSync:  기존 OrderGrpcServer의 log.infof + 동기 콘솔 핸들러 (포맷/boxing/쓰기 모두 호출 스레드)
+ * - infofAsync: 같은 infof를 async 핸들러로 (쓰기만 빠짐, 포맷/boxing은 남음)
+ * - requestLogSampled / requestLogAll: RequestLog (기본 1% 샘플링 / 전부 기록) + async 핸들러
+ *
+ * 출력은 null stream이라 실제 콘솔보다 sync 쪽이 유리하게 나온다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.util.logging.manager=org.jboss.logmanager.LogManager", "-Dorg.jboss.logging.provider=jboss"})
+public class RequestLogBenchmark {
+
+    private static final String CONSOLE_FORMAT = "%d{HH:mm:ss,SSS} %-5p [%c{3.}] (%t) %s%e%n";
+    private static final String INFOF_CATEGORY = "bench.infof.sync";
+    private static final String INFOF_ASYNC_CATEGORY = "bench.infof.async";
+
+    private org.jboss.logging.Logger infofSync;
+    private org.jboss.logging.Logger infofAsync;
+    private RequestLog sampled;
+    private RequestLog all;
+    private AsyncHandler asyncHandler;
+    // 핸들러를 붙인 logger가 GC되지 않도록 잡아둔다
+    private final Logger[] configured = new Logger[3];
+
+    private PlaceOrderRequest request;
+    private OrderResponse response;
+    private long accountId;
+
+    @Setup
+    public void setup() {
+        OutputStreamHandler console = new OutputStreamHandler(OutputStream.nullOutputStream(),
+                new PatternFormatter(CONSOLE_FORMAT));
+        console.setAutoFlush(true);
+        asyncHandler = new AsyncHandler(16384);
+        asyncHandler.setOverflowAction(AsyncHandler.OverflowAction.DISCARD);
+        asyncHandler.addHandler(console);
+
+        configured[0] = configure(INFOF_CATEGORY, console);
+        configured[1] = configure(INFOF_ASYNC_CATEGORY, asyncHandler);
+        configured[2] = configure("order.request", asyncHandler);
+
+        infofSync = org.jboss.logging.Logger.getLogger(INFOF_CATEGORY);
+        infofAsync = org.jboss.logging.Logger.getLogger(INFOF_ASYNC_CATEGORY);
+
+        sampled = new RequestLog();
+        sampled.configure(RequestLog.Mode.SAMPLED, 0.01, "");
+        all = new RequestLog();
+        all.configure(RequestLog.Mode.ALL, 0.0, "");
+
+        accountId = 1001;
+        request = PlaceOrderRequest.newBuilder()
+                .setAccountId(accountId).setSymbol("AAPL").setSide(Side.BUY).setOrderType(OrderType.LIMIT)
+                .setQuantity(100).setPrice(150_000_000L).setTimeInForce(TimeInForce.DAY)
+                .setIdempotencyKey("4f1c2a9e-7d3b-4c1e-9a2f-0b6d5e8c7a11").build();
+        response = OrderResponse.newBuilder()
+                .setOrderId(369693153113931776L).setStatus(OrderStatus.ACCEPTED).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncHandler.close();
+    }
+
+    @Benchmark
+    public void infofSync() {
+        infofSync.infof("PlaceOrder: accountId=%d, symbol=%s, side=%s, quantity=%d, price=%d",
+                accountId, request.getSymbol(), request.getSide(), request.getQuantity(), request.getPrice());
+    }
+
+    @Benchmark
+    public void infofAsync() {
+        infofAsync.infof("PlaceOrder: accountId=%d, symbol=%s, side=%s, quantity=%d, price=%d",
+                accountId, request.getSymbol(), request.getSide(), request.getQuantity(), request.getPrice());
+    }
+
+    @Benchmark
+    public void requestLogSampled() {
+        sampled.place(accountId, request, response, System.nanoTime());
+    }
+
+    @Benchmark
+    public void requestLogAll() {
+        all.place(accountId, request, response, System.nanoTime());
+    }
+
+    private static Logger configure(String category, Handler handler) {
+        Logger logger = Logger.getLogger(category);
+        logger.setUseParentHandlers(false);
+        for (Handler existing : logger.getHandlers()) {
+            logger.removeHandler(existing);
+        }
+        logger.addHandler(handler);
+        return logger;
+    }
+}
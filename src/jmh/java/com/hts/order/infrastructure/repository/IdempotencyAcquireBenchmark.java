@@ -0,0 +1,140 @@
+package com.hts.order.infrastructure.repository;
+
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.sqlclient.PoolOptions;
+import org.openjdk.jmh.annotations.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * idempotency 키 선점: 이전 경로(INSERT → duplicate key 예외 → findResult, 중복이면 2 round trip)와
+ * acquire(ON CONFLICT DO NOTHING + fallback SELECT, 1 round trip)를 중복 비율별로 비교.
+ *
+ * Postgres 컨테이너(testcontainers)가 필요하다: ./gradlew jmh -Pjmh.includes=IdempotencyAcquire
+ * 중복 요청은 미리 SUCCESS로 넣어 둔 키 중 하나, 나머지는 매번 새 키.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class IdempotencyAcquireBenchmark {
+
+    private static final int SEEDED_KEYS = 100_000;
+
+    // user-004 이전의 tryAcquireLock
+    private static final String LEGACY_INSERT = """
+        INSERT INTO idempotency_keys (idempotency_key, account_id, status)
+        VALUES ($1, $2, 'PROCESSING')
+        """;
+
+    private static final String[] MIGRATIONS = {
+        "V1__init_schema.sql",
+        "V2__partition_idempotency_keys.sql",
+        "V3__fill_state.sql",
+        "V4__order_fills_retention.sql",
+        "V5__binary_payloads.sql",
+        "V6__compensation_tasks.sql",
+        "V7__partition_order_tables.sql",
+    };
+
+    @Param({"0.0", "0.5", "0.9", "0.99"})
+    double duplicateRatio;
+
+    private PostgreSQLContainer<?> postgres;
+    private Vertx vertx;
+    private PgPool pool;
+    private IdempotencyRepository repository;
+    private final AtomicLong freshKeys = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+                .withDatabaseName("hts_order")
+                .withUsername("hts")
+                .withPassword("hts");
+        postgres.start();
+
+        try (Connection conn = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                                                           postgres.getPassword());
+             Statement st = conn.createStatement()) {
+            for (String script : MIGRATIONS) {
+                st.execute(resource("db/migration/" + script));
+            }
+            st.execute(String.format("""
+                INSERT INTO idempotency_keys (idempotency_key, account_id, order_id, status)
+                SELECT 'seed-' || g, g %% 1000, g, 'SUCCESS'
+                FROM generate_series(0, %d - 1) g
+                """, SEEDED_KEYS));
+            st.execute("VACUUM ANALYZE idempotency_keys");
+        }
+
+        vertx = Vertx.vertx();
+        pool = PgPool.pool(vertx,
+                new PgConnectOptions()
+                        .setHost(postgres.getHost())
+                        .setPort(postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT))
+                        .setDatabase(postgres.getDatabaseName())
+                        .setUser(postgres.getUsername())
+                        .setPassword(postgres.getPassword())
+                        .setCachePreparedStatements(true),
+                new PoolOptions().setMaxSize(8));
+
+        repository = new IdempotencyRepository();
+        repository.client = pool;
+        repository.dedupWindow = Duration.ofHours(24);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.closeAndAwait();
+        vertx.closeAndAwait();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Object legacyInsertThenFind() {
+        String key = nextKey();
+        return pool.preparedQuery(LEGACY_INSERT)
+                .execute(Tuple.of(key, 1L))
+                .map(rows -> (Object) Boolean.TRUE)
+                .onFailure(t -> t.getMessage() != null && t.getMessage().contains("duplicate key"))
+                .recoverWithUni(t -> repository.findResult(key).map(result -> (Object) result))
+                .await().indefinitely();
+    }
+
+    @Benchmark
+    public Object acquire() {
+        return repository.acquire(nextKey(), 1L).await().indefinitely();
+    }
+
+    private String nextKey() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < duplicateRatio) {
+            return "seed-" + random.nextInt(SEEDED_KEYS);
+        }
+        return "fresh-" + freshKeys.incrementAndGet();
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = IdempotencyAcquireBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException(name + " not found on classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
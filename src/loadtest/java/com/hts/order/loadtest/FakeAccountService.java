@@ -0,0 +1,137 @@
+package com.hts.order.loadtest;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.*;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * in-process AccountOrderService. 모든 reserve/release를 SUCCESS로 응답하고,
+ * latencyMicros > 0이면 그만큼 지연시켜 실제 account 서비스의 RTT를 흉내 낸다.
+ */
+public class FakeAccountService extends AccountOrderServiceGrpc.AccountOrderServiceImplBase implements AutoCloseable {
+
+    private static final CommonReply SUCCESS = CommonReply.newBuilder().setCode(AccoutResult.SUCCESS).build();
+
+    private final long latencyMicros;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "fake-account-delay");
+        t.setDaemon(true);
+        return t;
+    });
+    private Server server;
+
+    public FakeAccountService(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+    }
+
+    public FakeAccountService start(int port) throws IOException {
+        server = ServerBuilder.forPort(port).addService(this).build().start();
+        return this;
+    }
+
+    public int port() {
+        return server.getPort();
+    }
+
+    @Override
+    public void reserveCash(ReserveCashRequest request, StreamObserver<CommonReply> responseObserver) {
+        reply(responseObserver, SUCCESS);
+    }
+
+    @Override
+    public void releaseCash(ReleaseCashRequest request, StreamObserver<CommonReply> responseObserver) {
+        reply(responseObserver, SUCCESS);
+    }
+
+    @Override
+    public void reservePosition(ReservePositionRequest request, StreamObserver<CommonReply> responseObserver) {
+        reply(responseObserver, SUCCESS);
+    }
+
+    @Override
+    public void releasePosition(ReleasePositionRequest request, StreamObserver<CommonReply> responseObserver) {
+        reply(responseObserver, SUCCESS);
+    }
+
+    @Override
+    public void reserveBatch(ReserveBatchRequest request, StreamObserver<ReserveBatchReply> responseObserver) {
+        ReserveBatchReply.Builder reply = ReserveBatchReply.newBuilder();
+        for (int i = 0; i < request.getItemsCount(); i++) {
+            reply.addResults(SUCCESS);
+        }
+        reply(responseObserver, reply.build());
+    }
+
+    @Override
+    public StreamObserver<AccountCommand> reserveStream(StreamObserver<AccountCommandReply> responseObserver) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(AccountCommand command) {
+                AccountCommandReply reply = AccountCommandReply.newBuilder()
+                        .setReserveId(reserveIdOf(command))
+                        .setReply(SUCCESS)
+                        .build();
+                synchronized (responseObserver) {
+                    responseObserver.onNext(reply);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+                synchronized (responseObserver) {
+                    responseObserver.onCompleted();
+                }
+            }
+        };
+    }
+
+    /**
+     * reserve를 기억하지 않으므로 reconciler에는 항상 빈 페이지를 돌려준다
+     */
+    @Override
+    public void listReservations(ListReservationsRequest request, StreamObserver<ListReservationsReply> responseObserver) {
+        reply(responseObserver, ListReservationsReply.getDefaultInstance());
+    }
+
+    private <T> void reply(StreamObserver<T> observer, T reply) {
+        if (latencyMicros <= 0) {
+            observer.onNext(reply);
+            observer.onCompleted();
+            return;
+        }
+        scheduler.schedule(() -> {
+            observer.onNext(reply);
+            observer.onCompleted();
+        }, latencyMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private static String reserveIdOf(AccountCommand command) {
+        return switch (command.getCommandCase()) {
+            case RESERVE_CASH -> command.getReserveCash().getReserveId();
+            case RESERVE_POSITION -> command.getReservePosition().getReserveId();
+            case RELEASE_CASH -> command.getReleaseCash().getReserveId();
+            case RELEASE_POSITION -> command.getReleasePosition().getReserveId();
+            default -> "";
+        };
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdownNow();
+        if (server != null) {
+            server.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
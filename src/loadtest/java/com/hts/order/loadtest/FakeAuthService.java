@@ -0,0 +1,63 @@
+package com.hts.order.loadtest;
+
+import com.hts.generated.grpc.internal.AuthInternalServiceGrpc;
+import com.hts.generated.grpc.internal.ValidateSessionReply;
+import com.hts.generated.grpc.internal.ValidateSessionRequest;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * in-process AuthInternalService. "loadtest-session-{accountId}" 형식의 세션만 유효로 응답한다.
+ * 서비스의 세션 캐시가 데워지면 거의 호출되지 않으므로 지연은 흉내 내지 않는다.
+ */
+public class FakeAuthService extends AuthInternalServiceGrpc.AuthInternalServiceImplBase implements AutoCloseable {
+
+    static final String SESSION_PREFIX = "loadtest-session-";
+
+    private Server server;
+
+    public FakeAuthService start(int port) throws IOException {
+        server = ServerBuilder.forPort(port).addService(this).build().start();
+        return this;
+    }
+
+    public int port() {
+        return server.getPort();
+    }
+
+    static String sessionOf(long accountId) {
+        return SESSION_PREFIX + accountId;
+    }
+
+    @Override
+    public void validateSession(ValidateSessionRequest request, StreamObserver<ValidateSessionReply> responseObserver) {
+        long accountId = accountIdOf(request.getSessionId());
+        responseObserver.onNext(ValidateSessionReply.newBuilder()
+                .setIsValid(accountId > 0)
+                .setAccountId(Math.max(accountId, 0))
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    private static long accountIdOf(String sessionId) {
+        if (!sessionId.startsWith(SESSION_PREFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(sessionId.substring(SESSION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (server != null) {
+            server.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
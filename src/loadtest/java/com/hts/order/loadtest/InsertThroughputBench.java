@@ -0,0 +1,298 @@
+package com.hts.order.loadtest;
+
+import com.hts.order.infrastructure.id.OrderIdGenerator;
+import org.jboss.logging.Logger;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * orders / order_history / outbox 쓰기 처리량 비교: V6 스키마(단일 테이블 + 인덱스 12개) vs V7(파티션 + 인덱스 정리).
+ *
+ * 한 Postgres 컨테이너에 DB 두 개를 만들어 각각 V1..V6, V1..V7 마이그레이션을 적용하고,
+ * 같은 행 수를 preload한 뒤 그룹 커밋과 같은 형태(트랜잭션당 unnest multi-row INSERT 3개)로
+ * writers개 스레드가 duration 동안 쓴 주문 수를 비교한다. 결과는 콘솔과 output-dir/insert-throughput.csv.
+ *
+ * ./gradlew insertBench -Pinsertbench.writers=16 -Pinsertbench.batch-size=100 -Pinsertbench.preload=5000000
+ */
+public final class InsertThroughputBench {
+
+    private static final Logger LOG = Logger.getLogger(InsertThroughputBench.class);
+
+    private static final String[] SYMBOLS = {"005930", "000660", "035420", "035720", "051910", "207940"};
+
+    private final int writers = Integer.parseInt(prop("writers", "8"));
+    private final int batchSize = Integer.parseInt(prop("batch-size", "50"));
+    private final long preload = Long.parseLong(prop("preload", "1000000"));
+    private final Duration warmup = Duration.parse(prop("warmup", "PT10S"));
+    private final Duration duration = Duration.parse(prop("duration", "PT60S"));
+    private final Path outputDir = Path.of(prop("output-dir", "build/loadtest"));
+
+    // 두 스키마 모두 V7 마이그레이션 때 만든 일 단위 파티션(내일)에 들어가도록 내일 0시(UTC) ID부터 발급
+    private final AtomicLong nextOrderId = new AtomicLong(OrderIdGenerator.firstIdAt(
+            LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()));
+
+    private InsertThroughputBench() {}
+
+    public static void main(String[] args) throws Exception {
+        new InsertThroughputBench().run();
+    }
+
+    private void run() throws Exception {
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+                .withDatabaseName("hts_order")
+                .withUsername("hts")
+                .withPassword("hts")
+                .withCommand("postgres", "-c", "max_connections=200", "-c", "synchronous_commit=on",
+                             "-c", "shared_buffers=256MB")) {
+            postgres.start();
+
+            try (Connection admin = connect(postgres, "hts_order"); Statement st = admin.createStatement()) {
+                st.execute("CREATE DATABASE schema_v6");
+                st.execute("CREATE DATABASE schema_v7");
+            }
+            migrate(postgres, "schema_v6", 6);
+            migrate(postgres, "schema_v7", 7);
+
+            Result before = measure(postgres, "schema_v6");
+            Result after = measure(postgres, "schema_v7");
+
+            LOG.infof("V6 (unpartitioned): %.0f orders/s, V7 (partitioned): %.0f orders/s (%+.1f%%)",
+                      before.ordersPerSec(), after.ordersPerSec(),
+                      (after.ordersPerSec() / before.ordersPerSec() - 1) * 100);
+            write(before, after);
+        }
+    }
+
+    private Result measure(PostgreSQLContainer<?> postgres, String database) throws Exception {
+        try (Connection conn = connect(postgres, database); Statement st = conn.createStatement()) {
+            LOG.infof("[%s] preloading %d orders", database, preload);
+            long first = nextOrderId.getAndAdd(preload);
+            st.execute(String.format("""
+                INSERT INTO orders(order_id, account_id, symbol, side, order_type, quantity, price,
+                                   time_in_force, status, reserve_id, filled_quantity)
+                SELECT %1$d + g, g %% 1000, 'SYM' || (g %% 500), 'BUY', 'LIMIT', 10, 70000, 'DAY', 'ACCEPTED', 'r' || g, 0
+                FROM generate_series(0, %2$d - 1) g;
+                INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity)
+                SELECT %1$d + g, g %% 1000, 'ACCEPTED', NULL, 10, 70000, 0
+                FROM generate_series(0, %2$d - 1) g;
+                INSERT INTO outbox(aggregate_type, aggregate_id, event_type, payload, idempotency_key, status, published_at)
+                SELECT 'Order', %1$d + g, 'ORDER_PLACED', '\\x00'::bytea, 'k' || g, 'PUBLISHED', NOW()
+                FROM generate_series(0, %2$d - 1) g
+                """, first, preload));
+            st.execute("VACUUM ANALYZE");
+            st.execute("CHECKPOINT");
+        }
+
+        LongAdder written = new LongAdder();
+        List<Thread> threads = new ArrayList<>(writers);
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            Thread thread = new Thread(() -> {
+                try (Connection conn = connect(postgres, database)) {
+                    conn.setAutoCommit(false);
+                    Writer writer = new Writer(conn);
+                    long now;
+                    while ((now = System.nanoTime()) < deadline) {
+                        writer.writeBatch();
+                        if (now >= measureFrom) {
+                            written.add(batchSize);
+                        }
+                    }
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            }, "insert-bench-" + w);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Writer failed on " + database, failures.get(0));
+        }
+
+        Result result = new Result(database, written.sum(), duration);
+        LOG.infof("[%s] %d orders in %s = %.0f orders/s", database, result.orders(), duration, result.ordersPerSec());
+        return result;
+    }
+
+    /**
+     * OrderWriteRepository.insertOrdersBatch와 같은 SQL
+     */
+    private final class Writer {
+        private final Connection conn;
+        private final PreparedStatement orders;
+        private final PreparedStatement history;
+        private final PreparedStatement outbox;
+
+        Writer(Connection conn) throws SQLException {
+            this.conn = conn;
+            orders = conn.prepareStatement("""
+                INSERT INTO orders(order_id, account_id, symbol, side, order_type, quantity, price,
+                                  time_in_force, status, reserve_id, filled_quantity)
+                SELECT order_id, account_id, symbol, side, order_type, quantity, price,
+                       time_in_force, status, reserve_id, 0
+                FROM unnest(?::bigint[], ?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[],
+                            ?::bigint[], ?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[])
+                     AS t(order_id, account_id, symbol, side, order_type, quantity, price,
+                          time_in_force, status, reserve_id)
+                """);
+            history = conn.prepareStatement("""
+                INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity)
+                SELECT order_id, account_id, status, NULL, quantity, price, 0
+                FROM unnest(?::bigint[], ?::bigint[], ?::varchar[], ?::bigint[], ?::bigint[])
+                     AS t(order_id, account_id, status, quantity, price)
+                """);
+            outbox = conn.prepareStatement("""
+                INSERT INTO outbox(aggregate_type, aggregate_id, event_type, payload, idempotency_key, status)
+                SELECT 'Order', aggregate_id, ?, payload, idempotency_key, 'PENDING'
+                FROM unnest(?::bigint[], ?::bytea[], ?::varchar[]) AS t(aggregate_id, payload, idempotency_key)
+                """);
+        }
+
+        void writeBatch() throws SQLException {
+            int n = batchSize;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Long[] orderIds = new Long[n];
+            Long[] accountIds = new Long[n];
+            String[] symbols = new String[n];
+            String[] sides = new String[n];
+            String[] types = new String[n];
+            Long[] quantities = new Long[n];
+            Long[] prices = new Long[n];
+            String[] tifs = new String[n];
+            String[] statuses = new String[n];
+            String[] reserveIds = new String[n];
+            byte[][] payloads = new byte[n][];
+            String[] keys = new String[n];
+            long first = nextOrderId.getAndAdd(n);
+            for (int i = 0; i < n; i++) {
+                long orderId = first + i;
+                orderIds[i] = orderId;
+                accountIds[i] = random.nextLong(1, 10_001);
+                symbols[i] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+                sides[i] = random.nextBoolean() ? "BUY" : "SELL";
+                types[i] = "LIMIT";
+                quantities[i] = random.nextLong(1, 1000);
+                prices[i] = random.nextLong(10_000, 100_000);
+                tifs[i] = "DAY";
+                statuses[i] = "ACCEPTED";
+                reserveIds[i] = OrderIdGenerator.reserveIdOf(orderId);
+                payloads[i] = new byte[96];
+                random.nextBytes(payloads[i]);
+                keys[i] = "ORDER_PLACED-" + orderId;
+            }
+
+            orders.setArray(1, conn.createArrayOf("bigint", orderIds));
+            orders.setArray(2, conn.createArrayOf("bigint", accountIds));
+            orders.setArray(3, conn.createArrayOf("varchar", symbols));
+            orders.setArray(4, conn.createArrayOf("varchar", sides));
+            orders.setArray(5, conn.createArrayOf("varchar", types));
+            orders.setArray(6, conn.createArrayOf("bigint", quantities));
+            orders.setArray(7, conn.createArrayOf("bigint", prices));
+            orders.setArray(8, conn.createArrayOf("varchar", tifs));
+            orders.setArray(9, conn.createArrayOf("varchar", statuses));
+            orders.setArray(10, conn.createArrayOf("varchar", reserveIds));
+            orders.executeUpdate();
+
+            history.setArray(1, conn.createArrayOf("bigint", orderIds));
+            history.setArray(2, conn.createArrayOf("bigint", accountIds));
+            history.setArray(3, conn.createArrayOf("varchar", statuses));
+            history.setArray(4, conn.createArrayOf("bigint", quantities));
+            history.setArray(5, conn.createArrayOf("bigint", prices));
+            history.executeUpdate();
+
+            outbox.setString(1, "ORDER_PLACED");
+            outbox.setArray(2, conn.createArrayOf("bigint", orderIds));
+            outbox.setArray(3, conn.createArrayOf("bytea", payloads));
+            outbox.setArray(4, conn.createArrayOf("varchar", keys));
+            outbox.executeUpdate();
+
+            conn.commit();
+        }
+    }
+
+    /**
+     * Flyway 대신 classpath의 db/migration 스크립트를 버전 순서대로 직접 실행 (target 버전까지)
+     */
+    private static void migrate(PostgreSQLContainer<?> postgres, String database, int target) throws Exception {
+        String[] scripts = {
+            "V1__init_schema.sql",
+            "V2__partition_idempotency_keys.sql",
+            "V3__fill_state.sql",
+            "V4__order_fills_retention.sql",
+            "V5__binary_payloads.sql",
+            "V6__compensation_tasks.sql",
+            "V7__partition_order_tables.sql",
+        };
+        try (Connection conn = connect(postgres, database); Statement st = conn.createStatement()) {
+            for (int v = 0; v < target; v++) {
+                LOG.infof("[%s] applying %s", database, scripts[v]);
+                st.execute(resource("db/migration/" + scripts[v]));
+            }
+        }
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = InsertThroughputBench.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException(name + " not found on classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Connection connect(PostgreSQLContainer<?> postgres, String database) throws SQLException {
+        String url = postgres.getJdbcUrl().replace("/" + postgres.getDatabaseName(), "/" + database);
+        return DriverManager.getConnection(url, postgres.getUsername(), postgres.getPassword());
+    }
+
+    private void write(Result before, Result after) throws IOException {
+        Files.createDirectories(outputDir);
+        Path csv = outputDir.resolve("insert-throughput.csv");
+        Files.writeString(csv, String.format(
+                "schema,writers,batch_size,preload,duration_s,orders,orders_per_sec%n%s%n%s%n",
+                before.csv(writers, batchSize, preload), after.csv(writers, batchSize, preload)));
+        LOG.infof("Wrote %s", csv);
+    }
+
+    private static String prop(String name, String defaultValue) {
+        return System.getProperty("insertbench." + name, defaultValue);
+    }
+
+    private record Result(String schema, long orders, Duration duration) {
+        double ordersPerSec() {
+            return orders / (duration.toMillis() / 1000.0);
+        }
+
+        String csv(int writers, int batchSize, long preload) {
+            return String.format("%s,%d,%d,%d,%d,%d,%.0f", schema, writers, batchSize, preload,
+                                 duration.toSeconds(), orders, ordersPerSec());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.hts.order.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 부하 테스트 설정. 모두 -Dloadtest.* 시스템 프로퍼티로 받는다 (./gradlew loadTest -Ploadtest.rates=... 로 전달).
+ *
+ * @param target              이미 떠 있는 서비스 주소(host:port). 비어 있으면 컨테이너 + 로컬 jar로 직접 띄움
+ * @param rates               단계별 목표 요청률 (req/s, open-loop)
+ * @param warmup              단계마다 기록하지 않고 버리는 구간
+ * @param stepDuration        단계마다 측정하는 구간
+ * @param cancelRatio         전체 요청 중 CancelOrder 비율 (수락된 주문이 있을 때만)
+ * @param duplicateRatio      전체 요청 중 이전 PlaceOrder를 같은 idempotency key로 재전송하는 비율
+ * @param accounts            주문을 분산시킬 계좌 수
+ * @param channels            gRPC 채널 수 (HTTP/2 연결 하나에 몰리지 않도록)
+ * @param deadline            요청별 gRPC deadline
+ * @param sloP99              판정 기준 p99
+ * @param accountLatency      fake AccountOrderService 응답 지연
+ * @param appJar              로컬 모드에서 실행할 quarkus-run.jar
+ * @param httpPort            로컬 모드 서비스 HTTP 포트 (readiness 확인용)
+ * @param grpcPort            로컬 모드 서비스 gRPC 포트
+ * @param outputDir           리포트 출력 디렉터리
+ */
+public record LoadTestConfig(
+        String target,
+        int[] rates,
+        Duration warmup,
+        Duration stepDuration,
+        double cancelRatio,
+        double duplicateRatio,
+        int accounts,
+        int channels,
+        Duration deadline,
+        Duration sloP99,
+        Duration accountLatency,
+        Path appJar,
+        int httpPort,
+        int grpcPort,
+        Path outputDir
+) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig(
+                prop("target", ""),
+                Arrays.stream(prop("rates", "500,1000,2000,3000,4000,5000").split(","))
+                        .map(String::trim).filter(s -> !s.isEmpty()).mapToInt(Integer::parseInt).toArray(),
+                Duration.parse(prop("warmup", "PT10S")),
+                Duration.parse(prop("step-duration", "PT30S")),
+                Double.parseDouble(prop("cancel-ratio", "0.2")),
+                Double.parseDouble(prop("duplicate-ratio", "0.05")),
+                Integer.parseInt(prop("accounts", "1000")),
+                Integer.parseInt(prop("channels", "4")),
+                Duration.parse(prop("deadline", "PT5S")),
+                Duration.parse(prop("slo-p99", "PT0.1S")),
+                Duration.parse(prop("account-latency", "PT0.0005S")),
+                Path.of(prop("app-jar", "build/quarkus-app/quarkus-run.jar")),
+                Integer.parseInt(prop("http-port", "18080")),
+                Integer.parseInt(prop("grpc-port", "50054")),
+                Path.of(prop("output-dir", "build/loadtest"))
+        );
+        config.validate();
+        return config;
+    }
+
+    public boolean external() {
+        return !target.isBlank();
+    }
+
+    private void validate() {
+        if (rates.length == 0 || Arrays.stream(rates).anyMatch(r -> r <= 0)) {
+            throw new IllegalArgumentException("loadtest.rates must be positive integers");
+        }
+        if (cancelRatio < 0 || duplicateRatio < 0 || cancelRatio + duplicateRatio > 1) {
+            throw new IllegalArgumentException("loadtest.cancel-ratio + loadtest.duplicate-ratio must be within [0, 1]");
+        }
+        if (accounts <= 0 || channels <= 0) {
+            throw new IllegalArgumentException("loadtest.accounts and loadtest.channels must be positive");
+        }
+    }
+
+    private static String prop(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        return "target=" + (external() ? target : "local") +
+                ", rates=" + Arrays.toString(rates) +
+                ", warmup=" + warmup +
+                ", step=" + stepDuration +
+                ", cancelRatio=" + cancelRatio +
+                ", duplicateRatio=" + duplicateRatio +
+                ", accounts=" + accounts +
+                ", channels=" + channels +
+                ", sloP99=" + sloP99.toMillis() + "ms";
+    }
+}
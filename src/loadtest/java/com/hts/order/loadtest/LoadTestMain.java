@@ -0,0 +1,37 @@
+package com.hts.order.loadtest;
+
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * PlaceOrder/CancelOrder open-loop 부하 테스트 진입점.
+ *
+ * ./gradlew loadTest                                   (컨테이너 + fake account 서비스로 로컬 실행)
+ * ./gradlew loadTest -Ploadtest.target=host:50054      (이미 떠 있는 서비스 대상)
+ * ./gradlew loadTest -Ploadtest.rates=1000,3000 -Ploadtest.cancel-ratio=0.3
+ */
+public final class LoadTestMain {
+
+    private static final Logger LOG = Logger.getLogger(LoadTestMain.class);
+
+    private LoadTestMain() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        LOG.infof("Load test: %s", config);
+
+        try (LocalEnvironment environment = config.external() ? null : new LocalEnvironment(config)) {
+            String target = environment == null ? config.target() : environment.start();
+            LoadTestReport report = new LoadTestReport(config);
+            try (OpenLoopDriver driver = new OpenLoopDriver(config, target)) {
+                driver.connect(Duration.ofSeconds(30));
+                for (int rate : config.rates()) {
+                    LOG.infof("Step %d req/s (warmup %s, measure %s)", rate, config.warmup(), config.stepDuration());
+                    report.add(driver.runStep(rate));
+                }
+            }
+            report.write();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hts.order.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 결과 출력.
+ * - 콘솔: 단계별 p50/p99/p99.9 표 + SLO 안에서 버틴 최대 rate
+ * - curve.csv: throughput-vs-latency 곡선 (rate 1행)
+ * - step-{rate}.hgrm: 단계별 percentile 분포 (HdrHistogram plotter 입력 형식, ms 단위)
+ */
+public class LoadTestReport {
+
+    private static final String HEADER = "target_rate,achieved_rate,count,p50_ms,p99_ms,p999_ms,max_ms,errors,rejected,duplicate_mismatches,unfinished";
+
+    private final LoadTestConfig config;
+    private final List<StepResult> results = new ArrayList<>();
+
+    public LoadTestReport(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public void add(StepResult result) throws IOException {
+        results.add(result);
+        printStep(System.out, result);
+        Files.createDirectories(config.outputDir());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(
+                config.outputDir().resolve("step-" + result.targetRate() + ".hgrm")))) {
+            result.all().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    public void write() throws IOException {
+        Path csv = config.outputDir().resolve("curve.csv");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+            out.println(HEADER);
+            for (StepResult result : results) {
+                Histogram all = result.all();
+                out.println(String.format(Locale.ROOT, "%d,%.1f,%d,%.3f,%.3f,%.3f,%.3f,%d,%d,%d,%d",
+                        result.targetRate(), result.achievedRate(), all.getTotalCount(),
+                        millis(all, 50.0), millis(all, 99.0), millis(all, 99.9), all.getMaxValue() / 1000.0,
+                        result.errorCount(), sum(result.rejections()), result.duplicateMismatches(), result.unfinished()));
+            }
+        }
+
+        System.out.println();
+        System.out.println("=== Throughput vs latency (ms) ===");
+        System.out.printf(Locale.ROOT, "%8s %10s %9s %9s %9s %9s %8s%n",
+                "target", "achieved", "p50", "p99", "p99.9", "max", "errors");
+        StepResult best = null;
+        for (StepResult result : results) {
+            Histogram all = result.all();
+            System.out.printf(Locale.ROOT, "%8d %10.1f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                    result.targetRate(), result.achievedRate(),
+                    millis(all, 50.0), millis(all, 99.0), millis(all, 99.9), all.getMaxValue() / 1000.0,
+                    result.errorCount());
+            if (withinSlo(result) && (best == null || result.targetRate() > best.targetRate())) {
+                best = result;
+            }
+        }
+        System.out.println(best == null
+                ? "No step met p99 <= " + config.sloP99().toMillis() + "ms without errors"
+                : "Max rate within SLO (p99 <= " + config.sloP99().toMillis() + "ms, no errors): " + best.targetRate() + " req/s");
+        System.out.println("Curve: " + csv.toAbsolutePath());
+    }
+
+    private boolean withinSlo(StepResult result) {
+        // 목표 rate를 못 따라간 단계(achieved < 95%)는 지연이 낮아 보여도 통과로 치지 않음
+        return result.errorCount() == 0
+                && result.unfinished() == 0
+                && result.achievedRate() >= result.targetRate() * 0.95
+                && result.p99Millis() <= config.sloP99().toNanos() / 1_000_000.0;
+    }
+
+    private static void printStep(PrintStream out, StepResult result) {
+        out.printf(Locale.ROOT, "%n--- %d req/s (achieved %.1f) ---%n", result.targetRate(), result.achievedRate());
+        out.printf(Locale.ROOT, "%-16s %9s %9s %9s %9s %9s%n", "operation", "count", "p50", "p99", "p99.9", "max");
+        for (Map.Entry<OpenLoopDriver.Operation, Histogram> entry : result.byOperation().entrySet()) {
+            printRow(out, entry.getKey().name(), entry.getValue());
+        }
+        printRow(out, "ALL", result.all());
+        result.errors().forEach((key, count) -> out.printf("  error    %s = %d%n", key, count));
+        result.rejections().forEach((key, count) -> out.printf("  rejected %s = %d%n", key, count));
+        if (result.duplicateMismatches() > 0) {
+            out.printf("  duplicate key returned a different orderId: %d%n", result.duplicateMismatches());
+        }
+        if (result.unfinished() > 0) {
+            out.printf("  unfinished after drain: %d%n", result.unfinished());
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        out.printf(Locale.ROOT, "%-16s %9d %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+                millis(histogram, 50.0), millis(histogram, 99.0), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long sum(Map<String, Long> counters) {
+        return counters.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
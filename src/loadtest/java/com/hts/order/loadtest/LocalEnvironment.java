@@ -0,0 +1,143 @@
+package com.hts.order.loadtest;
+
+import org.jboss.logging.Logger;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.kafka.KafkaContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로컬 부하 테스트 환경.
+ * Postgres/Kafka 컨테이너 + in-process fake AccountOrderService / AuthInternalService를 띄우고,
+ * 빌드된 quarkus-run.jar를 별도 JVM으로 실행해 이들을 바라보게 한다.
+ * (부하 생성기와 서비스가 같은 힙/GC를 공유하지 않도록 프로세스를 분리)
+ */
+public class LocalEnvironment implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(LocalEnvironment.class);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final LoadTestConfig config;
+    private PostgreSQLContainer<?> postgres;
+    private KafkaContainer kafka;
+    private FakeAccountService accountService;
+    private FakeAuthService authService;
+    private Process app;
+
+    public LocalEnvironment(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return 부하를 보낼 서비스 gRPC 주소 (host:port)
+     */
+    public String start() throws Exception {
+        if (!Files.exists(config.appJar())) {
+            throw new IllegalStateException(config.appJar() + " not found (run ./gradlew quarkusBuild first)");
+        }
+
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+                .withDatabaseName("hts_order")
+                .withUsername("hts")
+                .withPassword("hts")
+                .withCommand("postgres", "-c", "max_connections=200", "-c", "synchronous_commit=on");
+        kafka = new KafkaContainer(DockerImageName.parse("apache/kafka-native:3.8.0"));
+        postgres.start();
+        kafka.start();
+        LOG.infof("Postgres=%s, Kafka=%s", postgres.getJdbcUrl(), kafka.getBootstrapServers());
+
+        accountService = new FakeAccountService(config.accountLatency().toNanos() / 1000).start(0);
+        LOG.infof("Fake AccountOrderService on port %d", accountService.port());
+        authService = new FakeAuthService().start(0);
+        LOG.infof("Fake AuthInternalService on port %d", authService.port());
+
+        app = launchApp();
+        awaitReady();
+        return "localhost:" + config.grpcPort();
+    }
+
+    private Process launchApp() throws Exception {
+        String pgHostPort = postgres.getHost() + ":" + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT);
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Dquarkus.datasource.reactive.url=postgresql://" + pgHostPort + "/hts_order");
+        command.add("-Dquarkus.datasource.jdbc.url=" + postgres.getJdbcUrl());
+        command.add("-Dquarkus.datasource.username=" + postgres.getUsername());
+        command.add("-Dquarkus.datasource.password=" + postgres.getPassword());
+        command.add("-Dkafka.bootstrap.servers=" + kafka.getBootstrapServers());
+        command.add("-Dquarkus.grpc.clients.account-command-service.host=localhost");
+        command.add("-Dquarkus.grpc.clients.account-command-service.port=" + accountService.port());
+        command.add("-Dquarkus.grpc.clients.auth-command-service.host=localhost");
+        command.add("-Dquarkus.grpc.clients.auth-command-service.port=" + authService.port());
+        command.add("-Dquarkus.grpc.server.port=" + config.grpcPort());
+        command.add("-Dquarkus.http.port=" + config.httpPort());
+        command.add("-Dquarkus.consul-config.enabled=false");
+        command.add("-jar");
+        command.add(config.appJar().toString());
+
+        Files.createDirectories(config.outputDir());
+        Path log = config.outputDir().resolve("app.log");
+        LOG.infof("Starting %s (log: %s)", config.appJar(), log);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private void awaitReady() throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest ready = HttpRequest.newBuilder(URI.create("http://localhost:" + config.httpPort() + "/q/health/ready"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("Service exited with code " + app.exitValue()
+                        + " (see " + config.outputDir().resolve("app.log") + ")");
+            }
+            try {
+                if (http.send(ready, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    LOG.info("Service ready");
+                    return;
+                }
+            } catch (IOException ignored) {
+                // 아직 HTTP 서버가 뜨지 않음
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Service not ready within " + STARTUP_TIMEOUT);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (app != null) {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+        }
+        if (accountService != null) {
+            accountService.close();
+        }
+        if (authService != null) {
+            authService.close();
+        }
+        if (kafka != null) {
+            kafka.stop();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.hts.order.loadtest;
+
+import com.hts.generated.grpc.*;
+import io.grpc.ClientInterceptor;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop 부하 생성기.
+ *
+ * 요청 i는 응답과 무관하게 start + i * (1s / rate) 시각에 보낸다.
+ * 지연은 실제 전송 시각이 아니라 이 "예정 시각"부터 응답까지로 기록하므로,
+ * 서비스(또는 생성기 자신)가 밀려서 전송이 늦어진 시간도 그대로 지연에 포함된다 (coordinated omission 보정).
+ */
+public class OpenLoopDriver implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int RING_SIZE = 1 << 14;
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+    private static final String[] SYMBOLS = {"005930", "000660", "035420", "035720", "051910", "207940", "AAPL", "MSFT"};
+
+    public enum Operation { PLACE, PLACE_DUPLICATE, CANCEL }
+
+    private final LoadTestConfig config;
+    private final ManagedChannel[] channels;
+    private final OrderServiceGrpc.OrderServiceStub[] stubs;
+    // 계좌별 session-id 헤더 (FakeAuthService 형식, index = accountId)
+    private final ClientInterceptor[] sessions;
+
+    // 재전송 후보 (sender 스레드만 읽고 씀)
+    private final SentOrder[] sent = new SentOrder[RING_SIZE];
+    private long sentCount;
+    // 취소 후보 (응답 스레드가 쓰고 sender가 꺼내감)
+    private final AtomicReferenceArray<SentOrder> accepted = new AtomicReferenceArray<>(RING_SIZE);
+    private final AtomicLong acceptedCount = new AtomicLong();
+
+    public OpenLoopDriver(LoadTestConfig config, String target) {
+        this.config = config;
+        this.channels = new ManagedChannel[config.channels()];
+        this.stubs = new OrderServiceGrpc.OrderServiceStub[config.channels()];
+        for (int i = 0; i < channels.length; i++) {
+            // 콜백은 히스토그램 기록뿐이므로 netty 이벤트 루프에서 바로 실행
+            channels[i] = ManagedChannelBuilder.forTarget(target).usePlaintext().directExecutor().build();
+            stubs[i] = OrderServiceGrpc.newStub(channels[i]);
+        }
+        Metadata.Key<String> sessionKey = Metadata.Key.of("session-id", Metadata.ASCII_STRING_MARSHALLER);
+        this.sessions = new ClientInterceptor[config.accounts() + 1];
+        for (int accountId = 1; accountId <= config.accounts(); accountId++) {
+            Metadata headers = new Metadata();
+            headers.put(sessionKey, FakeAuthService.sessionOf(accountId));
+            sessions[accountId] = MetadataUtils.newAttachHeadersInterceptor(headers);
+        }
+    }
+
+    /**
+     * 첫 단계의 초반 요청들이 연결 수립 시간을 떠안지 않도록 모든 채널을 미리 연결
+     */
+    public void connect(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (ManagedChannel channel : channels) {
+            while (channel.getState(true) != ConnectivityState.READY) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("OrderService not reachable at " + channel.authority());
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    public StepResult runStep(int rate) throws InterruptedException {
+        Step step = new Step(rate);
+        double intervalNanos = 1_000_000_000.0 / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.stepDuration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            waitUntil(intended);
+            send(step, stubs[(int) (i % stubs.length)], intended, intended >= measureFrom);
+        }
+
+        // 마지막 요청들의 응답 대기 (deadline이 지나면 DEADLINE_EXCEEDED로 돌아오므로 그 이상은 기다리지 않음)
+        long drainDeadline = System.nanoTime() + config.deadline().toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (step.inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return step.finish(config.stepDuration().toNanos());
+    }
+
+    private void send(Step step, OrderServiceGrpc.OrderServiceStub stub, long intended, boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double dice = random.nextDouble();
+        OrderServiceGrpc.OrderServiceStub call = stub.withDeadlineAfter(config.deadline().toNanos(), TimeUnit.NANOSECONDS);
+
+        if (dice < config.cancelRatio()) {
+            SentOrder target = takeAccepted(random);
+            if (target != null) {
+                CancelOrderRequest request = CancelOrderRequest.newBuilder()
+                        .setAccountId(target.request.getAccountId())
+                        .setSymbol(target.request.getSymbol())
+                        .setOrderId(target.orderId)
+                        .setIdempotencyKey(UUID.randomUUID().toString())
+                        .build();
+                step.inFlight.incrementAndGet();
+                call.withInterceptors(sessionOf(request.getAccountId())).cancelOrder(request, step.observer(Operation.CANCEL, intended, measured, null));
+                return;
+            }
+        } else if (dice < config.cancelRatio() + config.duplicateRatio() && sentCount > 0) {
+            SentOrder original = sent[(int) (random.nextLong(Math.min(sentCount, RING_SIZE)))];
+            step.inFlight.incrementAndGet();
+            call.withInterceptors(sessionOf(original.request.getAccountId()))
+                    .placeOrder(original.request, step.observer(Operation.PLACE_DUPLICATE, intended, measured, original));
+            return;
+        }
+
+        // 수락된 주문이 아직 없어서 취소를 못 보내는 경우도 신규 주문으로 대체
+        SentOrder order = new SentOrder(newPlaceRequest(random));
+        sent[(int) (sentCount++ & (RING_SIZE - 1))] = order;
+        step.inFlight.incrementAndGet();
+        call.withInterceptors(sessionOf(order.request.getAccountId()))
+                .placeOrder(order.request, step.observer(Operation.PLACE, intended, measured, order));
+    }
+
+    private ClientInterceptor sessionOf(long accountId) {
+        return sessions[(int) accountId];
+    }
+
+    private PlaceOrderRequest newPlaceRequest(ThreadLocalRandom random) {
+        return PlaceOrderRequest.newBuilder()
+                .setAccountId(1 + random.nextInt(config.accounts()))
+                .setIdempotencyKey(UUID.randomUUID().toString())
+                .setSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)])
+                .setSide(random.nextBoolean() ? Side.BUY : Side.SELL)
+                .setOrderType(OrderType.LIMIT)
+                .setQuantity(1 + random.nextInt(100))
+                .setPrice(1_000_000L * (10_000 + random.nextInt(90_000)))
+                .setTimeInForce(TimeInForce.DAY)
+                .build();
+    }
+
+    private SentOrder takeAccepted(ThreadLocalRandom random) {
+        long count = acceptedCount.get();
+        if (count == 0) {
+            return null;
+        }
+        // 같은 주문을 두 번 취소하지 않도록 꺼낸 슬롯은 비움
+        return accepted.getAndSet((int) random.nextLong(Math.min(count, RING_SIZE)), null);
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (ManagedChannel channel : channels) {
+            channel.shutdown();
+        }
+        for (ManagedChannel channel : channels) {
+            channel.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class SentOrder {
+        final PlaceOrderRequest request;
+        volatile long orderId;
+
+        SentOrder(PlaceOrderRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * 한 단계(목표 rate 1개) 동안의 기록. warmup 구간에 예정된 요청은 세지 않는다.
+     */
+    private final class Step {
+        final int rate;
+        final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+        final LongAdder completed = new LongAdder();
+        final LongAdder duplicateMismatches = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        Step(int rate) {
+            this.rate = rate;
+            for (Operation operation : Operation.values()) {
+                recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            }
+        }
+
+        StreamObserver<OrderResponse> observer(Operation operation, long intended, boolean measured, SentOrder order) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(OrderResponse response) {
+                    if (measured) {
+                        record(operation, intended);
+                        if (response.getStatus() == OrderStatus.REJECTED) {
+                            rejections.computeIfAbsent(operation + ": " + response.getMessage(), k -> new LongAdder()).increment();
+                        }
+                    }
+                    if (response.getStatus() == OrderStatus.REJECTED || response.getOrderId() == 0) {
+                        return;
+                    }
+                    if (operation == Operation.PLACE) {
+                        order.orderId = response.getOrderId();
+                        accepted.set((int) (acceptedCount.getAndIncrement() & (RING_SIZE - 1)), order);
+                    } else if (operation == Operation.PLACE_DUPLICATE && measured
+                            && order.orderId != 0 && order.orderId != response.getOrderId()) {
+                        // 같은 idempotency key인데 다른 주문이 생김
+                        duplicateMismatches.increment();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    if (measured) {
+                        // 실패도 클라이언트가 기다린 시간이므로 지연에 포함
+                        record(operation, intended);
+                        errors.computeIfAbsent(operation + ": " + Status.fromThrowable(t).getCode(), k -> new LongAdder()).increment();
+                    }
+                    inFlight.decrementAndGet();
+                }
+
+                @Override
+                public void onCompleted() {
+                    inFlight.decrementAndGet();
+                }
+            };
+        }
+
+        private void record(Operation operation, long intended) {
+            long micros = (System.nanoTime() - intended) / 1000;
+            recorders.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            completed.increment();
+        }
+
+        StepResult finish(long measuredNanos) {
+            Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+            Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+            for (Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+                Histogram histogram = entry.getValue().getIntervalHistogram();
+                histograms.put(entry.getKey(), histogram);
+                all.add(histogram);
+            }
+            double achieved = completed.sum() * 1_000_000_000.0 / measuredNanos;
+            return new StepResult(rate, achieved, all, histograms,
+                    snapshot(errors), snapshot(rejections), duplicateMismatches.sum(), inFlight.get());
+        }
+
+        private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+            Map<String, Long> result = new TreeMap<>();
+            counters.forEach((key, value) -> result.put(key, value.sum()));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hts.order.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * 단계 1개(목표 rate 1개)의 측정 결과. 히스토그램 값 단위는 마이크로초.
+ *
+ * @param targetRate          목표 요청률 (req/s)
+ * @param achievedRate        측정 구간에 실제로 완료된 요청률 (req/s)
+ * @param all                 전체 요청 지연
+ * @param byOperation         요청 종류별 지연
+ * @param errors              gRPC 오류 ("종류: 상태 코드" -> 건수)
+ * @param rejections          REJECTED 응답 ("종류: 메시지" -> 건수)
+ * @param duplicateMismatches 같은 idempotency key 재전송에 다른 orderId가 돌아온 건수
+ * @param unfinished          drain 이후에도 응답이 오지 않은 요청 수
+ */
+public record StepResult(
+        int targetRate,
+        double achievedRate,
+        Histogram all,
+        Map<OpenLoopDriver.Operation, Histogram> byOperation,
+        Map<String, Long> errors,
+        Map<String, Long> rejections,
+        long duplicateMismatches,
+        int unfinished
+) {
+
+    public long errorCount() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double p99Millis() {
+        return all.getValueAtPercentile(99.0) / 1000.0;
+    }
+}
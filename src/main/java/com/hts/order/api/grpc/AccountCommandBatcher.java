@@ -0,0 +1,130 @@
+package com.hts.order.api.grpc;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.AccountCommand;
+import com.hts.generated.grpc.account.order.AccountOrderService;
+import com.hts.generated.grpc.account.order.ReserveBatchReply;
+import com.hts.generated.grpc.account.order.ReserveBatchRequest;
+import com.hts.order.infrastructure.MicroBatcher;
+import io.grpc.Status;
+import io.quarkus.grpc.GrpcClient;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * window 안에 들어온 reserve/release 요청을 ReserveBatch RPC 하나로 묶어 전송하고,
+ * 결과(results[i])를 각 호출자의 Uni로 돌려준다.
+ * 배치 RPC가 실패하면 건별 unary 호출로 대체하고, account 서비스가 ReserveBatch를
+ * 구현하지 않았으면(UNIMPLEMENTED) 배치 모드를 끄고 unary 경로만 사용한다.
+ *
+ * 배치 RPC가 account 서비스에서 적용된 뒤에 실패(타임아웃, 연결 끊김)할 수 있으므로 재전송은
+ * account 서비스가 reserve_id로 중복을 걸러낸다는 전제에 기댄다. 재전송한 명령의 DUPLICATE_REQUEST는
+ * 배치가 이미 적용한 것이므로 SUCCESS로 돌려준다 (reserve_id는 주문마다 유일).
+ */
+@ApplicationScoped
+public class AccountCommandBatcher {
+
+    private static final Logger log = Logger.getLogger(AccountCommandBatcher.class);
+
+    private static final CommonReply SUCCESS = CommonReply.newBuilder().setCode(AccoutResult.SUCCESS).build();
+
+    @Inject
+    @GrpcClient("account-command-service")
+    AccountOrderService accountService;
+
+    @Inject Vertx vertx;
+
+    @ConfigProperty(name = "order.account.batch.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.account.batch.window-ms", defaultValue = "1")
+    long windowMs;
+
+    @ConfigProperty(name = "order.account.batch.max-size", defaultValue = "128")
+    int maxBatchSize;
+
+    private MicroBatcher<PendingCommand> batcher;
+
+    private volatile boolean unsupported;
+
+    @PostConstruct
+    void init() {
+        batcher = new MicroBatcher<>(vertx, windowMs, maxBatchSize, this::send);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !unsupported;
+    }
+
+    /**
+     * @param unary 배치 전송이 실패했을 때 쓸 단건 호출
+     */
+    public Uni<CommonReply> submit(AccountCommand command, Supplier<Uni<CommonReply>> unary) {
+        return Uni.createFrom().emitter(em -> batcher.submit(new PendingCommand(command, unary, em)));
+    }
+
+    private void send(List<PendingCommand> batch) {
+        if (batch.size() == 1 || unsupported) {
+            batch.forEach(command -> sendUnary(command, false));
+        } else {
+            sendBatch(batch);
+        }
+    }
+
+    private void sendBatch(List<PendingCommand> batch) {
+        ReserveBatchRequest.Builder request = ReserveBatchRequest.newBuilder();
+        for (PendingCommand command : batch) {
+            request.addItems(command.command());
+        }
+
+        accountService.reserveBatch(request.build())
+            .subscribe().with(
+                reply -> demultiplex(batch, reply),
+                t -> {
+                    if (Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED) {
+                        unsupported = true;
+                        log.warn("Account service does not implement ReserveBatch, falling back to unary calls");
+                    } else {
+                        log.warnf(t, "ReserveBatch failed, falling back to unary calls: size=%d", batch.size());
+                    }
+                    batch.forEach(command -> sendUnary(command, true));
+                }
+            );
+    }
+
+    private void demultiplex(List<PendingCommand> batch, ReserveBatchReply reply) {
+        if (reply.getResultsCount() != batch.size()) {
+            log.errorf("ReserveBatch result count mismatch: sent=%d, received=%d",
+                       batch.size(), reply.getResultsCount());
+            batch.forEach(command -> sendUnary(command, true));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).emitter().complete(reply.getResults(i));
+        }
+    }
+
+    /**
+     * @param resend 배치로 이미 보냈던 명령 (account 서비스에 적용됐을 수 있음)
+     */
+    private void sendUnary(PendingCommand command, boolean resend) {
+        command.unary().get().subscribe().with(
+            reply -> command.emitter().complete(
+                resend && reply.getCode() == AccoutResult.DUPLICATE_REQUEST ? SUCCESS : reply),
+            t -> command.emitter().fail(t)
+        );
+    }
+
+    private record PendingCommand(AccountCommand command, Supplier<Uni<CommonReply>> unary,
+                                  UniEmitter<? super CommonReply> emitter) {}
+}
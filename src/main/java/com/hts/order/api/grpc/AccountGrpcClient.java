@@ -2,6 +2,8 @@ package com.hts.order.api.grpc;
 
 import com.hts.generated.grpc.*;
 import com.hts.generated.grpc.account.order.*;
+import com.hts.order.infrastructure.metrics.OrderMetrics;
+import com.hts.order.infrastructure.metrics.OrderMetrics.AccountRpc;
 import io.quarkus.grpc.GrpcClient;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -10,20 +12,40 @@ import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 @ApplicationScoped
 public class AccountGrpcClient {
 
     private static final Logger log = Logger.getLogger(AccountGrpcClient.class);
 
+    private static final CommonReply INTERNAL_ERROR =
+            CommonReply.newBuilder().setCode(AccoutResult.INTERNAL_ERROR).build();
+    private static final CommonReply SUCCESS =
+            CommonReply.newBuilder().setCode(AccoutResult.SUCCESS).build();
+
+    // executeBatch의 @Timeout(500ms) 안에서 배치 시도 후 unary 대체까지 끝나도록 나눈 예산
+    private static final Duration BATCH_ATTEMPT_TIMEOUT = Duration.ofMillis(300);
+    // 단건 RPC의 @Timeout과 같은 값
+    private static final Duration UNARY_FALLBACK_TIMEOUT = Duration.ofMillis(100);
+
     @Inject
     @GrpcClient("account-command-service")
     AccountOrderService accountService;
 
+    @Inject AccountCommandBatcher batcher;
+    @Inject AccountStreamTransport streamTransport;
+    @Inject OrderMetrics metrics;
+
     @Retry(maxRetries = 3, delay = 10, delayUnit = ChronoUnit.MILLIS, jitter = 5)
     @Timeout(value = 100, unit = ChronoUnit.MILLIS)
     public Uni<CommonReply> reserveCash(long accountId, long amountMicroUnits, String currency, String reserveId, String orderId) {
+        // @Retry는 재시도마다 메서드 본문을 다시 호출하므로 여기서 세면 시도 수가 된다
+        metrics.accountAttempt(AccountRpc.RESERVE_CASH);
         log.debugf("ReserveCash: accountId=%d, reserveId=%s", accountId, reserveId);
 
         ReserveCashRequest request = ReserveCashRequest.newBuilder()
@@ -34,19 +56,24 @@ public class AccountGrpcClient {
                 .setOrderId(orderId)
                 .build();
 
-        return accountService.reserveCash(request)
+        return dispatch(reserveId,
+                        () -> AccountCommand.newBuilder().setReserveCash(request).build(),
+                        () -> accountService.reserveCash(request))
                 .onFailure().invoke(t -> log.errorf(t, "ReserveCash failed: %s", reserveId));
     }
 
     @Retry(maxRetries = 3, delay = 10, delayUnit = ChronoUnit.MILLIS, jitter = 5)
     @Timeout(value = 100, unit = ChronoUnit.MILLIS)
     public Uni<CommonReply> releaseCash(long accountId, String reserveId) {
+        metrics.accountAttempt(AccountRpc.RELEASE_CASH);
         ReleaseCashRequest request = ReleaseCashRequest.newBuilder()
                 .setAccountId(accountId)
                 .setReserveId(reserveId)
                 .build();
 
-        return accountService.releaseCash(request)
+        return dispatch(reserveId,
+                        () -> AccountCommand.newBuilder().setReleaseCash(request).build(),
+                        () -> accountService.releaseCash(request))
                 .onFailure().invoke(t -> log.errorf(t, "CancelCashReserve failed: %s", reserveId));
     }
 
@@ -54,6 +81,7 @@ public class AccountGrpcClient {
     @Timeout(value = 100, unit = ChronoUnit.MILLIS)
     public Uni<CommonReply> reservePosition(long accountId, String symbol,
                                            long quantity, String reserveId, String orderId) {
+        metrics.accountAttempt(AccountRpc.RESERVE_POSITION);
         ReservePositionRequest request = ReservePositionRequest.newBuilder()
                 .setAccountId(accountId)
                 .setSymbol(symbol)
@@ -62,19 +90,90 @@ public class AccountGrpcClient {
                 .setOrderId(orderId)
                 .build();
 
-        return accountService.reservePosition(request)
+        return dispatch(reserveId,
+                        () -> AccountCommand.newBuilder().setReservePosition(request).build(),
+                        () -> accountService.reservePosition(request))
                 .onFailure().invoke(t -> log.errorf(t, "ReservePosition failed: %s", reserveId));
     }
 
     @Retry(maxRetries = 3, delay = 10, delayUnit = ChronoUnit.MILLIS, jitter = 5)
     @Timeout(value = 100, unit = ChronoUnit.MILLIS)
     public Uni<CommonReply> releasePosition(long accountId, String reserveId) {
+        metrics.accountAttempt(AccountRpc.RELEASE_POSITION);
         ReleasePositionRequest request = ReleasePositionRequest.newBuilder()
                 .setAccountId(accountId)
                 .setReserveId(reserveId)
                 .build();
 
-        return accountService.releasePosition(request)
+        return dispatch(reserveId,
+                        () -> AccountCommand.newBuilder().setReleasePosition(request).build(),
+                        () -> accountService.releasePosition(request))
                 .onFailure().invoke(t -> log.errorf(t, "CancelPositionReserve failed: %s", reserveId));
     }
+
+    /**
+     * 바스켓용: 여러 명령을 ReserveBatch 한 번으로 전송. results[i]는 commands[i]의 결과.
+     * 배치 RPC가 실패하면 건별 unary로 대체하고, 건별 호출 실패(timeout 포함)는 INTERNAL_ERROR 결과로 돌려준다.
+     * 배치가 적용된 뒤 응답만 유실됐을 수 있으므로 대체 호출의 DUPLICATE_REQUEST는 SUCCESS로 본다
+     * (account 서비스는 reserve_id로 중복을 거른다).
+     */
+    @Timeout(value = 500, unit = ChronoUnit.MILLIS)
+    public Uni<List<CommonReply>> executeBatch(List<AccountCommand> commands) {
+        return accountService.reserveBatch(ReserveBatchRequest.newBuilder().addAllItems(commands).build())
+                .ifNoItem().after(BATCH_ATTEMPT_TIMEOUT).fail()
+                .map(ReserveBatchReply::getResultsList)
+                .onItem().transformToUni(results -> results.size() == commands.size()
+                        ? Uni.createFrom().item(results)
+                        : Uni.createFrom().<List<CommonReply>>failure(new IllegalStateException(
+                                "ReserveBatch result count mismatch: " + results.size() + "/" + commands.size())))
+                .onFailure().recoverWithUni(t -> {
+                    log.warnf(t, "ReserveBatch failed, falling back to unary calls: size=%d", commands.size());
+                    List<Uni<CommonReply>> calls = new ArrayList<>(commands.size());
+                    for (AccountCommand command : commands) {
+                        calls.add(unary(command)
+                                .ifNoItem().after(UNARY_FALLBACK_TIMEOUT).fail()
+                                .map(reply -> reply.getCode() == AccoutResult.DUPLICATE_REQUEST ? SUCCESS : reply)
+                                .onFailure().recoverWithItem(INTERNAL_ERROR));
+                    }
+                    return Uni.join().all(calls).andFailFast();
+                });
+    }
+
+    /**
+     * reconciliation용 미해제 reserve 한 페이지 (reserve_id 오름차순, afterReserveId 다음부터)
+     */
+    @Retry(maxRetries = 3, delay = 200, delayUnit = ChronoUnit.MILLIS, jitter = 100)
+    @Timeout(value = 5, unit = ChronoUnit.SECONDS)
+    public Uni<ListReservationsReply> listReservations(String afterReserveId, int pageSize, long createdBeforeEpochMs) {
+        return accountService.listReservations(ListReservationsRequest.newBuilder()
+                        .setAfterReserveId(afterReserveId)
+                        .setPageSize(pageSize)
+                        .setCreatedBeforeEpochMs(createdBeforeEpochMs)
+                        .build())
+                .onFailure().invoke(t -> log.warnf("ListReservations failed: after=%s, %s", afterReserveId, t.getMessage()));
+    }
+
+    private Uni<CommonReply> unary(AccountCommand command) {
+        return switch (command.getCommandCase()) {
+            case RESERVE_CASH -> accountService.reserveCash(command.getReserveCash());
+            case RESERVE_POSITION -> accountService.reservePosition(command.getReservePosition());
+            case RELEASE_CASH -> accountService.releaseCash(command.getReleaseCash());
+            case RELEASE_POSITION -> accountService.releasePosition(command.getReleasePosition());
+            case COMMAND_NOT_SET -> Uni.createFrom().item(INTERNAL_ERROR);
+        };
+    }
+
+    /**
+     * 전송 경로 선택: 양방향 스트림 → ReserveBatch → unary 순
+     */
+    private Uni<CommonReply> dispatch(String reserveId, Supplier<AccountCommand> command,
+                                      Supplier<Uni<CommonReply>> unary) {
+        if (streamTransport.isAvailable()) {
+            return streamTransport.send(reserveId, command.get(), unary);
+        }
+        if (batcher.isEnabled()) {
+            return batcher.submit(command.get(), unary);
+        }
+        return unary.get();
+    }
 }
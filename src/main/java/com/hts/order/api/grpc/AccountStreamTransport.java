@@ -0,0 +1,171 @@
+package com.hts.order.api.grpc;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.AccountCommand;
+import com.hts.generated.grpc.account.order.AccountCommandReply;
+import com.hts.generated.grpc.account.order.AccountOrderService;
+import io.grpc.Status;
+import io.quarkus.grpc.GrpcClient;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * account 서비스와의 long-lived 양방향 스트림(ReserveStream).
+ * - 요청/응답은 reserve_id로 짝지음
+ * - in-flight가 max-in-flight를 넘거나 스트림이 끊겨 있으면 unary 호출로 대체
+ * - 스트림이 끊기면 ack 받지 못한 명령은 바로 unary로 다시 보내고, 스트림은 backoff 후 재연결한다.
+ *   호출자의 @Timeout(100ms)이 재연결 backoff보다 짧으므로 재연결을 기다렸다 재전송하지 않는다.
+ *   (reserve/release는 reserve_id 기준으로 account 서비스에서 멱등이라, 스트림에서 이미 적용된 명령의
+ *   재전송은 DUPLICATE_REQUEST를 받는다. 이 경우 SUCCESS로 돌려준다)
+ */
+@ApplicationScoped
+public class AccountStreamTransport {
+
+    private static final Logger log = Logger.getLogger(AccountStreamTransport.class);
+
+    private static final CommonReply SUCCESS = CommonReply.newBuilder().setCode(AccoutResult.SUCCESS).build();
+
+    @Inject
+    @GrpcClient("account-command-service")
+    AccountOrderService accountService;
+
+    @Inject Vertx vertx;
+
+    @ConfigProperty(name = "order.account.stream.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.account.stream.max-in-flight", defaultValue = "1024")
+    int maxInFlight;
+
+    @ConfigProperty(name = "order.account.stream.reconnect-backoff-ms", defaultValue = "200")
+    long reconnectBackoffMs;
+
+    private final Map<String, PendingCommand> inFlight = new ConcurrentHashMap<>();
+
+    private volatile MultiEmitter<? super AccountCommand> outbound;
+    private volatile Cancellable subscription;
+    private volatile boolean running;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        connect();
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+        Cancellable current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public boolean isAvailable() {
+        return outbound != null;
+    }
+
+    /**
+     * @param unary 스트림을 쓸 수 없을 때 대신 쓸 단건 호출
+     */
+    public Uni<CommonReply> send(String reserveId, AccountCommand command, Supplier<Uni<CommonReply>> unary) {
+        return Uni.createFrom().emitter(em -> {
+            MultiEmitter<? super AccountCommand> out = outbound;
+            if (out == null || inFlight.size() >= maxInFlight) {
+                sendUnary(unary, em, false);
+                return;
+            }
+
+            PendingCommand pending = new PendingCommand(unary, em);
+            if (inFlight.putIfAbsent(reserveId, pending) != null) {
+                // 같은 reserve_id가 이미 스트림에 걸려 있으면 응답을 구분할 수 없으므로 unary로
+                sendUnary(unary, em, false);
+                return;
+            }
+            em.onTermination(() -> inFlight.remove(reserveId, pending));
+            if (outbound != out) {
+                // 등록하는 사이 스트림이 끊김: onStreamFailure가 이미 가져갔으면 거기서 unary로 보낸다
+                if (inFlight.remove(reserveId, pending)) {
+                    sendUnary(unary, em, false);
+                }
+                return;
+            }
+            out.emit(command);
+        });
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        Multi<AccountCommand> requests = Multi.createFrom().<AccountCommand>emitter(
+            em -> outbound = em, BackPressureStrategy.BUFFER);
+
+        subscription = accountService.reserveStream(requests)
+            .subscribe().with(
+                this::onReply,
+                this::onStreamFailure,
+                () -> onStreamFailure(null)
+            );
+    }
+
+    private void onReply(AccountCommandReply reply) {
+        PendingCommand pending = inFlight.remove(reply.getReserveId());
+        if (pending != null) {
+            pending.emitter().complete(reply.getReply());
+        }
+    }
+
+    private void onStreamFailure(Throwable t) {
+        outbound = null;
+        boolean unimplemented = t != null && Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED;
+        if (unimplemented) {
+            log.warn("Account service does not implement ReserveStream, using unary calls");
+            running = false;
+        } else if (running) {
+            log.warnf(t, "ReserveStream disconnected, reconnecting: inFlight=%d", inFlight.size());
+        }
+
+        // ack 받지 못한 명령은 호출자 timeout 안에 끝나도록 재연결을 기다리지 않고 unary로
+        inFlight.forEach((reserveId, pending) -> {
+            if (inFlight.remove(reserveId, pending)) {
+                sendUnary(pending.unary(), pending.emitter(), !unimplemented);
+            }
+        });
+
+        if (running) {
+            vertx.setTimer(Math.max(1, reconnectBackoffMs), id -> connect());
+        }
+    }
+
+    /**
+     * @param resend 스트림으로 이미 보냈던 명령 (account 서비스에 적용됐을 수 있음)
+     */
+    private static void sendUnary(Supplier<Uni<CommonReply>> unary, UniEmitter<? super CommonReply> em,
+                                  boolean resend) {
+        unary.get().subscribe().with(
+            reply -> em.complete(resend && reply.getCode() == AccoutResult.DUPLICATE_REQUEST ? SUCCESS : reply),
+            em::fail
+        );
+    }
+
+    private record PendingCommand(Supplier<Uni<CommonReply>> unary, UniEmitter<? super CommonReply> emitter) {}
+}
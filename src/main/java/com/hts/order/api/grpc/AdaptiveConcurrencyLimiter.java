@@ -0,0 +1,109 @@
+package com.hts.order.api.grpc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 관측된 latency 기반 AIMD 동시성 제한.
+ * - 샘플 RTT가 최소 RTT * tolerance 이하이고 제한 근처까지 쓰이고 있으면 limit + 1
+ * - RTT가 tolerance를 넘거나 요청이 실패/취소되면 limit * backoffRatio
+ * 최소 RTT는 probeInterval 샘플마다 직전 구간의 최솟값으로 갱신해서 부하 변화에 따라간다.
+ * 샘플은 모든 요청 스레드에서 들어오므로 상태는 lock 없이 atomic으로 갱신한다
+ * (limit은 double 비트를 CAS, 구간 교체는 probeInterval번째 샘플을 받은 스레드 하나만).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final int probeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder shed = new LongAdder();
+
+    // Double.doubleToRawLongBits(estimatedLimit)
+    private final AtomicLong estimatedLimit;
+    private final AtomicLong minRttNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong windowMinRttNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger samplesInWindow = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double backoffRatio, int probeInterval) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.probeInterval = probeInterval;
+        this.estimatedLimit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+    }
+
+    /**
+     * @return 획득 시점의 in-flight 수, 제한 초과면 -1
+     */
+    public int tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > limit()) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            return -1;
+        }
+        return current;
+    }
+
+    public void release(int inFlightAtAcquire, long rttNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        onSample(inFlightAtAcquire, rttNanos, dropped);
+    }
+
+    /**
+     * 요청을 실행하지 않고 반납 (latency 샘플로 쓰지 않음)
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    private void onSample(int inFlightAtAcquire, long rttNanos, boolean dropped) {
+        windowMinRttNanos.accumulateAndGet(rttNanos, Math::min);
+        long minRtt = minRttNanos.accumulateAndGet(rttNanos, Math::min);
+        if (samplesInWindow.incrementAndGet() == probeInterval) {
+            // 이 구간을 닫는 스레드는 하나뿐이고, 그 사이 들어온 샘플은 다음 구간으로 센다
+            samplesInWindow.addAndGet(-probeInterval);
+            long windowMin = windowMinRttNanos.getAndSet(Long.MAX_VALUE);
+            if (windowMin != Long.MAX_VALUE) {
+                minRttNanos.set(windowMin);
+                minRtt = windowMin;
+            }
+        }
+
+        boolean backoff = dropped || rttNanos > minRtt * tolerance;
+        while (true) {
+            long bits = estimatedLimit.get();
+            double current = Double.longBitsToDouble(bits);
+            double next;
+            if (backoff) {
+                next = Math.max(minLimit, current * backoffRatio);
+            } else if (inFlightAtAcquire * 2 >= current) {
+                next = Math.min(maxLimit, current + 1);
+            } else {
+                return;
+            }
+            if (next == current || estimatedLimit.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(estimatedLimit.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long shedCount() {
+        return shed.sum();
+    }
+}
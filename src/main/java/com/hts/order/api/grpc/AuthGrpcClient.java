@@ -0,0 +1,30 @@
+package com.hts.order.api.grpc;
+
+import com.hts.generated.grpc.internal.AuthInternalService;
+import com.hts.generated.grpc.internal.ValidateSessionReply;
+import com.hts.generated.grpc.internal.ValidateSessionRequest;
+import io.quarkus.grpc.GrpcClient;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+
+import java.time.temporal.ChronoUnit;
+
+@ApplicationScoped
+public class AuthGrpcClient {
+
+    @Inject
+    @GrpcClient("auth-command-service")
+    AuthInternalService authService;
+
+    /**
+     * 재시도하지 않는다 (요청 경로에서 기다리는 호출이라 실패는 UNAVAILABLE로 돌려주고 클라이언트가 재시도)
+     */
+    @Timeout(value = 500, unit = ChronoUnit.MILLIS)
+    public Uni<ValidateSessionReply> validateSession(String sessionId) {
+        return authService.validateSession(ValidateSessionRequest.newBuilder()
+                .setSessionId(sessionId)
+                .build());
+    }
+}
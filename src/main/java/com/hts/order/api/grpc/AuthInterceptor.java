@@ -1,120 +1,197 @@
-//package com.hts.order.api.grpc;
-//
-//import com.hts.generated.grpc.internal.MutinyAuthInternalServiceGrpc;
-//import com.hts.generated.grpc.internal.ValidateSessionRequest;
-//import io.grpc.*;
-//import io.quarkus.grpc.GrpcClient;
-//import io.vertx.core.Context;
-//import io.vertx.core.Vertx;
-//import jakarta.inject.Inject;
-//import jakarta.inject.Singleton;
-//import org.jboss.logging.Logger;
-//
-//import java.util.concurrent.CompletableFuture;
-//import java.util.concurrent.TimeUnit;
-//
-//@Singleton
-//public class AuthInterceptor implements ServerInterceptor {
-//
-//    private static final Logger LOG = Logger.getLogger(AuthInterceptor.class);
-//
-//    @Inject
-//    @GrpcClient("auth-command-service")
-//    MutinyAuthInternalServiceGrpc.MutinyAuthInternalServiceStub authServiceStub;
-//
-//    @Inject Vertx vertx;
-//
-//    private static final Metadata.Key<String> SESSION_ID_KEY =
-//            Metadata.Key.of("session-id", Metadata.ASCII_STRING_MARSHALLER);
-//
-//    public static final io.grpc.Context.Key<Long> ACCOUNT_ID_CONTEXT_KEY = io.grpc.Context.key("accountId");
-//
-//    private static final int AUTH_TIMEOUT_MS = 500;
-//
-//    @Override
-//    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
-//            ServerCall<ReqT, RespT> call,
-//            Metadata headers,
-//            ServerCallHandler<ReqT, RespT> next) {
-//
-//        String sessionId = headers.get(SESSION_ID_KEY);
-//        if (sessionId == null || sessionId.isEmpty()) {
-//            call.close(Status.UNAUTHENTICATED.withDescription("Session ID missing"), new Metadata());
-//            return new ServerCall.Listener<>() {};
-//        }
-//
-//        CompletableFuture<Long> authFuture = new CompletableFuture<>();
-//        Context currentContext = Vertx.currentContext();
-//
-//        ValidateSessionRequest request = ValidateSessionRequest.newBuilder()
-//                .setSessionId(sessionId)
-//                .build();
-//
-//        authServiceStub.validateSession(request)
-//                .ifNoItem().after(java.time.Duration.ofMillis(AUTH_TIMEOUT_MS)).fail()
-//                .subscribe().with(
-//                        response -> {
-//                            if (response.getIsValid() && response.getAccountId() > 0) {
-//                                authFuture.complete(response.getAccountId());
-//                            } else {
-//                                authFuture.completeExceptionally(
-//                                        new StatusException(Status.UNAUTHENTICATED.withDescription("Invalid session"))
-//                                );
-//                            }
-//                        },
-//                        failure -> {
-//                            LOG.warnf(failure, "Auth validation failed for session: %s", sessionId);
-//                            authFuture.completeExceptionally(
-//                                    new StatusException(Status.INTERNAL.withDescription("Auth service unavailable"))
-//                            );
-//                        }
-//                );
-//
-//        ServerCall.Listener<ReqT> originalListener = next.startCall(call, headers);
-//
-//        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(originalListener) {
-//
-//            @Override
-//            public void onHalfClose() {
-//                try {
-//                    Long accountId = authFuture.get(AUTH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-//
-//                    io.grpc.Context ctx = io.grpc.Context.current().withValue(ACCOUNT_ID_CONTEXT_KEY, accountId);
-//
-//                    io.grpc.Context previous = ctx.attach();
-//                    try {
-//                        if (currentContext != null) {
-//                            currentContext.runOnContext(v -> super.onHalfClose());
-//                        } else {
-//                            super.onHalfClose();
-//                        }
-//                    } finally {
-//                        ctx.detach(previous);
-//                    }
-//
-//                } catch (java.util.concurrent.TimeoutException e) {
-//                    LOG.warnf("Auth timeout for session: %s", sessionId);
-//                    call.close(Status.DEADLINE_EXCEEDED.withDescription("Auth timeout"), new Metadata());
-//                } catch (java.util.concurrent.ExecutionException e) {
-//                    Throwable cause = e.getCause();
-//                    if (cause instanceof StatusException) {
-//                        StatusException se = (StatusException) cause;
-//                        call.close(se.getStatus(), new Metadata());
-//                    } else {
-//                        LOG.errorf(e, "Auth execution error for session: %s", sessionId);
-//                        call.close(Status.INTERNAL.withDescription("Auth error"), new Metadata());
-//                    }
-//                } catch (InterruptedException e) {
-//                    Thread.currentThread().interrupt();
-//                    call.close(Status.CANCELLED.withDescription("Auth interrupted"), new Metadata());
-//                }
-//            }
-//
-//            @Override
-//            public void onCancel() {
-//                authFuture.cancel(true);
-//                super.onCancel();
-//            }
-//        };
-//    }
-//}
+package com.hts.order.api.grpc;
+
+import com.hts.order.infrastructure.cache.SessionCache;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * session-id 헤더를 검증하고 계좌 ID를 gRPC Context(ACCOUNT_ID_CONTEXT_KEY)에 넣는다.
+ *
+ * 이벤트 루프를 막지 않도록 검증이 끝날 때까지 들어온 listener 이벤트(message, halfClose 등)를 쌓아 두었다가,
+ * 검증이 끝나면 원래 호출의 Vert.x context에서 서비스 호출을 시작하고 쌓인 이벤트를 순서대로 넘긴다.
+ * 캐시 hit이면 interceptCall 안에서 바로 시작하므로 지연이 없다.
+ * auth 서비스 장애/타임아웃은 UNAVAILABLE(재시도 가능), 무효 세션은 UNAUTHENTICATED.
+ */
+@ApplicationScoped
+public class AuthInterceptor implements ServerInterceptor {
+
+    private static final Logger log = Logger.getLogger(AuthInterceptor.class);
+
+    private static final Metadata.Key<String> SESSION_ID_KEY =
+            Metadata.Key.of("session-id", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final io.grpc.Context.Key<Long> ACCOUNT_ID_CONTEXT_KEY = io.grpc.Context.key("accountId");
+
+    @Inject SessionCache sessions;
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.auth.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private Timer authenticated;
+    private Timer rejected;
+    private Timer unavailable;
+
+    void onStart(@Observes StartupEvent ev) {
+        authenticated = authTimer("authenticated");
+        rejected = authTimer("rejected");
+        unavailable = authTimer("unavailable");
+        if (!enabled) {
+            log.warn("Auth interceptor disabled: accountId is taken from the request");
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+
+        if (!enabled) {
+            return next.startCall(call, headers);
+        }
+
+        String sessionId = headers.get(SESSION_ID_KEY);
+        if (sessionId == null || sessionId.isEmpty()) {
+            rejected.record(0, TimeUnit.NANOSECONDS);
+            call.close(Status.UNAUTHENTICATED.withDescription("Session ID missing"), new Metadata());
+            return new ServerCall.Listener<>() {};
+        }
+
+        long start = System.nanoTime();
+        Context vertxContext = Vertx.currentContext();
+        io.grpc.Context callContext = io.grpc.Context.current();
+        DelayedListener<ReqT> listener = new DelayedListener<>();
+
+        sessions.validate(sessionId).subscribe().with(
+                accountId -> onContext(vertxContext, () -> {
+                    if (accountId == SessionCache.INVALID) {
+                        rejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        call.close(Status.UNAUTHENTICATED.withDescription("Invalid session"), new Metadata());
+                        return;
+                    }
+                    authenticated.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (listener.isCancelled()) {
+                        return;
+                    }
+                    io.grpc.Context ctx = callContext.withValue(ACCOUNT_ID_CONTEXT_KEY, accountId);
+                    listener.start(Contexts.interceptCall(ctx, call, headers, next));
+                }),
+                t -> onContext(vertxContext, () -> {
+                    unavailable.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    log.warnf("Session validation failed: %s", t.toString());
+                    call.close(Status.UNAVAILABLE.withDescription("Auth service unavailable"), new Metadata());
+                })
+        );
+        return listener;
+    }
+
+    /**
+     * ServerCall은 thread-safe하지 않으므로 호출이 들어온 context에서 이어서 처리
+     */
+    private static void onContext(Context context, Runnable task) {
+        if (context == null || context == Vertx.currentContext()) {
+            task.run();
+        } else {
+            context.runOnContext(v -> task.run());
+        }
+    }
+
+    private Timer authTimer(String result) {
+        return Timer.builder("order.auth.latency")
+                .description("Time from call arrival to the authentication decision")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * 서비스 listener가 정해지기 전의 이벤트를 순서대로 쌓아 두는 listener
+     */
+    private static final class DelayedListener<ReqT> extends ServerCall.Listener<ReqT> {
+
+        private ServerCall.Listener<ReqT> delegate;
+        private List<Consumer<ServerCall.Listener<ReqT>>> pending = new ArrayList<>();
+        private volatile boolean cancelled;
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void start(ServerCall.Listener<ReqT> listener) {
+            // 넘기는 중에 새로 쌓인 이벤트도 순서대로 처리하고 나서 delegate로 전환
+            while (true) {
+                List<Consumer<ServerCall.Listener<ReqT>>> events;
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        delegate = listener;
+                        pending = null;
+                        return;
+                    }
+                    events = pending;
+                    pending = new ArrayList<>();
+                }
+                for (Consumer<ServerCall.Listener<ReqT>> event : events) {
+                    event.accept(listener);
+                }
+            }
+        }
+
+        private void dispatch(Consumer<ServerCall.Listener<ReqT>> event) {
+            ServerCall.Listener<ReqT> target;
+            synchronized (this) {
+                if (delegate == null) {
+                    pending.add(event);
+                    return;
+                }
+                target = delegate;
+            }
+            event.accept(target);
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            dispatch(l -> l.onMessage(message));
+        }
+
+        @Override
+        public void onHalfClose() {
+            dispatch(ServerCall.Listener::onHalfClose);
+        }
+
+        @Override
+        public void onCancel() {
+            cancelled = true;
+            dispatch(ServerCall.Listener::onCancel);
+        }
+
+        @Override
+        public void onComplete() {
+            dispatch(ServerCall.Listener::onComplete);
+        }
+
+        @Override
+        public void onReady() {
+            dispatch(ServerCall.Listener::onReady);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.hts.order.api.grpc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RPC별(그리고 선택적으로 계좌별) AdaptiveConcurrencyLimiter 모음.
+ * 제한을 넘은 요청은 큐에 쌓지 않고 즉시 RESOURCE_EXHAUSTED로 거절한다.
+ */
+@ApplicationScoped
+public class ConcurrencyLimiters {
+
+    public enum Rpc { PLACE_ORDER, CANCEL_ORDER, PLACE_ORDERS, CANCEL_ORDERS }
+
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.limiter.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.limiter.initial-limit", defaultValue = "256")
+    int initialLimit;
+
+    @ConfigProperty(name = "order.limiter.min-limit", defaultValue = "16")
+    int minLimit;
+
+    @ConfigProperty(name = "order.limiter.max-limit", defaultValue = "1024")
+    int maxLimit;
+
+    @ConfigProperty(name = "order.limiter.tolerance", defaultValue = "2.0")
+    double tolerance;
+
+    @ConfigProperty(name = "order.limiter.backoff-ratio", defaultValue = "0.9")
+    double backoffRatio;
+
+    @ConfigProperty(name = "order.limiter.probe-interval", defaultValue = "1000")
+    int probeInterval;
+
+    @ConfigProperty(name = "order.limiter.per-account.enabled", defaultValue = "false")
+    boolean perAccountEnabled;
+
+    @ConfigProperty(name = "order.limiter.per-account.initial-limit", defaultValue = "16")
+    int perAccountInitialLimit;
+
+    @ConfigProperty(name = "order.limiter.per-account.max-limit", defaultValue = "64")
+    int perAccountMaxLimit;
+
+    @ConfigProperty(name = "order.limiter.per-account.idle-expiry", defaultValue = "PT5M")
+    Duration perAccountIdleExpiry;
+
+    private final Map<Rpc, AdaptiveConcurrencyLimiter> rpcLimiters = new EnumMap<>(Rpc.class);
+    private final LongAdder accountShed = new LongAdder();
+    private Cache<Long, AdaptiveConcurrencyLimiter> accountLimiters;
+
+    void onStart(@Observes StartupEvent ev) {
+        for (Rpc rpc : Rpc.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                initialLimit, minLimit, maxLimit, tolerance, backoffRatio, probeInterval);
+            rpcLimiters.put(rpc, limiter);
+
+            String tag = rpc.name().toLowerCase();
+            Gauge.builder("order.limiter.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .tag("rpc", tag).register(registry);
+            Gauge.builder("order.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .tag("rpc", tag).register(registry);
+            FunctionCounter.builder("order.limiter.shed", limiter, AdaptiveConcurrencyLimiter::shedCount)
+                .tag("rpc", tag).tag("scope", "rpc").register(registry);
+        }
+
+        accountLimiters = Caffeine.newBuilder()
+            .expireAfterAccess(perAccountIdleExpiry)
+            .build();
+        FunctionCounter.builder("order.limiter.shed", accountShed, LongAdder::sum)
+            .tag("rpc", "all").tag("scope", "account").register(registry);
+    }
+
+    /**
+     * @return 획득한 permit, 제한 초과면 null
+     */
+    public Permit tryAcquire(Rpc rpc, long accountId) {
+        if (!enabled) {
+            return Permit.NOOP;
+        }
+
+        AdaptiveConcurrencyLimiter rpcLimiter = rpcLimiters.get(rpc);
+        int rpcInFlight = rpcLimiter.tryAcquire();
+        if (rpcInFlight < 0) {
+            return null;
+        }
+
+        if (!perAccountEnabled) {
+            return new Permit(rpcLimiter, rpcInFlight, null, 0, System.nanoTime());
+        }
+
+        AdaptiveConcurrencyLimiter accountLimiter = accountLimiters.get(accountId, id ->
+            new AdaptiveConcurrencyLimiter(perAccountInitialLimit, 1, perAccountMaxLimit,
+                                           tolerance, backoffRatio, probeInterval));
+        int accountInFlight = accountLimiter.tryAcquire();
+        if (accountInFlight < 0) {
+            rpcLimiter.cancel();
+            accountShed.increment();
+            return null;
+        }
+        return new Permit(rpcLimiter, rpcInFlight, accountLimiter, accountInFlight, System.nanoTime());
+    }
+
+    public static final class Permit {
+        static final Permit NOOP = new Permit(null, 0, null, 0, 0);
+
+        private final AdaptiveConcurrencyLimiter rpcLimiter;
+        private final int rpcInFlight;
+        private final AdaptiveConcurrencyLimiter accountLimiter;
+        private final int accountInFlight;
+        private final long startNanos;
+
+        private Permit(AdaptiveConcurrencyLimiter rpcLimiter, int rpcInFlight,
+                       AdaptiveConcurrencyLimiter accountLimiter, int accountInFlight, long startNanos) {
+            this.rpcLimiter = rpcLimiter;
+            this.rpcInFlight = rpcInFlight;
+            this.accountLimiter = accountLimiter;
+            this.accountInFlight = accountInFlight;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * account 서비스나 DB까지 간 요청의 반납. RTT를 limit 조정 샘플로 쓴다
+         *
+         * @param dropped 실패/취소 등 정상 응답을 주지 못한 경우 (limit 감소 신호)
+         */
+        public void release(boolean dropped) {
+            if (rpcLimiter == null) {
+                return;
+            }
+            long rtt = System.nanoTime() - startNanos;
+            rpcLimiter.release(rpcInFlight, rtt, dropped);
+            if (accountLimiter != null) {
+                accountLimiter.release(accountInFlight, rtt, dropped);
+            }
+        }
+
+        /**
+         * 검증 거절, 캐시 재생처럼 하위 서비스를 거치지 않고 끝난 요청의 반납.
+         * 이런 RTT를 샘플로 쓰면 최소 RTT가 0에 가까워져 limit이 줄기만 한다
+         */
+        public void cancel() {
+            if (rpcLimiter == null) {
+                return;
+            }
+            rpcLimiter.cancel();
+            if (accountLimiter != null) {
+                accountLimiter.cancel();
+            }
+        }
+    }
+}
@@ -2,60 +2,209 @@ package com.hts.order.api.grpc;
 
 import com.hts.generated.grpc.*;
 import com.hts.order.domain.model.ServiceResult;
+import com.hts.order.domain.service.OrderBasketService;
 import com.hts.order.domain.service.OrderCommandService;
+import com.hts.order.infrastructure.logging.RequestLog;
 import io.grpc.Status;
 import io.quarkus.grpc.GrpcService;
+import io.quarkus.grpc.RegisterInterceptor;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.util.Collections;
+import java.util.List;
+
 @GrpcService
+@RegisterInterceptor(AuthInterceptor.class)
 public class OrderGrpcServer implements OrderService {
 
     private static final Logger log = Logger.getLogger(OrderGrpcServer.class);
 
+    private static final Status OVERLOADED = Status.RESOURCE_EXHAUSTED.withDescription("Server overloaded, retry later");
+
     @Inject OrderCommandService orderCommandService;
+    @Inject OrderBasketService orderBasketService;
+    @Inject ConcurrencyLimiters limiters;
+    @Inject RequestLog requestLog;
 
     @Override
     public Uni<OrderResponse> placeOrder(PlaceOrderRequest request) {
-        //Long accountId = AuthInterceptor.ACCOUNT_ID_CONTEXT_KEY.get();
-        Long accountId = request.getAccountId();
-        if (accountId == null || accountId <= 0) {
+        long start = System.nanoTime();
+        long accountId = authenticatedAccount(request.getAccountId());
+        if (accountId <= 0) {
             log.warn("Invalid or missing accountId in context");
             return Uni.createFrom().item(buildErrorResponse(0, "Unauthorized"));
         }
 
-        log.infof("PlaceOrder: accountId=%d, symbol=%s, side=%s, quantity=%d, price=%d",
-                  accountId, request.getSymbol(), request.getSide(), request.getQuantity(), request.getPrice());
+        ConcurrencyLimiters.Permit permit = limiters.tryAcquire(ConcurrencyLimiters.Rpc.PLACE_ORDER, accountId);
+        if (permit == null) {
+            return Uni.createFrom().failure(OVERLOADED.asRuntimeException());
+        }
 
-        return orderCommandService.handlePlace(accountId, request)
+        boolean[] downstream = new boolean[1];
+        return orderCommandService.handlePlace(accountId, request, () -> downstream[0] = true)
                 .map(this::toResponse)
+                .onTermination().invoke((response, t, cancelled) -> release(permit, downstream[0], t != null || cancelled))
                 .onFailure().recoverWithItem(t -> {
                     log.errorf(t, "PlaceOrder failed: accountId=%d, symbol=%s", accountId, request.getSymbol());
                     return buildErrorResponse(0, t.getMessage());
-                });
+                })
+                .invoke(response -> requestLog.place(accountId, request, response, start));
     }
 
     @Override
     public Uni<OrderResponse> cancelOrder(CancelOrderRequest request) {
-//        Long accountId = AuthInterceptor.ACCOUNT_ID_CONTEXT_KEY.get();
-        Long accountId = request.getAccountId();
-
-        if (accountId == null || accountId <= 0) {
+        long start = System.nanoTime();
+        long accountId = authenticatedAccount(request.getAccountId());
+        if (accountId <= 0) {
             log.warn("Invalid or missing accountId in context");
             return Uni.createFrom().item(buildErrorResponse(request.getOrderId(), "Unauthorized"));
         }
 
-        log.infof("CancelOrder: accountId=%d, orderId=%d", accountId, request.getOrderId());
+        ConcurrencyLimiters.Permit permit = limiters.tryAcquire(ConcurrencyLimiters.Rpc.CANCEL_ORDER, accountId);
+        if (permit == null) {
+            return Uni.createFrom().failure(OVERLOADED.asRuntimeException());
+        }
 
-        return orderCommandService.handleCancel(accountId, request)
+        boolean[] downstream = new boolean[1];
+        return orderCommandService.handleCancel(accountId, request, () -> downstream[0] = true)
                 .map(this::toResponse)
+                .onTermination().invoke((response, t, cancelled) -> release(permit, downstream[0], t != null || cancelled))
                 .onFailure().recoverWithItem(t -> {
                     log.errorf(t, "CancelOrder failed: accountId=%d, orderId=%d", accountId, request.getOrderId());
                     return buildErrorResponse(request.getOrderId(), t.getMessage());
+                })
+                .invoke(response -> requestLog.cancel(accountId, request, response, start));
+    }
+
+    @Override
+    public Uni<PlaceOrdersResponse> placeOrders(PlaceOrdersRequest request) {
+        long accountId = authenticatedAccount(request.getAccountId());
+        if (accountId <= 0) {
+            log.warn("Invalid or missing accountId in context");
+            return Uni.createFrom().item(PlaceOrdersResponse.newBuilder()
+                    .addAllResults(Collections.nCopies(request.getOrdersCount(), buildErrorResponse(0, "Unauthorized")))
+                    .build());
+        }
+
+        ConcurrencyLimiters.Permit permit = limiters.tryAcquire(ConcurrencyLimiters.Rpc.PLACE_ORDERS, accountId);
+        if (permit == null) {
+            return Uni.createFrom().failure(OVERLOADED.asRuntimeException());
+        }
+
+        log.debugf("PlaceOrders: accountId=%d, size=%d", accountId, request.getOrdersCount());
+
+        return placeBasket(accountId, request, permit)
+                .map(results -> PlaceOrdersResponse.newBuilder().addAllResults(results).build());
+    }
+
+    @Override
+    public Uni<CancelOrdersResponse> cancelOrders(CancelOrdersRequest request) {
+        long accountId = authenticatedAccount(request.getAccountId());
+        if (accountId <= 0) {
+            log.warn("Invalid or missing accountId in context");
+            return Uni.createFrom().item(CancelOrdersResponse.newBuilder()
+                    .addAllResults(Collections.nCopies(request.getOrdersCount(), buildErrorResponse(0, "Unauthorized")))
+                    .build());
+        }
+
+        ConcurrencyLimiters.Permit permit = limiters.tryAcquire(ConcurrencyLimiters.Rpc.CANCEL_ORDERS, accountId);
+        if (permit == null) {
+            return Uni.createFrom().failure(OVERLOADED.asRuntimeException());
+        }
+
+        log.debugf("CancelOrders: accountId=%d, size=%d", accountId, request.getOrdersCount());
+
+        boolean[] downstream = new boolean[1];
+        return orderBasketService.handleCancelBasket(accountId, request.getIdempotencyKey(), request.getOrdersList(),
+                                                     () -> downstream[0] = true)
+                .map(results -> CancelOrdersResponse.newBuilder().addAllResults(toResponses(results)).build())
+                .onTermination().invoke((response, t, cancelled) -> release(permit, downstream[0], t != null || cancelled))
+                .onFailure().recoverWithItem(t -> {
+                    log.errorf(t, "CancelOrders failed: accountId=%d", accountId);
+                    return CancelOrdersResponse.newBuilder()
+                            .addAllResults(Collections.nCopies(request.getOrdersCount(), buildErrorResponse(0, t.getMessage())))
+                            .build();
+                });
+    }
+
+    /**
+     * client-streaming 바스켓: 각 청크(PlaceOrdersRequest)는 자기 멱등성 키를 가진 바스켓으로 순서대로 처리하고,
+     * 스트림이 끝나면 모든 결과를 요청 순서대로 한 번에 응답한다.
+     */
+    @Override
+    public Uni<PlaceOrdersResponse> placeOrdersStream(Multi<PlaceOrdersRequest> request) {
+        // 청크는 이후 다른 스레드에서 오므로 gRPC Context의 계좌는 여기서 잡아 둔다
+        Long sessionAccount = AuthInterceptor.ACCOUNT_ID_CONTEXT_KEY.get();
+        return request
+                .onItem().transformToUniAndConcatenate(chunk -> {
+                    long accountId = resolveAccount(sessionAccount, chunk.getAccountId());
+                    if (accountId <= 0) {
+                        return Uni.createFrom().item(Collections.nCopies(chunk.getOrdersCount(),
+                                buildErrorResponse(0, "Unauthorized")));
+                    }
+                    ConcurrencyLimiters.Permit permit =
+                            limiters.tryAcquire(ConcurrencyLimiters.Rpc.PLACE_ORDERS, accountId);
+                    if (permit == null) {
+                        // 앞선 청크는 이미 커밋됐으므로 스트림 전체를 실패시키지 않고 이 청크만 거절
+                        return Uni.createFrom().item(Collections.nCopies(chunk.getOrdersCount(),
+                                buildErrorResponse(0, OVERLOADED.getDescription())));
+                    }
+                    return placeBasket(accountId, chunk, permit);
+                })
+                .collect().in(PlaceOrdersResponse::newBuilder, PlaceOrdersResponse.Builder::addAllResults)
+                .map(PlaceOrdersResponse.Builder::build);
+    }
+
+    /**
+     * permit은 실패를 결과로 바꾸기 전에 반납한다 (실패를 limit 감소 신호로 쓰기 위해)
+     */
+    private Uni<List<OrderResponse>> placeBasket(long accountId, PlaceOrdersRequest request,
+                                                 ConcurrencyLimiters.Permit permit) {
+        boolean[] downstream = new boolean[1];
+        return orderBasketService.handlePlaceBasket(accountId, request.getIdempotencyKey(), request.getOrdersList(),
+                                                    () -> downstream[0] = true)
+                .map(this::toResponses)
+                .onTermination().invoke((response, t, cancelled) -> release(permit, downstream[0], t != null || cancelled))
+                .onFailure().recoverWithItem(t -> {
+                    log.errorf(t, "PlaceOrders failed: accountId=%d", accountId);
+                    return Collections.nCopies(request.getOrdersCount(), buildErrorResponse(0, t.getMessage()));
                 });
     }
 
+    /**
+     * account 서비스나 DB까지 가지 않고 끝난 요청(검증 거절, 캐시 재생 등)은 RTT 샘플 없이 반납한다.
+     * 실패/취소는 어디서 끝났든 limit 감소 신호로 쓴다
+     */
+    private static void release(ConcurrencyLimiters.Permit permit, boolean downstream, boolean dropped) {
+        if (downstream || dropped) {
+            permit.release(dropped);
+        } else {
+            permit.cancel();
+        }
+    }
+
+    /**
+     * 세션으로 인증된 계좌 ID. 요청의 account_id는 비어 있거나(0) 세션 계좌와 같아야 하고, 다르면 0(Unauthorized).
+     * auth가 꺼져 있으면(Context에 계좌 없음) 요청 값을 그대로 쓴다.
+     */
+    private static long authenticatedAccount(long requested) {
+        return resolveAccount(AuthInterceptor.ACCOUNT_ID_CONTEXT_KEY.get(), requested);
+    }
+
+    private static long resolveAccount(Long sessionAccount, long requested) {
+        if (sessionAccount == null) {
+            return requested;
+        }
+        return requested == 0 || requested == sessionAccount ? sessionAccount : 0;
+    }
+
+    private List<OrderResponse> toResponses(List<ServiceResult> results) {
+        return results.stream().map(this::toResponse).toList();
+    }
+
     private OrderResponse toResponse(ServiceResult result) {
         return OrderResponse.newBuilder()
                 .setOrderId(result.orderId())
@@ -0,0 +1,38 @@
+package com.hts.order.domain.model;
+
+import com.hts.generated.events.order.ExecutionType;
+import com.hts.generated.events.order.OrderFillEvent;
+import com.hts.generated.grpc.FillGroup;
+
+/**
+ * 체결 이벤트 1건이 주문 누적 체결에 더할 변화량.
+ * - TRADE: fills 합계를 더함
+ * - TRADE_CANCEL(bust): fills 합계를 뺌
+ * - TRADE_CORRECT: fills를 부호 그대로 더함 (원 체결을 되돌리는 음수 그룹 + 정정된 체결 그룹)
+ * notional = Σ price_micro_units * quantity, VWAP는 누적 notional / 누적 quantity
+ */
+public record FillDelta(String eventId, long orderId, ExecutionType executionType,
+                        long quantityDelta, long notionalDelta) {
+
+    /**
+     * @return 체결이 아닌 실행 보고(NEW, CANCELLED 등)면 null
+     */
+    public static FillDelta from(OrderFillEvent event, long orderId) {
+        long sign = switch (event.getExecutionType()) {
+            case TRADE, TRADE_CORRECT -> 1;
+            case TRADE_CANCEL -> -1;
+            default -> 0;
+        };
+        if (sign == 0) {
+            return null;
+        }
+
+        long quantity = 0;
+        long notional = 0;
+        for (FillGroup fill : event.getFillsList()) {
+            quantity = Math.addExact(quantity, fill.getQuantity());
+            notional = Math.addExact(notional, Math.multiplyExact(fill.getPriceMicroUnits(), fill.getQuantity()));
+        }
+        return new FillDelta(event.getEventId(), orderId, event.getExecutionType(), sign * quantity, sign * notional);
+    }
+}
@@ -0,0 +1,80 @@
+package com.hts.order.domain.model;
+
+import com.google.protobuf.CodedOutputStream;
+import com.hts.generated.events.order.OrderCreatedEvent;
+
+import java.io.IOException;
+
+/**
+ * OrderEntity -> OrderCreatedEvent wire format 직접 인코딩.
+ * 중간 메시지/빌더 객체 없이 크기를 먼저 계산해 정확한 크기의 byte[] 1개에 쓴다.
+ * 필드 번호는 생성된 OrderCreatedEvent 상수를 쓰고, proto3 규칙대로 기본값 필드는 생략한다.
+ */
+public final class OrderCreatedEventEncoder {
+
+    private OrderCreatedEventEncoder() {}
+
+    public static byte[] encode(OrderEntity order, long createdAtMillis) {
+        int size = int64Size(OrderCreatedEvent.ORDER_ID_FIELD_NUMBER, order.orderId())
+                + int64Size(OrderCreatedEvent.ACCOUNT_ID_FIELD_NUMBER, order.accountId())
+                + stringSize(OrderCreatedEvent.SYMBOL_FIELD_NUMBER, order.symbol())
+                + enumSize(OrderCreatedEvent.SIDE_FIELD_NUMBER, order.side().getNumber())
+                + enumSize(OrderCreatedEvent.ORDER_TYPE_FIELD_NUMBER, order.orderType().getNumber())
+                + int64Size(OrderCreatedEvent.QUANTITY_FIELD_NUMBER, order.quantity())
+                + int64Size(OrderCreatedEvent.PRICE_MICRO_UNITS_FIELD_NUMBER, order.price())
+                + enumSize(OrderCreatedEvent.TIME_IN_FORCE_FIELD_NUMBER, order.timeInForce().getNumber())
+                + enumSize(OrderCreatedEvent.STATUS_FIELD_NUMBER, order.status().getNumber())
+                + stringSize(OrderCreatedEvent.RESERVE_ID_FIELD_NUMBER, order.reserveId())
+                + int64Size(OrderCreatedEvent.CREATED_AT_MILLIS_FIELD_NUMBER, createdAtMillis);
+
+        byte[] out = new byte[size];
+        CodedOutputStream stream = CodedOutputStream.newInstance(out);
+        try {
+            writeInt64(stream, OrderCreatedEvent.ORDER_ID_FIELD_NUMBER, order.orderId());
+            writeInt64(stream, OrderCreatedEvent.ACCOUNT_ID_FIELD_NUMBER, order.accountId());
+            writeString(stream, OrderCreatedEvent.SYMBOL_FIELD_NUMBER, order.symbol());
+            writeEnum(stream, OrderCreatedEvent.SIDE_FIELD_NUMBER, order.side().getNumber());
+            writeEnum(stream, OrderCreatedEvent.ORDER_TYPE_FIELD_NUMBER, order.orderType().getNumber());
+            writeInt64(stream, OrderCreatedEvent.QUANTITY_FIELD_NUMBER, order.quantity());
+            writeInt64(stream, OrderCreatedEvent.PRICE_MICRO_UNITS_FIELD_NUMBER, order.price());
+            writeEnum(stream, OrderCreatedEvent.TIME_IN_FORCE_FIELD_NUMBER, order.timeInForce().getNumber());
+            writeEnum(stream, OrderCreatedEvent.STATUS_FIELD_NUMBER, order.status().getNumber());
+            writeString(stream, OrderCreatedEvent.RESERVE_ID_FIELD_NUMBER, order.reserveId());
+            writeInt64(stream, OrderCreatedEvent.CREATED_AT_MILLIS_FIELD_NUMBER, createdAtMillis);
+            stream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("OrderCreatedEvent size mismatch: orderId=" + order.orderId(), e);
+        }
+        return out;
+    }
+
+    private static int int64Size(int field, long value) {
+        return value == 0 ? 0 : CodedOutputStream.computeInt64Size(field, value);
+    }
+
+    private static int enumSize(int field, int value) {
+        return value == 0 ? 0 : CodedOutputStream.computeEnumSize(field, value);
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null || value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static void writeInt64(CodedOutputStream stream, int field, long value) throws IOException {
+        if (value != 0) {
+            stream.writeInt64(field, value);
+        }
+    }
+
+    private static void writeEnum(CodedOutputStream stream, int field, int value) throws IOException {
+        if (value != 0) {
+            stream.writeEnum(field, value);
+        }
+    }
+
+    private static void writeString(CodedOutputStream stream, int field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            stream.writeString(field, value);
+        }
+    }
+}
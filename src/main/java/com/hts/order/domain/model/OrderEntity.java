@@ -21,10 +21,10 @@ public record OrderEntity(
                 timeInForce, OrderStatus.RECEIVED, reserveId);
     }
 
+    /**
+     * OrderCreatedEvent protobuf (outbox.payload bytea)
+     */
     public byte[] serializeForOutbox() {
-        return String.format(
-                "{\"order_id\":\"%d\",\"account_id\":%d,\"symbol\":\"%s\",\"side\":\"%s\",\"quantity\":%d,\"price\":%d}",
-                orderId, accountId, symbol, side.name(), quantity, price
-        ).getBytes();
+        return OrderCreatedEventEncoder.encode(this, System.currentTimeMillis());
     }
 }
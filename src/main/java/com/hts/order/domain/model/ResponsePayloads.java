@@ -0,0 +1,68 @@
+package com.hts.order.domain.model;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.hts.generated.grpc.OrderResponse;
+import com.hts.generated.grpc.OrderStatus;
+import com.hts.generated.grpc.PlaceOrdersResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * idempotency_keys.response 인코딩.
+ * 단건 주문/취소는 OrderResponse, 바스켓은 PlaceOrdersResponse (CancelOrdersResponse와 wire format 동일).
+ * 재생 시 timestamp는 새로 찍으므로 저장하지 않는다.
+ */
+public final class ResponsePayloads {
+
+    private ResponsePayloads() {}
+
+    public static byte[] encode(ServiceResult result) {
+        return toResponse(result).toByteArray();
+    }
+
+    public static byte[] encode(ServiceResult[] results) {
+        PlaceOrdersResponse.Builder builder = PlaceOrdersResponse.newBuilder();
+        for (ServiceResult result : results) {
+            builder.addResults(toResponse(result));
+        }
+        return builder.build().toByteArray();
+    }
+
+    public static byte[] failure(String reason) {
+        return encode(ServiceResult.failure(OrderStatus.REJECTED, reason == null ? "" : reason));
+    }
+
+    public static ServiceResult decode(byte[] payload) {
+        try {
+            return toResult(OrderResponse.parseFrom(payload));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Corrupt idempotency response payload", e);
+        }
+    }
+
+    public static List<ServiceResult> decodeAll(byte[] payload) {
+        try {
+            PlaceOrdersResponse response = PlaceOrdersResponse.parseFrom(payload);
+            List<ServiceResult> results = new ArrayList<>(response.getResultsCount());
+            for (OrderResponse item : response.getResultsList()) {
+                results.add(toResult(item));
+            }
+            return results;
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Corrupt idempotency response payload", e);
+        }
+    }
+
+    private static OrderResponse toResponse(ServiceResult result) {
+        return OrderResponse.newBuilder()
+                .setOrderId(result.orderId())
+                .setStatus(result.status())
+                .setMessage(result.message())
+                .build();
+    }
+
+    private static ServiceResult toResult(OrderResponse response) {
+        return ServiceResult.of(response.getStatus(), response.getOrderId(), response.getMessage());
+    }
+}
@@ -0,0 +1,373 @@
+package com.hts.order.domain.service;
+
+import com.hts.generated.grpc.*;
+import com.hts.generated.grpc.account.order.*;
+import com.hts.order.api.grpc.AccountGrpcClient;
+import com.hts.order.domain.model.OrderEntity;
+import com.hts.order.domain.model.ResponsePayloads;
+import com.hts.order.domain.model.ServiceResult;
+import com.hts.order.infrastructure.CompensationExecutor;
+import com.hts.order.infrastructure.cache.OpenOrderIndex;
+import com.hts.order.infrastructure.id.OrderIdGenerator;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask.Type;
+import com.hts.order.infrastructure.repository.IdempotencyRepository;
+import com.hts.order.infrastructure.repository.IdempotencyRepository.AcquireResult;
+import com.hts.order.infrastructure.repository.IdempotencyRepository.AcquireState;
+import com.hts.order.infrastructure.repository.OrderWriteRepository;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 바스켓(다건) 주문/취소.
+ * 바스켓 전체에 멱등성 키 1번, account reserve/release는 ReserveBatch 1번, 주문 저장은 multi-row 트랜잭션 1번.
+ * 결과는 주문별로 돌려주며, 주문 하나의 실패가 다른 주문을 실패시키지 않는다.
+ */
+@ApplicationScoped
+public class OrderBasketService {
+
+    private static final Logger log = Logger.getLogger(OrderBasketService.class);
+
+    @Inject AccountGrpcClient accountClient;
+    @Inject OrderWriteRepository orderWriteRepository;
+    @Inject IdempotencyRepository idempotencyRepository;
+    @Inject CompensationExecutor compensationExecutor;
+    @Inject OpenOrderIndex openOrders;
+    @Inject OrderIdGenerator idGenerator;
+    @Inject PgPool client;
+
+    @ConfigProperty(name = "order.basket.max-size", defaultValue = "1000")
+    int maxBasketSize;
+
+    public Uni<List<ServiceResult>> handlePlaceBasket(long accountId, String idempotencyKey,
+                                                      List<PlaceOrderRequest> requests) {
+        return handlePlaceBasket(accountId, idempotencyKey, requests, () -> {});
+    }
+
+    /**
+     * @param downstream account 서비스 호출을 시작할 때 호출 (한 번). 검증 거절과 재생에서는 호출되지 않는다
+     */
+    public Uni<List<ServiceResult>> handlePlaceBasket(long accountId, String idempotencyKey,
+                                                      List<PlaceOrderRequest> requests, Runnable downstream) {
+        ServiceResult invalid = validate(idempotencyKey, requests.size());
+        if (invalid != null) {
+            return Uni.createFrom().item(Collections.nCopies(requests.size(), invalid));
+        }
+
+        return idempotencyRepository.acquire(idempotencyKey, accountId)
+            .onItem().transformToUni(acquired -> {
+                if (acquired.state() != AcquireState.ACQUIRED) {
+                    log.debugf("Duplicate basket detected: idempotencyKey=%s, state=%s", idempotencyKey, acquired.state());
+                    return Uni.createFrom().item(existingResults(acquired, requests.size()));
+                }
+                return processPlaceBasket(accountId, idempotencyKey, requests, downstream);
+            });
+    }
+
+    private Uni<List<ServiceResult>> processPlaceBasket(long accountId, String idempotencyKey,
+                                                        List<PlaceOrderRequest> requests, Runnable downstream) {
+        int n = requests.size();
+        ServiceResult[] results = new ServiceResult[n];
+        List<OrderEntity> orders = new ArrayList<>(n);
+        List<Integer> positions = new ArrayList<>(n);
+        List<AccountCommand> commands = new ArrayList<>(n);
+
+        for (int i = 0; i < n; i++) {
+            PlaceOrderRequest request = requests.get(i);
+            if (request.getSide() != Side.BUY && request.getSide() != Side.SELL) {
+                results[i] = ServiceResult.failure(OrderStatus.REJECTED, "Invalid side");
+                continue;
+            }
+            long orderId = idGenerator.nextId();
+            OrderEntity order = OrderEntity.from(
+                    orderId, accountId, request.getSymbol(), request.getSide(),
+                    request.getOrderType(), request.getQuantity(), request.getPrice(),
+                    request.getTimeInForce(), OrderIdGenerator.reserveIdOf(orderId)
+            );
+            orders.add(order);
+            positions.add(i);
+            commands.add(reserveCommand(order));
+        }
+
+        if (commands.isEmpty()) {
+            return complete(idempotencyKey, results);
+        }
+
+        downstream.run();
+        return accountClient.executeBatch(commands)
+            .onItem().transformToUni(replies -> {
+                List<OrderEntity> reserved = new ArrayList<>(replies.size());
+                List<Integer> reservedPositions = new ArrayList<>(replies.size());
+                List<OrderEntity> unconfirmed = new ArrayList<>();
+                for (int j = 0; j < replies.size(); j++) {
+                    OrderEntity order = orders.get(j);
+                    AccoutResult code = replies.get(j).getCode();
+                    if (code == AccoutResult.SUCCESS) {
+                        reserved.add(order);
+                        reservedPositions.add(positions.get(j));
+                    } else if (code == AccoutResult.INTERNAL_ERROR) {
+                        // unary 대체 호출의 timeout/실패: reserve가 적용됐을 수 있음
+                        unconfirmed.add(order);
+                        results[positions.get(j)] = ServiceResult.failure(OrderStatus.REJECTED,
+                            "Account service unavailable");
+                    } else {
+                        results[positions.get(j)] = ServiceResult.failure(OrderStatus.REJECTED,
+                            order.side() == Side.BUY ? "Insufficient funds" : "Insufficient position");
+                    }
+                }
+                return releaseUnconfirmed(unconfirmed)
+                    .chain(() -> persistBasket(idempotencyKey, reserved, reservedPositions, results));
+            })
+            .onFailure().recoverWithUni(t -> {
+                log.errorf(t, "Basket reserve failed: accountId=%d, size=%d", accountId, commands.size());
+                for (int pos : positions) {
+                    results[pos] = ServiceResult.failure(OrderStatus.REJECTED, "Account service unavailable");
+                }
+                return releaseUnconfirmed(orders).chain(() -> complete(idempotencyKey, results));
+            });
+    }
+
+    /**
+     * 응답 없이 끝난 reserve는 적용됐을 수 있으므로 거절로 응답하면서 release를 보상 큐에 넣는다
+     * (적용되지 않았으면 release는 account 서비스에서 no-op)
+     */
+    private Uni<Void> releaseUnconfirmed(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        List<CompensationTask> tasks = new ArrayList<>(orders.size());
+        for (OrderEntity order : orders) {
+            tasks.add(CompensationTask.of(order.side() == Side.BUY ? Type.RELEASE_CASH : Type.RELEASE_POSITION,
+                order.accountId(), order.reserveId(), order.orderId(), CompensationExecutor.RESERVE_UNCONFIRMED));
+        }
+        return compensationExecutor.enqueue(tasks);
+    }
+
+    /**
+     * 예약된 주문을 한 트랜잭션으로 저장하고 같은 트랜잭션에서 바스켓 결과를 기록.
+     * 실패하면 주문별 트랜잭션으로 재시도하고, 그래도 실패한 주문만 보상(release)한다.
+     */
+    private Uni<List<ServiceResult>> persistBasket(String idempotencyKey, List<OrderEntity> reserved,
+                                                   List<Integer> positions, ServiceResult[] results) {
+        if (reserved.isEmpty()) {
+            return complete(idempotencyKey, results);
+        }
+
+        ServiceResult[] accepted = results.clone();
+        for (int j = 0; j < reserved.size(); j++) {
+            accepted[positions.get(j)] = ServiceResult.success(reserved.get(j).orderId());
+        }
+
+        return client.withTransaction(conn ->
+            orderWriteRepository.insertOrdersBatch(conn, reserved, "ORDER_PLACED")
+                .chain(() -> idempotencyRepository.updateResultInTx(conn, idempotencyKey, ResponsePayloads.encode(accepted)))
+        )
+        .map(v -> {
+            reserved.forEach(this::opened);
+            return List.of(accepted);
+        })
+        .onFailure().recoverWithUni(t -> {
+            log.warnf(t, "Basket persist failed, falling back to per-order writes: size=%d", reserved.size());
+            List<Uni<ServiceResult>> writes = new ArrayList<>(reserved.size());
+            for (OrderEntity order : reserved) {
+                writes.add(persistSingle(order));
+            }
+            return Uni.join().all(writes).andFailFast()
+                .onItem().transformToUni(written -> {
+                    for (int j = 0; j < written.size(); j++) {
+                        results[positions.get(j)] = written.get(j);
+                    }
+                    return complete(idempotencyKey, results);
+                });
+        });
+    }
+
+    private Uni<ServiceResult> persistSingle(OrderEntity order) {
+        return client.withTransaction(conn -> orderWriteRepository.insertOrderAtomic(conn, order, "ORDER_PLACED"))
+            .map(v -> {
+                opened(order);
+                return ServiceResult.success(order.orderId());
+            })
+            .onFailure().call(t -> {
+                log.errorf(t, "DB failed after reserve, compensating: orderId=%d, reserveId=%s",
+                          order.orderId(), order.reserveId());
+                return order.side() == Side.BUY
+                    ? compensationExecutor.compensateCashReserve(order.accountId(), order.reserveId(), order.orderId())
+                    : compensationExecutor.compensatePositionReserve(order.accountId(), order.reserveId(), order.orderId());
+            })
+            .onFailure().recoverWithItem(t -> ServiceResult.failure(OrderStatus.REJECTED, "Order persistence failed"));
+    }
+
+    public Uni<List<ServiceResult>> handleCancelBasket(long accountId, String idempotencyKey,
+                                                       List<CancelOrderRequest> requests) {
+        return handleCancelBasket(accountId, idempotencyKey, requests, () -> {});
+    }
+
+    /**
+     * @param downstream 주문 테이블 갱신을 시작할 때 호출 (한 번). 검증 거절과 재생에서는 호출되지 않는다
+     */
+    public Uni<List<ServiceResult>> handleCancelBasket(long accountId, String idempotencyKey,
+                                                       List<CancelOrderRequest> requests, Runnable downstream) {
+        ServiceResult invalid = validate(idempotencyKey, requests.size());
+        if (invalid != null) {
+            return Uni.createFrom().item(Collections.nCopies(requests.size(), invalid));
+        }
+
+        return idempotencyRepository.acquire(idempotencyKey, accountId)
+            .onItem().transformToUni(acquired -> {
+                if (acquired.state() != AcquireState.ACQUIRED) {
+                    log.debugf("Duplicate cancel basket detected: idempotencyKey=%s, state=%s",
+                              idempotencyKey, acquired.state());
+                    return Uni.createFrom().item(existingResults(acquired, requests.size()));
+                }
+                downstream.run();
+                return processCancelBasket(accountId, idempotencyKey, requests);
+            });
+    }
+
+    private Uni<List<ServiceResult>> processCancelBasket(long accountId, String idempotencyKey,
+                                                         List<CancelOrderRequest> requests) {
+        int n = requests.size();
+        ServiceResult[] results = new ServiceResult[n];
+
+        return client.withTransaction(conn ->
+            Multi.createFrom().iterable(requests)
+                .onItem().transformToUniAndConcatenate(request ->
+                    orderWriteRepository.markCancelRequested(conn, request.getOrderId(), accountId)
+                        .map(Optional::ofNullable))
+                .collect().asList()
+        )
+        .onItem().transformToUni(cancelled -> {
+            List<AccountCommand> commands = new ArrayList<>(n);
+            List<OrderWriteRepository.CancelResult> released = new ArrayList<>(n);
+            List<Integer> positions = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Optional<OrderWriteRepository.CancelResult> result = cancelled.get(i);
+                if (result.isEmpty()) {
+                    openOrders.cancelRejected(requests.get(i).getOrderId(), accountId);
+                    results[i] = ServiceResult.failure(OrderStatus.REJECTED, "Order not found or database error");
+                    continue;
+                }
+                openOrders.cancelled(requests.get(i).getOrderId(), accountId);
+                commands.add(releaseCommand(accountId, result.get()));
+                released.add(result.get());
+                positions.add(i);
+            }
+            if (commands.isEmpty()) {
+                return complete(idempotencyKey, results);
+            }
+
+            return accountClient.executeBatch(commands)
+                .onFailure().recoverWithItem(t -> {
+                    log.errorf(t, "Basket release failed: accountId=%d, size=%d", accountId, commands.size());
+                    return Collections.nCopies(commands.size(),
+                        CommonReply.newBuilder().setCode(AccoutResult.INTERNAL_ERROR).build());
+                })
+                .onItem().transformToUni(replies -> {
+                    // 해제 못 한 reserve는 compensation_tasks로 넘기고 응답
+                    List<CompensationTask> unreleased = new ArrayList<>();
+                    for (int j = 0; j < replies.size(); j++) {
+                        long orderId = requests.get(positions.get(j)).getOrderId();
+                        if (replies.get(j).getCode() == AccoutResult.INTERNAL_ERROR) {
+                            OrderWriteRepository.CancelResult result = released.get(j);
+                            unreleased.add(CompensationTask.of(
+                                "BUY".equals(result.side()) ? Type.RELEASE_CASH : Type.RELEASE_POSITION,
+                                accountId, result.reserveId(), orderId, CompensationExecutor.CANCEL_RELEASE_FAILED));
+                            results[positions.get(j)] = ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId,
+                                "Cancel requested (release queued)");
+                        } else {
+                            results[positions.get(j)] = ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId,
+                                "Cancel requested");
+                        }
+                    }
+                    if (unreleased.isEmpty()) {
+                        return complete(idempotencyKey, results);
+                    }
+                    return compensationExecutor.enqueue(unreleased)
+                        .chain(() -> complete(idempotencyKey, results));
+                });
+        })
+        .onFailure().recoverWithUni(t -> {
+            log.errorf(t, "Cancel basket DB failed: accountId=%d, size=%d", accountId, n);
+            return idempotencyRepository.updateFailed(idempotencyKey, "Cancel basket failed")
+                .replaceWith(Collections.nCopies(n,
+                    ServiceResult.failure(OrderStatus.REJECTED, "Order not found or database error")));
+        });
+    }
+
+    private void opened(OrderEntity order) {
+        openOrders.opened(order.orderId(), order.accountId(), order.side(), order.reserveId());
+    }
+
+    private ServiceResult validate(String idempotencyKey, int size) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return ServiceResult.failure(OrderStatus.REJECTED, "Idempotency key required");
+        }
+        if (size == 0 || size > maxBasketSize) {
+            return ServiceResult.failure(OrderStatus.REJECTED, "Invalid basket size");
+        }
+        return null;
+    }
+
+    private Uni<List<ServiceResult>> complete(String idempotencyKey, ServiceResult[] results) {
+        return idempotencyRepository.updateResult(idempotencyKey, ResponsePayloads.encode(results))
+            .replaceWith(List.of(results));
+    }
+
+    private static List<ServiceResult> existingResults(AcquireResult acquired, int size) {
+        if (acquired.state() == AcquireState.SUCCEEDED && acquired.response() != null) {
+            List<ServiceResult> stored = ResponsePayloads.decodeAll(acquired.response());
+            if (stored.size() == size) {
+                return stored;
+            }
+        }
+        String message = acquired.state() == AcquireState.IN_PROGRESS ? "Processing" : "Previously failed";
+        return Collections.nCopies(size, ServiceResult.failure(OrderStatus.REJECTED, message));
+    }
+
+    static AccountCommand reserveCommand(OrderEntity order) {
+        if (order.side() == Side.BUY) {
+            return AccountCommand.newBuilder()
+                .setReserveCash(ReserveCashRequest.newBuilder()
+                    .setAccountId(order.accountId())
+                    .setAmountMicroUnits(order.price() * order.quantity())
+                    .setCurrency("USD")
+                    .setReserveId(order.reserveId())
+                    .setOrderId(String.valueOf(order.orderId())))
+                .build();
+        }
+        return AccountCommand.newBuilder()
+            .setReservePosition(ReservePositionRequest.newBuilder()
+                .setAccountId(order.accountId())
+                .setSymbol(order.symbol())
+                .setQuantity(order.quantity())
+                .setReserveId(order.reserveId())
+                .setOrderId(String.valueOf(order.orderId())))
+            .build();
+    }
+
+    private static AccountCommand releaseCommand(long accountId, OrderWriteRepository.CancelResult cancelled) {
+        if ("BUY".equals(cancelled.side())) {
+            return AccountCommand.newBuilder()
+                .setReleaseCash(ReleaseCashRequest.newBuilder()
+                    .setAccountId(accountId)
+                    .setReserveId(cancelled.reserveId()))
+                .build();
+        }
+        return AccountCommand.newBuilder()
+            .setReleasePosition(ReleasePositionRequest.newBuilder()
+                .setAccountId(accountId)
+                .setReserveId(cancelled.reserveId()))
+            .build();
+    }
+}
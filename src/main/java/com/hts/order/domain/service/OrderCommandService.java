@@ -3,11 +3,28 @@ package com.hts.order.domain.service;
 import com.hts.generated.grpc.*;
 import com.hts.order.api.grpc.AccountGrpcClient;
 import com.hts.order.domain.model.OrderEntity;
+import com.hts.order.domain.model.ResponsePayloads;
 import com.hts.order.domain.model.ServiceResult;
 import com.hts.order.exceptions.DatabaseException;
 import com.hts.order.exceptions.OrderNotFoundException;
 import com.hts.order.infrastructure.CompensationExecutor;
+import com.hts.order.infrastructure.OrderGroupCommitter;
+import com.hts.order.infrastructure.cache.IdempotencyCache;
+import com.hts.order.infrastructure.cache.OpenOrderIndex;
+import com.hts.order.infrastructure.cache.ShadowBalances;
+import com.hts.order.infrastructure.cache.ShadowBalances.Verdict;
+import com.hts.order.infrastructure.id.OrderIdGenerator;
+import com.hts.order.infrastructure.lane.AccountLanes;
+import com.hts.order.infrastructure.lane.AccountLanes.Kind;
+import com.hts.order.infrastructure.lane.AccountLanes.ReserveBatch;
+import com.hts.order.infrastructure.metrics.OrderMetrics;
+import com.hts.order.infrastructure.metrics.OrderMetrics.Operation;
+import com.hts.order.infrastructure.metrics.OrderMetrics.Stage;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask.Type;
 import com.hts.order.infrastructure.repository.IdempotencyRepository;
+import com.hts.order.infrastructure.repository.IdempotencyRepository.AcquireResult;
+import com.hts.order.infrastructure.repository.IdempotencyRepository.AcquireState;
 import com.hts.order.infrastructure.repository.OrderWriteRepository;
 import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.pgclient.PgPool;
@@ -15,48 +32,85 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
-import java.util.UUID;
+import java.util.List;
 
 @ApplicationScoped
 public class OrderCommandService {
 
     private static final Logger log = Logger.getLogger(OrderCommandService.class);
 
+    // 다른 계좌가 같은 키로 남긴 FAILED 행의 재생 결과 (같은 계좌의 FAILED 키는 acquire가 다시 선점)
+    private static final ServiceResult PREVIOUSLY_FAILED =
+        ServiceResult.failure(OrderStatus.REJECTED, "Previously failed");
+
     @Inject AccountGrpcClient accountClient;
     @Inject OrderWriteRepository orderWriteRepository;
     @Inject IdempotencyRepository idempotencyRepository;
     @Inject CompensationExecutor compensationExecutor;
+    @Inject OrderGroupCommitter groupCommitter;
+    @Inject IdempotencyCache idempotencyCache;
+    @Inject OpenOrderIndex openOrders;
+    @Inject ShadowBalances shadowBalances;
+    @Inject OrderIdGenerator idGenerator;
+    @Inject AccountLanes lanes;
+    @Inject OrderMetrics metrics;
     @Inject PgPool client;
 
     public Uni<ServiceResult> handlePlace(long accountId, PlaceOrderRequest request) {
+        return handlePlace(accountId, request, () -> {});
+    }
+
+    /**
+     * @param downstream account 서비스 호출이나 주문 테이블 쓰기를 시작할 때 호출 (한 번).
+     *                   검증 거절, 캐시/DB 재생, shadow balance 거절처럼 그 전에 끝난 요청에서는 호출되지 않는다
+     */
+    public Uni<ServiceResult> handlePlace(long accountId, PlaceOrderRequest request, Runnable downstream) {
+        long start = System.nanoTime();
         String idempotencyKey = request.getIdempotencyKey();
+        Side side = request.getSide();
 
         if (idempotencyKey == null || idempotencyKey.isBlank()) {
-            return Uni.createFrom().item(
-                ServiceResult.failure(OrderStatus.REJECTED, "Idempotency key required")
-            );
+            return reject(Operation.PLACE, side, start, "Idempotency key required");
         }
 
-        if (request.getSide() != Side.BUY && request.getSide() != Side.SELL) {
-            return Uni.createFrom().item(
-                ServiceResult.failure(OrderStatus.REJECTED, "Invalid side")
-            );
+        if (side != Side.BUY && side != Side.SELL) {
+            return reject(Operation.PLACE, side, start, "Invalid side");
         }
 
-        return idempotencyRepository.tryAcquireLock(idempotencyKey, accountId)
-            .onItem().transformToUni(lockAcquired -> {
-                if (!lockAcquired) {
-                    log.infof("Duplicate request detected: idempotencyKey=%s", idempotencyKey);
-                    return fetchExistingResult(idempotencyKey);
-                }
+        // 이 요청이 직접 처리했는지 (아니면 캐시/DB에 있던 결과를 재생한 것)
+        boolean[] executed = new boolean[1];
+        // lane 대기 시간도 요청 지연에 포함되도록 start는 제출 전에 잡는다
+        return record(Operation.PLACE, side, start, executed, lanes.isEnabled()
+            ? lanes.submit(accountId, Kind.PLACE, idempotencyKey,
+                           batch -> place(accountId, idempotencyKey, request, batch, executed, downstream))
+            : place(accountId, idempotencyKey, request, null, executed, downstream));
+    }
 
-                return processNewOrder(accountId, idempotencyKey, request);
-            });
+    /**
+     * @param batch lane이 연속된 주문을 묶어 시작한 경우의 reserve 경로, 아니면 null (직접 reserve)
+     */
+    private Uni<ServiceResult> place(long accountId, String idempotencyKey, PlaceOrderRequest request,
+                                     ReserveBatch batch, boolean[] executed, Runnable downstream) {
+        Side side = request.getSide();
+        return idempotencyCache.execute(idempotencyKey, accountId, () ->
+            metrics.timeStage(Stage.IDEMPOTENCY_ACQUIRE, side, idempotencyRepository.acquire(idempotencyKey, accountId))
+                .onItem().transformToUni(acquired -> {
+                    if (acquired.state() != AcquireState.ACQUIRED) {
+                        log.debugf("Duplicate request detected: idempotencyKey=%s, state=%s",
+                                  idempotencyKey, acquired.state());
+                        return Uni.createFrom().item(existingResult(idempotencyKey, accountId, acquired));
+                    }
+
+                    executed[0] = true;
+                    return processNewOrder(accountId, idempotencyKey, request, batch, downstream);
+                })
+        );
     }
 
-    private Uni<ServiceResult> processNewOrder(long accountId, String idempotencyKey, PlaceOrderRequest request) {
-        long orderId = generateOrderId();
-        String reserveId = generateReserveId();
+    private Uni<ServiceResult> processNewOrder(long accountId, String idempotencyKey, PlaceOrderRequest request,
+                                               ReserveBatch batch, Runnable downstream) {
+        long orderId = idGenerator.nextId();
+        String reserveId = OrderIdGenerator.reserveIdOf(orderId);
 
         OrderEntity order = OrderEntity.from(
                 orderId, accountId, request.getSymbol(), request.getSide(),
@@ -65,8 +119,11 @@ public class OrderCommandService {
         );
 
         return (request.getSide() == Side.BUY
-            ? handleBuyOrderWithCompensation(order, idempotencyKey)
-            : handleSellOrderWithCompensation(order, idempotencyKey))
+            ? handleBuyOrderWithCompensation(order, idempotencyKey, batch, downstream)
+            : handleSellOrderWithCompensation(order, idempotencyKey, batch, downstream))
+            .onItem().transformToUni(result -> result.isSuccess()
+                ? Uni.createFrom().item(result)
+                : recordRejection(idempotencyKey, accountId, orderId, result))
             .onFailure().call(ex -> {
                 log.errorf(ex, "Order processing failed: idempotencyKey=%s, orderId=%d",
                           idempotencyKey, orderId);
@@ -74,38 +131,80 @@ public class OrderCommandService {
             });
     }
 
-    private Uni<ServiceResult> fetchExistingResult(String idempotencyKey) {
-        return idempotencyRepository.findResult(idempotencyKey)
-            .map(result -> {
-                if (result == null || result.orderId() == null) {
-                    return ServiceResult.failure(OrderStatus.REJECTED, "Processing");
-                }
-
-                if ("SUCCESS".equals(result.status())) {
-                    return ServiceResult.success(result.orderId());
-                } else {
-                    return ServiceResult.failure(OrderStatus.REJECTED, "Previously failed");
-                }
+    /**
+     * reserve 거절/account 서비스 장애로 끝난 주문. 같은 키의 재시도가 다시 처리할 수 있도록 FAILED로 기록한다.
+     * 기록하지 못해도 이번 응답은 그대로 돌려준다 (키는 stale PROCESSING 정리 후 재시도 가능)
+     */
+    private Uni<ServiceResult> recordRejection(String idempotencyKey, long accountId, long orderId, ServiceResult result) {
+        return persistFailed(idempotencyKey, result.message())
+            .replaceWith(result)
+            .onFailure().recoverWithItem(t -> {
+                log.warnf("Failed to record rejection: idempotencyKey=%s, orderId=%d, %s",
+                          idempotencyKey, orderId, t.toString());
+                return result;
             });
     }
 
-    private Uni<ServiceResult> handleBuyOrderWithCompensation(OrderEntity order, String idempotencyKey) {
+    /**
+     * FAILED는 재시도로 다시 선점되는 상태라 캐시하지 않는다 (캐시하면 이 노드만 재시도를 막게 됨)
+     */
+    private Uni<Void> persistFailed(String idempotencyKey, String reason) {
+        return idempotencyRepository.updateFailed(idempotencyKey, reason);
+    }
+
+    /**
+     * SUCCESS 기록이 끝난 뒤에만 캐시
+     */
+    private Uni<ServiceResult> persistSuccess(String idempotencyKey, long accountId, long orderId, ServiceResult result) {
+        return idempotencyRepository.updateSuccess(idempotencyKey, orderId, ResponsePayloads.encode(result))
+            .invoke(() -> idempotencyCache.complete(idempotencyKey, accountId, result))
+            .replaceWith(result);
+    }
+
+    private ServiceResult existingResult(String idempotencyKey, long accountId, AcquireResult acquired) {
+        if (acquired.state() == AcquireState.IN_PROGRESS) {
+            return ServiceResult.failure(OrderStatus.REJECTED, "Processing");
+        }
+
+        if (acquired.state() != AcquireState.SUCCEEDED) {
+            return PREVIOUSLY_FAILED;
+        }
+        ServiceResult existing = acquired.response() != null
+            ? ResponsePayloads.decode(acquired.response())
+            : ServiceResult.success(acquired.orderId());
+        idempotencyCache.complete(idempotencyKey, accountId, existing);
+        return existing;
+    }
+
+    private Uni<ServiceResult> handleBuyOrderWithCompensation(OrderEntity order, String idempotencyKey,
+                                                              ReserveBatch batch, Runnable downstream) {
         long amountMicroUnits = order.price() * order.quantity();
 
-        return accountClient.reserveCash(
+        Verdict verdict = shadowBalances.checkCash(order.accountId(), amountMicroUnits);
+        if (verdict == Verdict.INSUFFICIENT) {
+            log.debugf("Cash reserve skipped by shadow balance: accountId=%d, orderId=%d",
+                      order.accountId(), order.orderId());
+            return Uni.createFrom().item(ServiceResult.failure(OrderStatus.REJECTED, "Insufficient funds"));
+        }
+
+        downstream.run();
+        return metrics.timeStage(Stage.ACCOUNT_RESERVE, Side.BUY, batch != null
+            ? batch.reserve(OrderBasketService.reserveCommand(order))
+            : accountClient.reserveCash(
                 order.accountId(),
                 amountMicroUnits,
                 "USD",
                 order.reserveId(),
                 String.valueOf(order.orderId())
-        )
+        ))
+        .invoke(reply -> shadowBalances.observeCash(order.accountId(), verdict, reply))
         .onItem().transformToUni(reply -> {
             if (reply.getCode() == AccoutResult.SUCCESS) {
                 return persistOrderWithIdempotency(order, idempotencyKey)
                     .onFailure().call(dbError -> {
                         log.errorf(dbError, "DB failed after reserve, compensating: orderId=%d, reserveId=%s",
                                   order.orderId(), order.reserveId());
-                        return compensationExecutor.compensateCashReserve(order.accountId(), order.reserveId());
+                        return compensationExecutor.compensateCashReserve(order.accountId(), order.reserveId(), order.orderId());
                     });
             } else {
                 log.warnf("Cash reserve failed: accountId=%d, orderId=%d, code=%s",
@@ -124,21 +223,33 @@ public class OrderCommandService {
         );
     }
 
-    private Uni<ServiceResult> handleSellOrderWithCompensation(OrderEntity order, String idempotencyKey) {
-        return accountClient.reservePosition(
+    private Uni<ServiceResult> handleSellOrderWithCompensation(OrderEntity order, String idempotencyKey,
+                                                               ReserveBatch batch, Runnable downstream) {
+        Verdict verdict = shadowBalances.checkPosition(order.accountId(), order.symbol(), order.quantity());
+        if (verdict == Verdict.INSUFFICIENT) {
+            log.debugf("Position reserve skipped by shadow balance: accountId=%d, orderId=%d, symbol=%s",
+                      order.accountId(), order.orderId(), order.symbol());
+            return Uni.createFrom().item(ServiceResult.failure(OrderStatus.REJECTED, "Insufficient position"));
+        }
+
+        downstream.run();
+        return metrics.timeStage(Stage.ACCOUNT_RESERVE, Side.SELL, batch != null
+            ? batch.reserve(OrderBasketService.reserveCommand(order))
+            : accountClient.reservePosition(
                 order.accountId(),
                 order.symbol(),
                 order.quantity(),
                 order.reserveId(),
                 String.valueOf(order.orderId())
-        )
+        ))
+        .invoke(reply -> shadowBalances.observePosition(order.accountId(), order.symbol(), verdict, reply))
         .onItem().transformToUni(reply -> {
             if (reply.getCode() == AccoutResult.SUCCESS) {
                 return persistOrderWithIdempotency(order, idempotencyKey)
                     .onFailure().call(dbError -> {
                         log.errorf(dbError, "DB failed after reserve, compensating: orderId=%d, reserveId=%s",
                                   order.orderId(), order.reserveId());
-                        return compensationExecutor.compensatePositionReserve(order.accountId(), order.reserveId());
+                        return compensationExecutor.compensatePositionReserve(order.accountId(), order.reserveId(), order.orderId());
                     });
             } else {
                 log.warnf("Position reserve failed: accountId=%d, orderId=%d, symbol=%s, code=%s",
@@ -158,29 +269,65 @@ public class OrderCommandService {
     }
 
     public Uni<ServiceResult> handleCancel(long accountId, CancelOrderRequest request) {
+        return handleCancel(accountId, request, () -> {});
+    }
+
+    /**
+     * @param downstream 주문 테이블 갱신을 시작할 때 호출 (한 번). 검증/OpenOrderIndex 거절과 재생에서는 호출되지 않는다
+     */
+    public Uni<ServiceResult> handleCancel(long accountId, CancelOrderRequest request, Runnable downstream) {
+        long start = System.nanoTime();
         String idempotencyKey = request.getIdempotencyKey();
 
+        // 취소 요청에는 side가 없으므로 요청 단위 지표는 side=NONE
         if (idempotencyKey == null || idempotencyKey.isBlank()) {
-            return Uni.createFrom().item(
-                ServiceResult.failure(OrderStatus.REJECTED, "Idempotency key required")
-            );
+            return reject(Operation.CANCEL, Side.SIDE_UNKNOWN, start, "Idempotency key required");
         }
 
-        return idempotencyRepository.tryAcquireLock(idempotencyKey, accountId)
-            .onItem().transformToUni(lockAcquired -> {
-                if (!lockAcquired) {
-                    log.infof("Duplicate cancel request detected: idempotencyKey=%s", idempotencyKey);
-                    return fetchExistingResult(idempotencyKey);
-                }
+        // 재생할 결과가 없고 이 노드가 보기에 취소할 수 없는 주문이면 idempotency 행 없이 거절
+        if (!idempotencyCache.contains(idempotencyKey, accountId)
+                && openOrders.rejectsCancel(request.getOrderId(), accountId)) {
+            return reject(Operation.CANCEL, Side.SIDE_UNKNOWN, start, "Order not found or database error");
+        }
 
-                return processCancelOrder(accountId, idempotencyKey, request);
-            });
+        boolean[] executed = new boolean[1];
+        // 같은 계좌의 앞선 주문 접수보다 먼저 처리되지 않도록 lane을 거친다
+        return record(Operation.CANCEL, Side.SIDE_UNKNOWN, start, executed, lanes.isEnabled()
+            ? lanes.submit(accountId, Kind.CANCEL, idempotencyKey,
+                           batch -> cancel(accountId, idempotencyKey, request, executed, downstream))
+            : cancel(accountId, idempotencyKey, request, executed, downstream));
+    }
+
+    private Uni<ServiceResult> cancel(long accountId, String idempotencyKey, CancelOrderRequest request,
+                                      boolean[] executed, Runnable downstream) {
+        return idempotencyCache.execute(idempotencyKey, accountId, () ->
+            metrics.timeStage(Stage.IDEMPOTENCY_ACQUIRE, Side.SIDE_UNKNOWN, idempotencyRepository.acquire(idempotencyKey, accountId))
+                .onItem().transformToUni(acquired -> {
+                    if (acquired.state() != AcquireState.ACQUIRED) {
+                        log.debugf("Duplicate cancel request detected: idempotencyKey=%s, state=%s",
+                                  idempotencyKey, acquired.state());
+                        return Uni.createFrom().item(existingResult(idempotencyKey, accountId, acquired));
+                    }
+
+                    executed[0] = true;
+                    downstream.run();
+                    return processCancelOrder(accountId, idempotencyKey, request);
+                })
+        );
     }
 
     private Uni<ServiceResult> processCancelOrder(long accountId, String idempotencyKey, CancelOrderRequest request) {
-        return client.withTransaction(conn ->
+        // markCancelRequested는 한 문장이라 명시적 트랜잭션(BEGIN/COMMIT 왕복)이 필요 없다
+        return metrics.timeStage(Stage.CANCEL_UPDATE, Side.SIDE_UNKNOWN, client.withConnection(conn ->
             orderWriteRepository.markCancelRequested(conn, request.getOrderId(), accountId)
-        )
+        ))
+        .invoke(result -> {
+            if (result == null) {
+                openOrders.cancelRejected(request.getOrderId(), accountId);
+            } else {
+                openOrders.cancelled(request.getOrderId(), accountId);
+            }
+        })
         .onFailure().invoke(t ->
             log.errorf(t, "Cancel DB failed: orderId=%d, accountId=%d",
                       request.getOrderId(), accountId)
@@ -188,61 +335,113 @@ public class OrderCommandService {
         .onFailure().recoverWithItem((OrderWriteRepository.CancelResult) null)
         .onItem().transformToUni(result -> {
             if (result == null) {
-                return idempotencyRepository.updateFailed(idempotencyKey, "Order not found")
+                return persistFailed(idempotencyKey, "Order not found")
                     .replaceWith(ServiceResult.failure(OrderStatus.REJECTED, "Order not found or database error"));
             }
             return releaseReserveWithIdempotency(accountId, request.getOrderId(),
-                                                result.side(), result.reserveId(), idempotencyKey);
+                                                result, idempotencyKey);
         });
     }
 
+    /**
+     * 취소는 DB에 CANCEL_REQUESTED로 기록된 시점에 확정된다. release가 실패하면 compensation_tasks에
+     * 넘기고 응답하며, 큐 등록까지 실패한 경우에만 idempotency 키를 실패로 남긴다.
+     */
     private Uni<ServiceResult> releaseReserveWithIdempotency(long accountId, long orderId,
-                                                             String side, String reserveId, String idempotencyKey) {
-        Uni<CommonReply> releaseCall = "BUY".equals(side)
+                                                             OrderWriteRepository.CancelResult cancelled,
+                                                             String idempotencyKey) {
+        String side = cancelled.side();
+        String reserveId = cancelled.reserveId();
+        boolean buy = "BUY".equals(side);
+        Uni<CommonReply> releaseCall = metrics.timeStage(Stage.ACCOUNT_RELEASE, buy ? Side.BUY : Side.SELL, buy
             ? accountClient.releaseCash(accountId, reserveId)
-            : accountClient.releasePosition(accountId, reserveId);
+            : accountClient.releasePosition(accountId, reserveId));
 
         return releaseCall
+            .invoke(reply -> {
+                if (buy) {
+                    shadowBalances.observeCash(accountId, Verdict.UNKNOWN, reply);
+                } else {
+                    shadowBalances.observePosition(accountId, cancelled.symbol(), Verdict.UNKNOWN, reply);
+                }
+            })
             .onItem().transformToUni(reply -> {
-                ServiceResult result = ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId, "Cancel requested");
-                return idempotencyRepository.updateSuccess(
-                    idempotencyKey,
-                    orderId,
-                    String.format("{\"orderId\":%d,\"status\":\"CANCEL_REQUESTED\"}", orderId)
-                ).replaceWith(result);
+                if (reply.getCode() == AccoutResult.INTERNAL_ERROR) {
+                    log.warnf("Release rejected by account service, queueing: accountId=%d, orderId=%d, reserveId=%s",
+                              accountId, orderId, reserveId);
+                    return queueRelease(accountId, orderId, buy, reserveId, idempotencyKey);
+                }
+                return persistSuccess(idempotencyKey, accountId, orderId,
+                    ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId, "Cancel requested"));
             })
-            .onFailure().call(t -> {
-                log.errorf(t, "Failed to release reserve: accountId=%d, orderId=%d, reserveId=%s, side=%s",
+            .onFailure().recoverWithUni(t -> {
+                log.errorf(t, "Failed to release reserve, queueing: accountId=%d, orderId=%d, reserveId=%s, side=%s",
                           accountId, orderId, reserveId, side);
-                return idempotencyRepository.updateFailed(idempotencyKey, "Release failed: " + t.getMessage());
+                return queueRelease(accountId, orderId, buy, reserveId, idempotencyKey);
             })
-            .onFailure().recoverWithItem(t ->
-                ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId, "Cancel requested (release failed)")
-            );
+            .onFailure().recoverWithUni(t -> {
+                log.errorf(t, "Failed to record cancel: accountId=%d, orderId=%d", accountId, orderId);
+                ServiceResult result = ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId,
+                                                        "Cancel requested (release failed)");
+                return persistFailed(idempotencyKey, "Release failed: " + t.getMessage())
+                    .onFailure().invoke(e -> log.warnf("Failed to record cancel failure: idempotencyKey=%s, %s",
+                                                      idempotencyKey, e.toString()))
+                    .onFailure().recoverWithNull()
+                    .replaceWith(result);
+            });
+    }
+
+    private Uni<ServiceResult> queueRelease(long accountId, long orderId, boolean buy,
+                                            String reserveId, String idempotencyKey) {
+        ServiceResult result = ServiceResult.of(OrderStatus.CANCEL_REQUESTED, orderId, "Cancel requested (release queued)");
+        CompensationTask task = CompensationTask.of(buy ? Type.RELEASE_CASH : Type.RELEASE_POSITION,
+                accountId, reserveId, orderId, CompensationExecutor.CANCEL_RELEASE_FAILED);
+        return compensationExecutor.enqueue(List.of(task))
+            .chain(() -> persistSuccess(idempotencyKey, accountId, orderId, result));
     }
 
     private Uni<ServiceResult> persistOrderWithIdempotency(OrderEntity order, String idempotencyKey) {
-        return client.withTransaction(conn ->
-            orderWriteRepository.insertOrderAtomic(conn, order, "ORDER_PLACED")
-                .chain(() -> idempotencyRepository.updateSuccessInTx(
-                    conn,
-                    idempotencyKey,
-                    order.orderId(),
-                    String.format("{\"orderId\":%d,\"status\":\"SUCCESS\"}", order.orderId())
-                ))
-        )
-        .map(v -> ServiceResult.success(order.orderId()))
-        .onFailure().invoke(t ->
-            log.errorf(t, "Persist order failed: orderId=%d, accountId=%d",
-                      order.orderId(), order.accountId())
-        );
+        ServiceResult result = ServiceResult.success(order.orderId());
+        byte[] responsePayload = ResponsePayloads.encode(result);
+
+        Uni<Void> write = groupCommitter.isEnabled()
+            ? groupCommitter.submit(order, idempotencyKey, responsePayload)
+            : client.withTransaction(conn ->
+                orderWriteRepository.insertOrderAtomic(conn, order, "ORDER_PLACED")
+                    .chain(() -> idempotencyRepository.updateSuccessInTx(
+                        conn,
+                        idempotencyKey,
+                        order.orderId(),
+                        responsePayload
+                    ))
+            );
+
+        return metrics.timeStage(Stage.PERSIST, order.side(), write)
+            .invoke(() -> {
+                openOrders.opened(order.orderId(), order.accountId(), order.side(), order.reserveId());
+                idempotencyCache.complete(idempotencyKey, order.accountId(), result);
+            })
+            .replaceWith(result)
+            .onFailure().invoke(t ->
+                log.errorf(t, "Persist order failed: orderId=%d, accountId=%d",
+                          order.orderId(), order.accountId())
+            );
     }
 
-    private long generateOrderId() {
-        return System.currentTimeMillis() * 1000 + (long) (Math.random() * 1000);
+    private Uni<ServiceResult> reject(Operation operation, Side side, long start, String message) {
+        ServiceResult result = ServiceResult.failure(OrderStatus.REJECTED, message);
+        metrics.recordCommand(operation, side, start, result, false);
+        return Uni.createFrom().item(result);
     }
 
-    private String generateReserveId() {
-        return UUID.randomUUID().toString();
+    private Uni<ServiceResult> record(Operation operation, Side side, long start, boolean[] executed,
+                                      Uni<ServiceResult> pipeline) {
+        return pipeline.onItemOrFailure().invoke((result, failure) -> {
+            if (failure != null) {
+                metrics.recordCommandFailure(operation, side, start);
+            } else {
+                metrics.recordCommand(operation, side, start, result, !executed[0]);
+            }
+        });
     }
 }
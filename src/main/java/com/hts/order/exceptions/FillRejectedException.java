@@ -0,0 +1,7 @@
+package com.hts.order.exceptions;
+
+public class FillRejectedException extends RuntimeException {
+    public FillRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,37 +1,101 @@
 package com.hts.order.infrastructure;
 
+import com.hts.generated.grpc.CommonReply;
 import com.hts.order.api.grpc.AccountGrpcClient;
+import com.hts.order.infrastructure.metrics.OrderMetrics;
+import com.hts.order.infrastructure.metrics.OrderMetrics.Compensation;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask.Type;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
+/**
+ * reserve 해제 보상.
+ *
+ * 요청 경로에서는 compensation_tasks에 기록만 하고 돌아가며, 실제 release RPC는 {@link CompensationWorker}가
+ * 백그라운드에서 재시도한다. 등록 자체가 실패하면(DB 장애) 요청을 기다리게 하지 않고 release를 한 번
+ * fire-and-forget으로 던진다. 이 경우 release도 실패하면 reserve가 남으며 로그로만 추적된다.
+ */
 @ApplicationScoped
 public class CompensationExecutor {
 
     private static final Logger log = Logger.getLogger(CompensationExecutor.class);
 
+    public static final String PERSIST_FAILED = "PERSIST_FAILED";
+    public static final String CANCEL_RELEASE_FAILED = "CANCEL_RELEASE_FAILED";
+    // reserve 응답을 받지 못해 적용 여부를 모르는 경우 (release는 reserve_id로 멱등)
+    public static final String RESERVE_UNCONFIRMED = "RESERVE_UNCONFIRMED";
+
     @Inject AccountGrpcClient accountClient;
+    @Inject CompensationTaskRepository taskRepository;
+    @Inject OrderMetrics metrics;
+    @Inject MeterRegistry registry;
+
+    private Counter enqueuedCounter;
+    private Counter enqueueFailedCounter;
+
+    @PostConstruct
+    void init() {
+        enqueuedCounter = Counter.builder("order.compensation.tasks")
+                .description("Compensation tasks by lifecycle event")
+                .tag("result", "enqueued")
+                .register(registry);
+        enqueueFailedCounter = Counter.builder("order.compensation.tasks")
+                .description("Compensation tasks by lifecycle event")
+                .tag("result", "enqueue_failed")
+                .register(registry);
+    }
 
-    public Uni<Void> compensateCashReserve(long accountId, String reserveId) {
-        log.warnf("Compensating cash reserve: accountId=%d, reserveId=%s", accountId, reserveId);
+    public Uni<Void> compensateCashReserve(long accountId, String reserveId, long orderId) {
+        return enqueue(List.of(CompensationTask.of(Type.RELEASE_CASH, accountId, reserveId, orderId, PERSIST_FAILED)));
+    }
 
-        return accountClient.releaseCash(accountId, reserveId)
-                .replaceWithVoid()
-                .onFailure().invoke(t ->
-                    log.errorf(t, "Compensation failed for cash reserve: accountId=%d, reserveId=%s",
-                              accountId, reserveId)
-                );
+    public Uni<Void> compensatePositionReserve(long accountId, String reserveId, long orderId) {
+        return enqueue(List.of(CompensationTask.of(Type.RELEASE_POSITION, accountId, reserveId, orderId, PERSIST_FAILED)));
     }
 
-    public Uni<Void> compensatePositionReserve(long accountId, String reserveId) {
-        log.warnf("Compensating position reserve: accountId=%d, reserveId=%s", accountId, reserveId);
+    /**
+     * 보상 작업 등록. 실패하지 않는다 (등록 실패 시 직접 release를 시도하고 성공으로 끝냄).
+     */
+    public Uni<Void> enqueue(List<CompensationTask> tasks) {
+        for (CompensationTask task : tasks) {
+            log.warnf("Queueing compensation: type=%s, accountId=%d, orderId=%d, reserveId=%s, reason=%s",
+                      task.type(), task.accountId(), task.orderId(), task.reserveId(), task.reason());
+        }
+
+        return taskRepository.enqueue(tasks)
+                .invoke(() -> enqueuedCounter.increment(tasks.size()))
+                .onFailure().recoverWithItem(t -> {
+                    enqueueFailedCounter.increment(tasks.size());
+                    log.errorf(t, "Compensation enqueue failed, releasing directly: size=%d", tasks.size());
+                    for (CompensationTask task : tasks) {
+                        release(task).subscribe().with(
+                                reply -> log.warnf("Direct compensation finished: reserveId=%s, code=%s",
+                                                   task.reserveId(), reply.getCode()),
+                                e -> log.errorf(e, "Compensation lost: type=%s, accountId=%d, orderId=%d, reserveId=%s",
+                                                task.type(), task.accountId(), task.orderId(), task.reserveId())
+                        );
+                    }
+                    return null;
+                });
+    }
 
-        return accountClient.releasePosition(accountId, reserveId)
-                .replaceWithVoid()
-                .onFailure().invoke(t ->
-                    log.errorf(t, "Compensation failed for position reserve: accountId=%d, reserveId=%s",
-                              accountId, reserveId)
-                );
+    /**
+     * release RPC 한 번 (재시도는 AccountGrpcClient의 @Retry와 큐의 backoff가 담당)
+     */
+    Uni<CommonReply> release(CompensationTask task) {
+        return task.type() == Type.RELEASE_CASH
+                ? metrics.timeCompensation(Compensation.CASH,
+                        accountClient.releaseCash(task.accountId(), task.reserveId()))
+                : metrics.timeCompensation(Compensation.POSITION,
+                        accountClient.releasePosition(task.accountId(), task.reserveId()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,286 @@
+package com.hts.order.infrastructure;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * compensation_tasks를 배치로 선점해 release RPC를 실행하는 백그라운드 워커.
+ *
+ * - SUCCESS / DUPLICATE_REQUEST: 해제 완료 (release는 reserve_id 기준 멱등)
+ * - INTERNAL_ERROR / NOT_IMPLEMENTED / RPC 실패: base * 2^(attempts-1) (최대 backoff-max, jitter 50~100%) 뒤 재시도
+ * - 그 외 코드, 또는 max-attempts 초과: FAILED로 남기고 로그
+ *
+ * 선점은 lease 방식이라 워커가 결과를 쓰기 전에 죽어도 lease가 지나면 다시 실행된다.
+ * 여러 인스턴스가 같이 돌아도 SKIP LOCKED로 같은 작업을 동시에 가져가지 않는다.
+ */
+@ApplicationScoped
+public class CompensationWorker {
+
+    private static final Logger log = Logger.getLogger(CompensationWorker.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Inject Vertx vertx;
+    @Inject CompensationTaskRepository taskRepository;
+    @Inject CompensationExecutor executor;
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.compensation.queue.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.compensation.queue.workers", defaultValue = "2")
+    int workers;
+
+    @ConfigProperty(name = "order.compensation.queue.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "order.compensation.queue.poll-interval-ms", defaultValue = "200")
+    long pollIntervalMs;
+
+    @ConfigProperty(name = "order.compensation.queue.error-backoff-ms", defaultValue = "1000")
+    long errorBackoffMs;
+
+    @ConfigProperty(name = "order.compensation.queue.lease", defaultValue = "PT30S")
+    Duration lease;
+
+    @ConfigProperty(name = "order.compensation.queue.backoff-base", defaultValue = "PT0.2S")
+    Duration backoffBase;
+
+    @ConfigProperty(name = "order.compensation.queue.backoff-max", defaultValue = "PT5M")
+    Duration backoffMax;
+
+    @ConfigProperty(name = "order.compensation.queue.max-attempts", defaultValue = "30")
+    int maxAttempts;
+
+    @ConfigProperty(name = "order.compensation.queue.stats-interval", defaultValue = "PT10S")
+    Duration statsInterval;
+
+    @ConfigProperty(name = "order.compensation.queue.keep-done", defaultValue = "P7D")
+    Duration keepDone;
+
+    private volatile boolean running;
+    private long statsTimer = -1;
+    private final AtomicBoolean statsRunning = new AtomicBoolean();
+
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestMillis = new AtomicLong();
+    private Counter releasedCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Counter failedBatchCounter;
+    private Timer taskAge;
+
+    void onStart(@Observes StartupEvent ev) {
+        Gauge.builder("order.compensation.queue.depth", depth, AtomicLong::get)
+                .description("PENDING compensation tasks")
+                .register(registry);
+        Gauge.builder("order.compensation.queue.oldest.age", oldestMillis, v -> v.get() / 1000.0)
+                .description("Age of the oldest PENDING compensation task")
+                .baseUnit("seconds")
+                .register(registry);
+        releasedCounter = taskCounter("released");
+        retriedCounter = taskCounter("retried");
+        failedCounter = taskCounter("failed");
+        failedBatchCounter = Counter.builder("order.compensation.batch.failed")
+                .description("Compensation batches that could not be claimed or recorded")
+                .register(registry);
+        taskAge = Timer.builder("order.compensation.task.age")
+                .description("Time from enqueue to a successful release")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        if (!enabled) {
+            log.info("Compensation worker disabled");
+            return;
+        }
+
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            scheduleNext(i, pollIntervalMs);
+        }
+        statsTimer = vertx.setPeriodic(statsInterval.toMillis(), id -> refreshStats());
+        log.infof("Compensation worker started: workers=%d, batchSize=%d, maxAttempts=%d",
+                  workers, batchSize, maxAttempts);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+        if (statsTimer >= 0) {
+            vertx.cancelTimer(statsTimer);
+        }
+    }
+
+    private void scheduleNext(int worker, long delayMs) {
+        if (!running) {
+            return;
+        }
+        vertx.setTimer(Math.max(1, delayMs), id -> drainBatch()
+                .subscribe().with(
+                        claimed -> scheduleNext(worker, claimed >= batchSize ? 1 : pollIntervalMs),
+                        t -> {
+                            failedBatchCounter.increment();
+                            log.errorf(t, "Compensation batch failed: worker=%d", worker);
+                            scheduleNext(worker, errorBackoffMs);
+                        }
+                ));
+    }
+
+    /**
+     * @return 이번 배치에서 선점한 작업 수
+     */
+    Uni<Integer> drainBatch() {
+        return taskRepository.claimDue(batchSize, lease)
+            .chain(tasks -> {
+                if (tasks.isEmpty()) {
+                    return Uni.createFrom().item(0);
+                }
+                List<Uni<Attempt>> attempts = new ArrayList<>(tasks.size());
+                for (CompensationTask task : tasks) {
+                    attempts.add(attempt(task));
+                }
+                return Uni.join().all(attempts).andCollectFailures()
+                    .chain(this::record)
+                    .replaceWith(tasks.size());
+            });
+    }
+
+    private Uni<Attempt> attempt(CompensationTask task) {
+        return executor.release(task)
+            .map(reply -> {
+                AccoutResult code = reply.getCode();
+                if (code == AccoutResult.SUCCESS || code == AccoutResult.DUPLICATE_REQUEST) {
+                    return new Attempt(task, Attempt.Result.RELEASED, null);
+                }
+                boolean retryable = code == AccoutResult.INTERNAL_ERROR || code == AccoutResult.NOT_IMPLEMENTED;
+                return new Attempt(task, retryable ? Attempt.Result.RETRY : Attempt.Result.FAILED, code.name());
+            })
+            .onFailure().recoverWithItem(t ->
+                new Attempt(task, Attempt.Result.RETRY, String.valueOf(t.getMessage())));
+    }
+
+    private Uni<Void> record(List<Attempt> attempts) {
+        List<Long> done = new ArrayList<>();
+        List<Long> retryIds = new ArrayList<>();
+        List<Long> retryDelays = new ArrayList<>();
+        List<String> retryErrors = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        List<String> failedErrors = new ArrayList<>();
+
+        for (Attempt attempt : attempts) {
+            CompensationTask task = attempt.task();
+            Attempt.Result result = attempt.result();
+            if (result == Attempt.Result.RETRY && task.attempts() >= maxAttempts) {
+                result = Attempt.Result.FAILED;
+            }
+            switch (result) {
+                case RELEASED -> {
+                    done.add(task.id());
+                    taskAge.record(task.ageMillis(), TimeUnit.MILLISECONDS);
+                    releasedCounter.increment();
+                    log.infof("Compensation released: type=%s, orderId=%d, reserveId=%s, attempts=%d",
+                              task.type(), task.orderId(), task.reserveId(), task.attempts());
+                }
+                case RETRY -> {
+                    retryIds.add(task.id());
+                    retryDelays.add(backoffMillis(task.attempts()));
+                    retryErrors.add(truncate(attempt.error()));
+                    retriedCounter.increment();
+                    log.warnf("Compensation retry scheduled: type=%s, orderId=%d, reserveId=%s, attempts=%d, error=%s",
+                              task.type(), task.orderId(), task.reserveId(), task.attempts(), attempt.error());
+                }
+                case FAILED -> {
+                    failedIds.add(task.id());
+                    failedErrors.add(truncate(attempt.error()));
+                    failedCounter.increment();
+                    log.errorf("Compensation gave up: type=%s, accountId=%d, orderId=%d, reserveId=%s, attempts=%d, error=%s",
+                               task.type(), task.accountId(), task.orderId(), task.reserveId(),
+                               task.attempts(), attempt.error());
+                }
+            }
+        }
+
+        Uni<Void> chain = Uni.createFrom().voidItem();
+        if (!done.isEmpty()) {
+            chain = chain.chain(() -> taskRepository.markDone(done.toArray(Long[]::new)));
+        }
+        if (!retryIds.isEmpty()) {
+            chain = chain.chain(() -> taskRepository.reschedule(retryIds.toArray(Long[]::new),
+                    retryDelays.toArray(Long[]::new), retryErrors.toArray(String[]::new)));
+        }
+        if (!failedIds.isEmpty()) {
+            chain = chain.chain(() -> taskRepository.markFailed(failedIds.toArray(Long[]::new),
+                    failedErrors.toArray(String[]::new)));
+        }
+        return chain;
+    }
+
+    /**
+     * 지수 backoff + jitter (여러 작업이 같은 순간에 account-service로 몰리지 않도록)
+     */
+    long backoffMillis(int attempts) {
+        long base = backoffBase.toMillis();
+        long max = backoffMax.toMillis();
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        long delay = Math.min(max, base << shift);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void refreshStats() {
+        if (!statsRunning.compareAndSet(false, true)) {
+            return;
+        }
+        taskRepository.stats()
+            .invoke(stats -> {
+                depth.set(stats.depth());
+                oldestMillis.set(stats.oldestMillis());
+            })
+            .chain(() -> taskRepository.pruneDone(keepDone, batchSize))
+            .subscribe().with(
+                pruned -> statsRunning.set(false),
+                t -> {
+                    statsRunning.set(false);
+                    log.warnf("Compensation queue stats failed: %s", t.getMessage());
+                }
+            );
+    }
+
+    private Counter taskCounter(String result) {
+        return Counter.builder("order.compensation.tasks")
+                .description("Compensation tasks by lifecycle event")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    record Attempt(CompensationTask task, Result result, String error) {
+        enum Result { RELEASED, RETRY, FAILED }
+    }
+}
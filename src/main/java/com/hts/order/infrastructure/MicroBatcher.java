@@ -0,0 +1,72 @@
+package com.hts.order.infrastructure;
+
+import io.vertx.mutiny.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 여러 스레드에서 들어온 항목을 window(시간) 또는 max-batch(건수) 단위로 모아 sink에 넘기는 micro-batcher.
+ * OrderGroupCommitter(주문 저장), AccountCommandBatcher(reserve/release RPC)가 공유한다.
+ *
+ * pending은 큐에 넣기 전에 올리므로 항상 "큐에 있거나 곧 들어올 항목 수" 이상이고 음수가 되지 않는다.
+ * sink는 flush를 부른 스레드(submit 호출자 또는 타이머의 이벤트 루프)에서 호출되므로 막히면 안 된다.
+ */
+public final class MicroBatcher<T> {
+
+    private final Vertx vertx;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final Consumer<List<T>> sink;
+
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean timerArmed = new AtomicBoolean();
+
+    public MicroBatcher(Vertx vertx, long windowMs, int maxBatchSize, Consumer<List<T>> sink) {
+        this.vertx = vertx;
+        this.windowMs = windowMs;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.sink = sink;
+    }
+
+    public void submit(T item) {
+        int size = pending.incrementAndGet();
+        queue.offer(item);
+        if (size >= maxBatchSize) {
+            flush();
+        } else {
+            armTimer();
+        }
+    }
+
+    private void armTimer() {
+        if (timerArmed.compareAndSet(false, true)) {
+            vertx.setTimer(Math.max(1, windowMs), id -> {
+                timerArmed.set(false);
+                flush();
+            });
+        }
+    }
+
+    private void flush() {
+        List<T> batch = new ArrayList<>(Math.max(0, Math.min(pending.get(), maxBatchSize)));
+        T item;
+        while (batch.size() < maxBatchSize && (item = queue.poll()) != null) {
+            batch.add(item);
+        }
+        if (!batch.isEmpty()) {
+            pending.addAndGet(-batch.size());
+            sink.accept(batch);
+        }
+
+        // 올린 뒤 아직 큐에 넣지 않은 항목도 다음 window에서 나간다
+        if (pending.get() > 0) {
+            armTimer();
+        }
+    }
+}
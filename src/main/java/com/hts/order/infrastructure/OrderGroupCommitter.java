@@ -0,0 +1,110 @@
+package com.hts.order.infrastructure;
+
+import com.hts.order.domain.model.OrderEntity;
+import com.hts.order.infrastructure.repository.IdempotencyRepository;
+import com.hts.order.infrastructure.repository.OrderWriteRepository;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.PgPool;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 동시에 들어온 주문 저장 요청을 window(시간) 또는 max-batch(건수) 단위로 모아 한 트랜잭션으로 기록.
+ * 배치가 실패하면 건별 트랜잭션으로 다시 시도해서 불량 행 하나가 이웃 주문까지 실패시키지 않도록 한다.
+ */
+@ApplicationScoped
+public class OrderGroupCommitter {
+
+    private static final Logger log = Logger.getLogger(OrderGroupCommitter.class);
+
+    private static final String EVENT_TYPE = "ORDER_PLACED";
+
+    @Inject PgPool client;
+    @Inject Vertx vertx;
+    @Inject OrderWriteRepository orderWriteRepository;
+    @Inject IdempotencyRepository idempotencyRepository;
+
+    @ConfigProperty(name = "order.persist.group-commit.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.persist.group-commit.window-ms", defaultValue = "2")
+    long windowMs;
+
+    @ConfigProperty(name = "order.persist.group-commit.max-batch", defaultValue = "256")
+    int maxBatchSize;
+
+    private MicroBatcher<PendingWrite> batcher;
+
+    @PostConstruct
+    void init() {
+        batcher = new MicroBatcher<>(vertx, windowMs, maxBatchSize, this::write);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Uni<Void> submit(OrderEntity order, String idempotencyKey, byte[] responsePayload) {
+        return Uni.createFrom().emitter(em ->
+            batcher.submit(new PendingWrite(order, idempotencyKey, responsePayload, em))
+        );
+    }
+
+    private void write(List<PendingWrite> batch) {
+        if (batch.size() == 1) {
+            writeSingle(batch.get(0));
+        } else {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        int n = batch.size();
+        List<OrderEntity> orders = new ArrayList<>(n);
+        String[] keys = new String[n];
+        Long[] orderIds = new Long[n];
+        byte[][] payloads = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            PendingWrite write = batch.get(i);
+            orders.add(write.order());
+            keys[i] = write.idempotencyKey();
+            orderIds[i] = write.order().orderId();
+            payloads[i] = write.responsePayload();
+        }
+
+        client.withTransaction(conn ->
+            orderWriteRepository.insertOrdersBatch(conn, orders, EVENT_TYPE)
+                .chain(() -> idempotencyRepository.updateSuccessBatchInTx(conn, keys, orderIds, payloads))
+        )
+        .subscribe().with(
+            v -> batch.forEach(w -> w.emitter().complete(null)),
+            t -> {
+                log.warnf(t, "Group commit failed, falling back to per-order writes: size=%d", n);
+                batch.forEach(this::writeSingle);
+            }
+        );
+    }
+
+    private void writeSingle(PendingWrite write) {
+        client.withTransaction(conn ->
+            orderWriteRepository.insertOrderAtomic(conn, write.order(), EVENT_TYPE)
+                .chain(() -> idempotencyRepository.updateSuccessInTx(
+                    conn, write.idempotencyKey(), write.order().orderId(), write.responsePayload()))
+        )
+        .subscribe().with(
+            v -> write.emitter().complete(null),
+            t -> write.emitter().fail(t)
+        );
+    }
+
+    private record PendingWrite(OrderEntity order, String idempotencyKey, byte[] responsePayload,
+                                UniEmitter<? super Void> emitter) {}
+}
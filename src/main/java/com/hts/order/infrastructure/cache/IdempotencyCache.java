@@ -0,0 +1,143 @@
+package com.hts.order.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hts.order.domain.model.ServiceResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyRepository 앞단의 노드 로컬 캐시.
+ * - 같은 노드에서 처리 중인 키로 들어온 중복 요청은 원래 요청의 Uni에 합류(coalesce)
+ * - 완료된 키는 DB 조회 없이 캐시된 결과로 응답. DB에 기록된 결과만 캐시하므로 다른 노드의 재생 결과와 같다
+ * 노드 간 정합성은 여전히 Postgres(idempotency_keys)가 보장한다.
+ */
+@ApplicationScoped
+public class IdempotencyCache {
+
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.idempotency.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.idempotency.cache.max-entries", defaultValue = "200000")
+    long maxEntries;
+
+    @ConfigProperty(name = "order.idempotency.cache.ttl", defaultValue = "PT10M")
+    Duration ttl;
+
+    private Cache<String, Entry> cache;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+
+    void onStart(@Observes StartupEvent ev) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+
+        hits = Counter.builder("order.idempotency.cache").tag("result", "hit").register(registry);
+        misses = Counter.builder("order.idempotency.cache").tag("result", "miss").register(registry);
+        coalesced = Counter.builder("order.idempotency.cache").tag("result", "coalesce").register(registry);
+        Gauge.builder("order.idempotency.cache.size", () -> cache.estimatedSize()).register(registry);
+    }
+
+    /**
+     * 캐시된 결과가 있으면 바로 반환, 같은 키가 처리 중이면 그 Uni에 합류, 아니면 loader를 실행.
+     * loader가 끝났는데 {@link #complete}로 확정되지 않은 결과는 캐시에 남기지 않는다.
+     */
+    public Uni<ServiceResult> execute(String idempotencyKey, long accountId, Supplier<Uni<ServiceResult>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry existing = cache.getIfPresent(idempotencyKey);
+        if (existing != null && existing.accountId == accountId) {
+            return fromEntry(existing);
+        }
+
+        Entry entry = new Entry(accountId);
+        entry.shared = Uni.createFrom().deferred(loader::get)
+                .onTermination().invoke(() -> {
+                    if (entry.result == null) {
+                        cache.asMap().remove(idempotencyKey, entry);
+                    }
+                })
+                .memoize().indefinitely();
+
+        Entry raced = cache.asMap().putIfAbsent(idempotencyKey, entry);
+        if (raced != null) {
+            if (raced.accountId != accountId) {
+                return loader.get();
+            }
+            return fromEntry(raced);
+        }
+
+        misses.increment();
+        return entry.shared;
+    }
+
+    /**
+     * 이 계좌의 같은 키가 처리 중이거나 결과가 캐시되어 있는지 (재생해야 하는 요청인지)
+     */
+    public boolean contains(String idempotencyKey, long accountId) {
+        if (!enabled) {
+            return false;
+        }
+        Entry entry = cache.getIfPresent(idempotencyKey);
+        return entry != null && entry.accountId == accountId;
+    }
+
+    /**
+     * idempotency_keys에 SUCCESS로 기록된 키를 기록. 이후 중복 요청은 DB를 거치지 않는다.
+     * FAILED는 같은 키의 재시도가 다시 선점하므로 넘기지 않는다.
+     * result는 DB에서 재생했을 때와 같은 값이어야 한다 (기록 전이거나 기록에 실패한 결과는 넘기지 않음).
+     */
+    public void complete(String idempotencyKey, long accountId, ServiceResult result) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = cache.asMap().computeIfAbsent(idempotencyKey, k -> Entry.completed(accountId, result));
+        if (entry.accountId == accountId) {
+            entry.result = result;
+        }
+    }
+
+    private Uni<ServiceResult> fromEntry(Entry entry) {
+        ServiceResult result = entry.result;
+        if (result != null) {
+            hits.increment();
+            return Uni.createFrom().item(result);
+        }
+        coalesced.increment();
+        return entry.shared;
+    }
+
+    private static final class Entry {
+        final long accountId;
+        volatile Uni<ServiceResult> shared;
+        volatile ServiceResult result;
+
+        Entry(long accountId) {
+            this.accountId = accountId;
+        }
+
+        static Entry completed(long accountId, ServiceResult result) {
+            Entry entry = new Entry(accountId);
+            entry.result = result;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.hts.order.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.hts.generated.grpc.Side;
+import com.hts.order.infrastructure.id.OrderIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * 노드 로컬 미체결 주문 인덱스. 취소 폭주 때 취소할 수 없는 주문을 DB/idempotency 행 없이 거절하기 위함.
+ *
+ * order_id → (계좌, side, reserve_id, 종결 시각). 주문 기록 완료 / 체결 반영 결과로 채우고,
+ * 취소 불가 상태(FILLED, CANCEL_REQUESTED)가 되면 종결 시각을 찍는다.
+ * 거절만 인덱스로 판단하고 허용은 항상 DB가 판단한다. 거절 조건:
+ * 1. 계좌가 다름
+ * 2. closed-ttl 안에 종결됨 (다른 노드가 처리한 bust로 다시 열렸을 수 있어 오래된 종결은 믿지 않음)
+ * 3. 같은 계좌의 취소를 not-found-ttl 안에 DB가 거절함 (인덱스에 없던 주문)
+ *    DB 거절은 "아직 기록 중이거나 다른 노드가 받은 주문"일 수도 있어 종결과 구분되지 않으므로 몇 초만 기억한다
+ * 4. 이 노드가 발급한 ID인데 인덱스에 없음 (reject-unknown) - 주문 기록에 실패했거나 존재하지 않는 주문.
+ *    시작 이후, 마지막 크기 초과 eviction 이후, open-ttl 이내에 발급된 ID만 해당.
+ *    node-id가 레플리카마다 다르다는 전제가 있어야 하므로 기본은 꺼져 있고, node-id를 명시하지 않으면
+ *    켠 채로 기동하지 않는다 (모든 레플리카가 0이면 다른 노드가 받은 주문의 정상 취소를 거절하게 됨)
+ */
+@ApplicationScoped
+public class OpenOrderIndex {
+
+    public record OpenOrder(long accountId, Side side, String reserveId) {}
+
+    private record Entry(OpenOrder order, long closedAtMs) {
+        boolean isClosed() {
+            return closedAtMs != 0;
+        }
+    }
+
+    @Inject MeterRegistry registry;
+    @Inject OrderIdGenerator idGenerator;
+
+    @ConfigProperty(name = "order.open-order-index.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.open-order-index.max-entries", defaultValue = "500000")
+    long maxEntries;
+
+    @ConfigProperty(name = "order.open-order-index.open-ttl", defaultValue = "P1D")
+    Duration openTtl;
+
+    @ConfigProperty(name = "order.open-order-index.closed-ttl", defaultValue = "PT10M")
+    Duration closedTtl;
+
+    @ConfigProperty(name = "order.open-order-index.not-found-ttl", defaultValue = "PT2S")
+    Duration notFoundTtl;
+
+    @ConfigProperty(name = "order.open-order-index.reject-unknown", defaultValue = "false")
+    boolean rejectUnknown;
+
+    private Cache<Long, Entry> orders;
+    // 인덱스에 없던 주문에 대해 DB가 거절한 취소: order_id → 계좌
+    private Cache<Long, Long> rejected;
+    // 이 시각 이전에 발급된 자기 노드 ID는 인덱스에 없어도 판단하지 않음 (시작 시각, 크기 초과 eviction 시각)
+    private volatile long authoritativeSinceMs;
+
+    private Counter rejectedOwner;
+    private Counter rejectedClosed;
+    private Counter rejectedUnknown;
+    private Counter passed;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (enabled && rejectUnknown && !idGenerator.isNodeIdConfigured()) {
+            throw new IllegalStateException("order.open-order-index.reject-unknown requires a unique "
+                                            + "order.id.node-id (ORDER_NODE_ID) per replica");
+        }
+        authoritativeSinceMs = System.currentTimeMillis();
+        orders = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(openTtl)
+                .removalListener((Long orderId, Entry entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        authoritativeSinceMs = System.currentTimeMillis();
+                    }
+                })
+                .build();
+        rejected = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxEntries / 10))
+                .expireAfterWrite(notFoundTtl)
+                .build();
+
+        rejectedOwner = registry.counter("order.open-order-index.cancel", "result", "rejected_owner");
+        rejectedClosed = registry.counter("order.open-order-index.cancel", "result", "rejected_closed");
+        rejectedUnknown = registry.counter("order.open-order-index.cancel", "result", "rejected_unknown");
+        passed = registry.counter("order.open-order-index.cancel", "result", "passed");
+        Gauge.builder("order.open-order-index.size", () -> orders.estimatedSize()).register(registry);
+    }
+
+    /**
+     * 주문 기록 완료, 또는 체결 반영 후에도 취소 가능한 상태
+     */
+    public void opened(long orderId, long accountId, Side side, String reserveId) {
+        if (!enabled) {
+            return;
+        }
+        orders.put(orderId, new Entry(new OpenOrder(accountId, side, reserveId), 0));
+    }
+
+    /**
+     * 체결 반영 후 상태 (OrderUpdateRepository.applyFills 결과)
+     */
+    public void statusChanged(long orderId, long accountId, String side, String reserveId, String status) {
+        switch (status) {
+            case "RECEIVED", "ACCEPTED", "PARTIALLY_FILLED" ->
+                    opened(orderId, accountId, "BUY".equals(side) ? Side.BUY : Side.SELL, reserveId);
+            default -> closed(orderId, accountId, "BUY".equals(side) ? Side.BUY : Side.SELL, reserveId);
+        }
+    }
+
+    /**
+     * 취소 불가 상태로 전이 (FILLED, CANCEL_REQUESTED)
+     */
+    public void closed(long orderId, long accountId, Side side, String reserveId) {
+        if (!enabled) {
+            return;
+        }
+        orders.put(orderId, new Entry(new OpenOrder(accountId, side, reserveId), System.currentTimeMillis()));
+    }
+
+    /**
+     * 취소가 DB에서 반영됨. 인덱스에 없던 주문이면 계좌만 아는 상태로 종결 처리
+     */
+    public void cancelled(long orderId, long accountId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        orders.asMap().compute(orderId, (id, entry) -> entry != null
+                ? new Entry(entry.order(), now)
+                : new Entry(new OpenOrder(accountId, Side.SIDE_UNKNOWN, null), now));
+    }
+
+    /**
+     * DB가 이 계좌의 취소를 거절함 (주문 없음/계좌 불일치/이미 종결). 같은 계좌의 반복 취소만 not-found-ttl 동안 막는다.
+     */
+    public void cancelRejected(long orderId, long accountId) {
+        if (!enabled) {
+            return;
+        }
+        rejected.put(orderId, accountId);
+    }
+
+    /**
+     * @return true면 DB에 가지 않고 거절해도 되는 취소
+     */
+    public boolean rejectsCancel(long orderId, long accountId) {
+        if (!enabled) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = orders.getIfPresent(orderId);
+        if (entry != null) {
+            if (entry.order().accountId() != accountId) {
+                rejectedOwner.increment();
+                return true;
+            }
+            if (entry.isClosed() && now - entry.closedAtMs() < closedTtl.toMillis()) {
+                rejectedClosed.increment();
+                return true;
+            }
+            passed.increment();
+            return false;
+        }
+
+        Long rejectedFor = rejected.getIfPresent(orderId);
+        if (rejectedFor != null && rejectedFor == accountId) {
+            rejectedClosed.increment();
+            return true;
+        }
+
+        if (rejectUnknown && issuedHereWhileTracked(orderId, now)) {
+            rejectedUnknown.increment();
+            return true;
+        }
+        passed.increment();
+        return false;
+    }
+
+    private boolean issuedHereWhileTracked(long orderId, long now) {
+        if (!idGenerator.isOwnId(orderId)) {
+            return false;
+        }
+        long issuedAt = OrderIdGenerator.timestampOf(orderId);
+        // 발급 시각이 현재보다 뒤면(잘못된 ID, 논리 timestamp 선행) 판단하지 않음
+        return issuedAt > authoritativeSinceMs
+                && issuedAt > now - openTtl.toMillis()
+                && issuedAt <= now;
+    }
+}
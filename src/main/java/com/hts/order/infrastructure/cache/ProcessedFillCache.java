@@ -0,0 +1,84 @@
+package com.hts.order.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * order_fills(event_id) 앞단의 파티션별 LRU.
+ * 리밸런스/재시작 후 재전달된 체결 이벤트를 DB에 보내기 전에 걸러낸다.
+ * 여기 있는 event_id는 확실히 적용된 것만 담으므로 오탐이 없고,
+ * 캐시에 없으면 applyFills의 ON CONFLICT가 최종적으로 중복을 막는다.
+ */
+@ApplicationScoped
+public class ProcessedFillCache {
+
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.fill.dedup.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.fill.dedup.cache.max-entries-per-partition", defaultValue = "100000")
+    long maxEntriesPerPartition;
+
+    @ConfigProperty(name = "order.fill.dedup.cache.ttl", defaultValue = "PT1H")
+    Duration ttl;
+
+    private final Map<Integer, Cache<String, Boolean>> partitions = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+
+    void onStart(@Observes StartupEvent ev) {
+        hits = Counter.builder("order.fill.dedup.cache").tag("result", "hit").register(registry);
+        misses = Counter.builder("order.fill.dedup.cache").tag("result", "miss").register(registry);
+        Gauge.builder("order.fill.dedup.cache.size", this, ProcessedFillCache::size).register(registry);
+        Gauge.builder("order.fill.dedup.cache.partitions", partitions, Map::size).register(registry);
+    }
+
+    public boolean isProcessed(int partition, String eventId) {
+        if (!enabled) {
+            return false;
+        }
+        Cache<String, Boolean> cache = partitions.get(partition);
+        if (cache != null && cache.getIfPresent(eventId) != null) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * DB에 적용(또는 이미 적용되어 있음을 확인)한 뒤에만 호출
+     */
+    public void markProcessed(int partition, String eventId) {
+        if (!enabled) {
+            return;
+        }
+        partitions.computeIfAbsent(partition, p -> Caffeine.newBuilder()
+                .maximumSize(maxEntriesPerPartition)
+                .expireAfterWrite(ttl)
+                .build())
+            .put(eventId, Boolean.TRUE);
+    }
+
+    private double size() {
+        long total = 0;
+        for (Cache<String, Boolean> cache : partitions.values()) {
+            total += cache.estimatedSize();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,143 @@
+package com.hts.order.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hts.order.api.grpc.AuthGrpcClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * 세션 ID → 계좌 ID 노드 로컬 캐시 (AuthInterceptor 앞단).
+ * - 유효한 세션은 ttl, 무효한 세션은 negative-ttl 동안 auth 서비스에 다시 묻지 않음
+ * - 같은 세션의 검증이 진행 중이면 그 Uni에 합류 (single-flight)
+ * - 검증 자체가 실패한 경우(타임아웃, auth 서비스 장애)는 남기지 않음
+ * 로그아웃/세션 만료는 최대 ttl만큼 늦게 반영된다.
+ */
+@ApplicationScoped
+public class SessionCache {
+
+    /** 무효 세션 */
+    public static final long INVALID = 0;
+
+    private static final long PENDING = -1;
+
+    @Inject MeterRegistry registry;
+    @Inject AuthGrpcClient authClient;
+
+    @ConfigProperty(name = "order.auth.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.auth.cache.max-entries", defaultValue = "100000")
+    long maxEntries;
+
+    @ConfigProperty(name = "order.auth.cache.ttl", defaultValue = "PT1M")
+    Duration ttl;
+
+    @ConfigProperty(name = "order.auth.cache.negative-ttl", defaultValue = "PT5S")
+    Duration negativeTtl;
+
+    private Cache<String, Entry> cache;
+
+    private Counter hits;
+    private Counter negativeHits;
+    private Counter misses;
+    private Counter coalesced;
+
+    void onStart(@Observes StartupEvent ev) {
+        long ttlNanos = ttl.toNanos();
+        long negativeTtlNanos = negativeTtl.toNanos();
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.accountId() == INVALID ? negativeTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        hits = Counter.builder("order.auth.cache").tag("result", "hit").register(registry);
+        negativeHits = Counter.builder("order.auth.cache").tag("result", "negative_hit").register(registry);
+        misses = Counter.builder("order.auth.cache").tag("result", "miss").register(registry);
+        coalesced = Counter.builder("order.auth.cache").tag("result", "coalesce").register(registry);
+        Gauge.builder("order.auth.cache.size", () -> cache.estimatedSize()).register(registry);
+    }
+
+    /**
+     * @return 세션의 계좌 ID, 무효한 세션이면 {@link #INVALID}. 캐시에 있으면 구독 즉시(같은 스레드에서) 끝난다.
+     */
+    public Uni<Long> validate(String sessionId) {
+        if (!enabled) {
+            return load(sessionId);
+        }
+
+        Entry existing = cache.getIfPresent(sessionId);
+        if (existing != null) {
+            return fromEntry(existing);
+        }
+
+        Entry[] holder = new Entry[1];
+        Uni<Long> shared = Uni.createFrom().deferred(() -> load(sessionId))
+                .onItemOrFailure().invoke((accountId, t) -> {
+                    if (t == null) {
+                        cache.asMap().replace(sessionId, holder[0], new Entry(null, accountId));
+                    } else {
+                        cache.asMap().remove(sessionId, holder[0]);
+                    }
+                })
+                .memoize().indefinitely();
+        Entry entry = new Entry(shared, PENDING);
+        holder[0] = entry;
+
+        Entry raced = cache.asMap().putIfAbsent(sessionId, entry);
+        if (raced != null) {
+            return fromEntry(raced);
+        }
+        misses.increment();
+        return shared;
+    }
+
+    private Uni<Long> load(String sessionId) {
+        return authClient.validateSession(sessionId)
+                .map(reply -> reply.getIsValid() && reply.getAccountId() > 0 ? reply.getAccountId() : INVALID);
+    }
+
+    private Uni<Long> fromEntry(Entry entry) {
+        if (entry.accountId() == PENDING) {
+            coalesced.increment();
+            return entry.shared();
+        }
+        if (entry.accountId() == INVALID) {
+            negativeHits.increment();
+        } else {
+            hits.increment();
+        }
+        return Uni.createFrom().item(entry.accountId());
+    }
+
+    /**
+     * @param shared    검증 중일 때만 (accountId == PENDING)
+     * @param accountId 계좌 ID, INVALID, 또는 PENDING
+     */
+    private record Entry(Uni<Long> shared, long accountId) {}
+}
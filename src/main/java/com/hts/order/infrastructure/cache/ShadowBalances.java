@@ -0,0 +1,160 @@
+package com.hts.order.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 노드 로컬 가용 잔고/포지션 그림자. 잔고가 모자란 게 분명한 주문을 account 서비스 왕복 없이 거절하기 위함.
+ *
+ * reserve/release 응답의 CommonReply.available(처리 후 가용 수량)로만 채운다.
+ * 거절만 그림자로 판단하고 허용은 항상 account 서비스가 판단한다.
+ * - 필요 수량이 마지막으로 본 가용 수량 × (1 + margin)보다 크면 거절
+ * - 입금, 체결, 다른 노드의 reserve/release는 보이지 않으므로 ttl이 지나면 잊는다
+ * - 거절할 주문 중 probe-rate만큼은 그대로 보내 그림자가 틀렸는지(실제로는 충분했는지) 센다
+ * available이 없는 응답(구버전 account 서비스)이면 해당 항목을 지워 그림자를 끈 것과 같게 동작한다.
+ */
+@ApplicationScoped
+public class ShadowBalances {
+
+    public enum Verdict {
+        /** 그림자 없음 */
+        UNKNOWN,
+        /** 가용 수량 이내 */
+        SUFFICIENT,
+        /** 가용 수량은 넘지만 margin 이내라 보냄 */
+        MARGINAL,
+        /** 로컬 거절 */
+        INSUFFICIENT,
+        /** 거절 대상이지만 검증용으로 보냄 */
+        PROBE
+    }
+
+    private record PositionKey(long accountId, String symbol) {}
+
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.shadow-balance.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.shadow-balance.max-entries", defaultValue = "200000")
+    long maxEntries;
+
+    @ConfigProperty(name = "order.shadow-balance.ttl", defaultValue = "PT10S")
+    Duration ttl;
+
+    @ConfigProperty(name = "order.shadow-balance.margin", defaultValue = "0.1")
+    double margin;
+
+    @ConfigProperty(name = "order.shadow-balance.probe-rate", defaultValue = "0.01")
+    double probeRate;
+
+    // 계좌 → 가용 현금 (micro units)
+    private Cache<Long, Long> cash;
+    // (계좌, 종목) → 가용 수량
+    private Cache<PositionKey, Long> positions;
+
+    private Counter avoided;
+    private Counter probed;
+    private Counter passed;
+    private Counter unknown;
+    private Counter wrongOver;
+    private Counter wrongUnder;
+
+    void onStart(@Observes StartupEvent ev) {
+        cash = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        positions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+
+        avoided = registry.counter("order.shadow-balance.check", "result", "avoided");
+        probed = registry.counter("order.shadow-balance.check", "result", "probe");
+        passed = registry.counter("order.shadow-balance.check", "result", "passed");
+        unknown = registry.counter("order.shadow-balance.check", "result", "unknown");
+        // over: 충분하다고 봤는데 account 서비스가 거절, under: 거절할 주문(probe)을 account 서비스가 허용
+        wrongOver = registry.counter("order.shadow-balance.wrong", "direction", "over");
+        wrongUnder = registry.counter("order.shadow-balance.wrong", "direction", "under");
+        Gauge.builder("order.shadow-balance.size", () -> cash.estimatedSize() + positions.estimatedSize())
+                .register(registry);
+    }
+
+    public Verdict checkCash(long accountId, long amountMicroUnits) {
+        return enabled ? verdict(cash.getIfPresent(accountId), amountMicroUnits) : Verdict.UNKNOWN;
+    }
+
+    public Verdict checkPosition(long accountId, String symbol, long quantity) {
+        return enabled ? verdict(positions.getIfPresent(new PositionKey(accountId, symbol)), quantity) : Verdict.UNKNOWN;
+    }
+
+    /**
+     * cash reserve/release 응답 반영. reserve였다면 check 결과(verdict)와 비교해 틀린 판단을 센다.
+     */
+    public void observeCash(long accountId, Verdict verdict, CommonReply reply) {
+        if (!enabled) {
+            return;
+        }
+        learn(cash, accountId, reply);
+        verify(verdict, reply.getCode() == AccoutResult.INSUFFICIENT_FUNDS, reply);
+    }
+
+    public void observePosition(long accountId, String symbol, Verdict verdict, CommonReply reply) {
+        if (!enabled) {
+            return;
+        }
+        learn(positions, new PositionKey(accountId, symbol), reply);
+        verify(verdict, reply.getCode() == AccoutResult.INSUFFICIENT_POSITION, reply);
+    }
+
+    private Verdict verdict(Long available, long required) {
+        if (available == null) {
+            unknown.increment();
+            return Verdict.UNKNOWN;
+        }
+        if (required <= available) {
+            passed.increment();
+            return Verdict.SUFFICIENT;
+        }
+        if (required <= available + (long) (Math.max(available, 0) * margin)) {
+            passed.increment();
+            return Verdict.MARGINAL;
+        }
+        if (probeRate > 0 && ThreadLocalRandom.current().nextDouble() < probeRate) {
+            probed.increment();
+            return Verdict.PROBE;
+        }
+        avoided.increment();
+        return Verdict.INSUFFICIENT;
+    }
+
+    private static <K> void learn(Cache<K, Long> cache, K key, CommonReply reply) {
+        if (reply.hasAvailable()) {
+            cache.put(key, reply.getAvailable());
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    private void verify(Verdict verdict, boolean insufficient, CommonReply reply) {
+        if (verdict == Verdict.SUFFICIENT && insufficient) {
+            wrongOver.increment();
+        } else if (verdict == Verdict.PROBE && reply.getCode() == AccoutResult.SUCCESS) {
+            wrongUnder.increment();
+        }
+    }
+}
@@ -1,51 +1,194 @@
 package com.hts.order.infrastructure.event;
 
 import com.hts.generated.events.order.OrderFillEvent;
+import com.hts.order.domain.model.FillDelta;
+import com.hts.order.exceptions.FillRejectedException;
+import com.hts.order.infrastructure.cache.OpenOrderIndex;
+import com.hts.order.infrastructure.cache.ProcessedFillCache;
 import com.hts.order.infrastructure.repository.OrderUpdateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.kafka.KafkaRecord;
+import io.smallrye.reactive.messaging.kafka.KafkaRecordBatch;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import io.vertx.pgclient.PgException;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.eclipse.microprofile.reactive.messaging.Message;
 import org.jboss.logging.Logger;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletionStage;
 
+/**
+ * 체결 이벤트를 poll 단위 배치로 처리.
+ * - 각 이벤트는 FillDelta(수량/notional 변화량)로 바꿔서 누적 상태에 더한다 (OrderUpdateRepository.applyFills)
+ * - event_id로 중복 적용을 막으므로 재전달/순서 뒤바뀐 이벤트도 같은 결과
+ *   (최근 적용한 event_id는 ProcessedFillCache에서 DB 왕복 없이 걸러냄)
+ * - 파티션 순서대로 받은 배치를 순서대로 처리하므로 client_order_id별 순서가 유지된다
+ * - 파싱 불가/잘못된 client_order_id/적용 불가 체결 등 poison 레코드는 DLQ로 보내고 나머지는 계속 처리
+ * - 배치 적용이 실패하면 건별로 재시도해서 문제 레코드만 DLQ로 보낸다
+ */
 @ApplicationScoped
 public class OrderFillEventConsumer {
 
     private static final Logger LOG = Logger.getLogger(OrderFillEventConsumer.class);
 
     @Inject OrderUpdateRepository updateRepo;
+    @Inject ProcessedFillCache processedFills;
+    @Inject OpenOrderIndex openOrders;
+    @Inject MeterRegistry registry;
 
-    @Incoming("order-filled-events")
-    public CompletionStage<Void> onOrderFilled(Message<byte[]> message) {
-        return Uni.createFrom().item(() -> {
-            try {
-                OrderFillEvent event = OrderFillEvent.parseFrom(message.getPayload());
+    @Inject
+    @Channel("order-filled-events-dlq")
+    MutinyEmitter<byte[]> deadLetters;
 
-                LOG.infof("Received OrderFillEvent: eventId=%s, clientOrderId=%s, accountId=%d",
-                        event.getEventId(), event.getClientOrderId(), event.getAccountId());
+    private Counter appliedCounter;
+    private Counter duplicateCounter;
+    private Counter skippedCounter;
+    private Counter deadLetterCounter;
+
+    @PostConstruct
+    void init() {
+        appliedCounter = registry.counter("order.fill.events", "result", "applied");
+        duplicateCounter = registry.counter("order.fill.events", "result", "duplicate");
+        skippedCounter = registry.counter("order.fill.events", "result", "skipped");
+        deadLetterCounter = registry.counter("order.fill.events", "result", "dead_letter");
+    }
 
-                return event;
+    @Incoming("order-filled-events")
+    public CompletionStage<Void> onOrderFilled(KafkaRecordBatch<Long, byte[]> batch) {
+        List<ParsedFill> fills = new ArrayList<>(batch.getRecords().size());
+        List<Uni<Void>> deadLettered = new ArrayList<>();
+        Set<String> eventIds = new HashSet<>();
+
+        for (KafkaRecord<Long, byte[]> record : batch.getRecords()) {
+            try {
+                OrderFillEvent event = OrderFillEvent.parseFrom(record.getPayload());
+                FillDelta delta = FillDelta.from(event, Long.parseLong(event.getClientOrderId()));
+                if (delta == null) {
+                    skippedCounter.increment();
+                } else if (event.getEventId().isEmpty()) {
+                    throw new IllegalArgumentException("event_id required");
+                } else if (processedFills.isProcessed(record.getPartition(), event.getEventId())) {
+                    duplicateCounter.increment();
+                } else if (eventIds.add(event.getEventId())) {
+                    fills.add(new ParsedFill(record, event, delta));
+                } else {
+                    duplicateCounter.increment();
+                }
             } catch (Exception e) {
-                LOG.errorf(e, "Failed to parse OrderFillEvent");
-                throw new RuntimeException(e);
+                LOG.errorf(e, "Poison OrderFillEvent: partition=%d, offset=%d", record.getPartition(), offsetOf(record));
+                deadLettered.add(deadLetter(record, e));
             }
-        })
-        .chain(event -> updateRepo.updateOrderToFilled(event))
-        .onItem().transform(result -> {
-            if (!result) {
-                LOG.warnf("Order not found or already filled: clientOrderId=%s",
-                    message.getMetadata().toString());
-            }
-            return null;
-        })
-        .chain(() -> Uni.createFrom().completionStage(message.ack()))
-        .onFailure().recoverWithUni(err -> {
-            LOG.errorf(err, "Failed to process OrderFillEvent");
-            return Uni.createFrom().completionStage(message.nack(err));
-        })
-        .subscribeAsCompletionStage();
+        }
+
+        return (deadLettered.isEmpty() ? Uni.createFrom().voidItem() : Uni.join().all(deadLettered).andFailFast().replaceWithVoid())
+            .chain(() -> applyBatch(fills))
+            .chain(() -> Uni.createFrom().completionStage(batch.ack()))
+            .onFailure().recoverWithUni(err -> {
+                LOG.errorf(err, "Failed to process OrderFillEvent batch: size=%d", batch.getRecords().size());
+                return Uni.createFrom().completionStage(batch.nack(err));
+            })
+            .subscribeAsCompletionStage();
     }
+
+    private Uni<Void> applyBatch(List<ParsedFill> fills) {
+        if (fills.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+
+        List<FillDelta> deltas = new ArrayList<>(fills.size());
+        for (ParsedFill fill : fills) {
+            deltas.add(fill.delta());
+        }
+
+        return updateRepo.applyFills(deltas)
+            .invoke(result -> {
+                count(result);
+                fills.forEach(this::markProcessed);
+            })
+            .replaceWithVoid()
+            .onFailure().recoverWithUni(t -> {
+                LOG.warnf(t, "Batch fill apply failed, falling back to per-event: size=%d", deltas.size());
+                return applyOneByOne(fills);
+            });
+    }
+
+    private Uni<Void> applyOneByOne(List<ParsedFill> fills) {
+        return Multi.createFrom().iterable(fills)
+            .onItem().transformToUniAndConcatenate(fill ->
+                updateRepo.applyFills(List.of(fill.delta()))
+                    .invoke(result -> {
+                        count(result);
+                        markProcessed(fill);
+                    })
+                    .replaceWithVoid()
+                    .onFailure(OrderFillEventConsumer::isPoison).recoverWithUni(t -> {
+                        LOG.errorf(t, "OrderFillEvent rejected: eventId=%s, clientOrderId=%s",
+                                   fill.event().getEventId(), fill.event().getClientOrderId());
+                        return deadLetter(fill.record(), t);
+                    }))
+            .collect().last()
+            .replaceWithVoid();
+    }
+
+    private void markProcessed(ParsedFill fill) {
+        processedFills.markProcessed(fill.record().getPartition(), fill.event().getEventId());
+    }
+
+    private void count(OrderUpdateRepository.FillResult result) {
+        appliedCounter.increment(result.applied());
+        duplicateCounter.increment(result.duplicates());
+        for (OrderUpdateRepository.OrderState state : result.changed()) {
+            openOrders.statusChanged(state.orderId(), state.accountId(), state.side(), state.reserveId(), state.status());
+        }
+    }
+
+    private Uni<Void> deadLetter(KafkaRecord<Long, byte[]> record, Throwable cause) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("dead-letter-reason", String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+        headers.add("dead-letter-cause", cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        headers.add("dead-letter-topic", record.getTopic().getBytes(StandardCharsets.UTF_8));
+        headers.add("dead-letter-partition", String.valueOf(record.getPartition()).getBytes(StandardCharsets.UTF_8));
+        headers.add("dead-letter-offset", String.valueOf(offsetOf(record)).getBytes(StandardCharsets.UTF_8));
+
+        return deadLetters.sendMessage(Message.of(record.getPayload())
+                .addMetadata(OutgoingKafkaRecordMetadata.<Long>builder()
+                        .withKey(record.getKey())
+                        .withHeaders(headers)
+                        .build()))
+            .invoke(() -> deadLetterCounter.increment());
+    }
+
+    // 적용 불가 체결, 22xxx(data exception), 23xxx(integrity constraint)는 재시도해도 같은 결과
+    private static boolean isPoison(Throwable t) {
+        if (t instanceof FillRejectedException) {
+            return true;
+        }
+        if (t instanceof PgException pg && pg.getSqlState() != null) {
+            return pg.getSqlState().startsWith("22") || pg.getSqlState().startsWith("23");
+        }
+        return false;
+    }
+
+    private static long offsetOf(KafkaRecord<Long, byte[]> record) {
+        return record.getMetadata(IncomingKafkaRecordMetadata.class)
+            .map(IncomingKafkaRecordMetadata::getOffset)
+            .orElse(-1L);
+    }
+
+    private record ParsedFill(KafkaRecord<Long, byte[]> record, OrderFillEvent event, FillDelta delta) {}
 }
@@ -0,0 +1,180 @@
+package com.hts.order.infrastructure.event;
+
+import com.hts.order.infrastructure.repository.OutboxRepository;
+import com.hts.order.infrastructure.repository.OutboxRepository.OutboxRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.PgPool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox 테이블의 PENDING 행을 배치로 선점해 order-created-events 채널로 발행하는 in-process relay.
+ * 배치 하나: lease 선점(커밋) → Kafka 발행(ack 대기, 최대 lease) → bulk UPDATE.
+ * ack를 기다리는 동안 트랜잭션/행 잠금을 잡지 않는다. 발행이 실패하거나 lease 안에 ack가 오지 않으면
+ * lease를 풀어 행은 PENDING으로 남고 다음 poll에서 재시도된다 (at-least-once).
+ */
+@ApplicationScoped
+public class OutboxRelay {
+
+    private static final Logger log = Logger.getLogger(OutboxRelay.class);
+
+    private static final String EVENT_TYPE_HEADER = "event-type";
+    private static final String CONTENT_TYPE_HEADER = "content-type";
+
+    @Inject PgPool client;
+    @Inject Vertx vertx;
+    @Inject OutboxRepository outboxRepository;
+    @Inject MeterRegistry registry;
+
+    @Inject
+    @Channel("order-created-events")
+    @OnOverflow(value = OnOverflow.Strategy.BUFFER, bufferSize = 8192)
+    MutinyEmitter<byte[]> emitter;
+
+    @ConfigProperty(name = "order.outbox.relay.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.outbox.relay.workers", defaultValue = "4")
+    int workers;
+
+    @ConfigProperty(name = "order.outbox.relay.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "order.outbox.relay.poll-interval-ms", defaultValue = "5")
+    long pollIntervalMs;
+
+    @ConfigProperty(name = "order.outbox.relay.error-backoff-ms", defaultValue = "500")
+    long errorBackoffMs;
+
+    // 선점한 배치의 ack 대기 상한. 넘기면 다른 워커가 같은 행을 다시 발행할 수 있으므로 발행을 실패로 처리
+    @ConfigProperty(name = "order.outbox.relay.lease", defaultValue = "PT10S")
+    Duration lease;
+
+    private volatile boolean running;
+
+    private Timer publishLag;
+    private Counter publishedCounter;
+    private Counter failedBatchCounter;
+
+    void onStart(@Observes StartupEvent ev) {
+        publishLag = Timer.builder("order.outbox.publish.lag")
+                .description("Delay between outbox created_at and published_at")
+                .publishPercentileHistogram()
+                .register(registry);
+        publishedCounter = Counter.builder("order.outbox.published")
+                .description("Outbox rows published to Kafka")
+                .register(registry);
+        failedBatchCounter = Counter.builder("order.outbox.batch.failed")
+                .description("Outbox batches left pending after a publish or DB failure")
+                .register(registry);
+
+        if (!enabled) {
+            log.info("Outbox relay disabled");
+            return;
+        }
+
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            scheduleNext(i, pollIntervalMs);
+        }
+        log.infof("Outbox relay started: workers=%d, batchSize=%d", workers, batchSize);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+    }
+
+    private void scheduleNext(int worker, long delayMs) {
+        if (!running) {
+            return;
+        }
+        vertx.setTimer(Math.max(1, delayMs), id -> drainBatch()
+                .subscribe().with(
+                        published -> scheduleNext(worker, published >= batchSize ? 1 : pollIntervalMs),
+                        t -> {
+                            failedBatchCounter.increment();
+                            log.errorf(t, "Outbox relay batch failed: worker=%d", worker);
+                            scheduleNext(worker, errorBackoffMs);
+                        }
+                ));
+    }
+
+    /**
+     * @return 이번 배치에서 발행한 행 수
+     */
+    Uni<Integer> drainBatch() {
+        return client.withConnection(conn -> outboxRepository.claimPending(conn, batchSize, lease.toMillis()))
+            .chain(records -> {
+                if (records.isEmpty()) {
+                    return Uni.createFrom().item(0);
+                }
+                Long[] ids = idsOf(records);
+                return publishAll(records)
+                    .ifNoItem().after(lease).fail()
+                    .onFailure().call(t -> client.withConnection(conn -> outboxRepository.releaseClaim(conn, ids))
+                        .onFailure().invoke(e -> log.warnf("Failed to release outbox claim: %s", e.toString()))
+                        .onFailure().recoverWithNull())
+                    .chain(() -> client.withConnection(conn -> outboxRepository.markPublished(conn, ids)))
+                    .map(lags -> {
+                        for (long lag : lags) {
+                            publishLag.record(lag, TimeUnit.MICROSECONDS);
+                        }
+                        publishedCounter.increment(records.size());
+                        return records.size();
+                    });
+            });
+    }
+
+    /**
+     * 배치 전체를 먼저 producer에 넘기고 ack를 한꺼번에 기다린다.
+     * producer 측 batch.size / linger.ms가 레코드를 묶어서 전송한다.
+     */
+    private Uni<Void> publishAll(List<OutboxRecord> records) {
+        List<Uni<Void>> sends = new ArrayList<>(records.size());
+        for (OutboxRecord record : records) {
+            sends.add(emitter.sendMessage(toMessage(record)));
+        }
+        return Uni.join().all(sends).andFailFast().replaceWithVoid();
+    }
+
+    private Message<byte[]> toMessage(OutboxRecord record) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(EVENT_TYPE_HEADER, record.eventType().getBytes(StandardCharsets.UTF_8));
+        headers.add(CONTENT_TYPE_HEADER, record.contentType().getBytes(StandardCharsets.UTF_8));
+
+        return Message.of(record.payload())
+                .addMetadata(OutgoingKafkaRecordMetadata.<Long>builder()
+                        .withKey(record.aggregateId())
+                        .withHeaders(headers)
+                        .build());
+    }
+
+    private static Long[] idsOf(List<OutboxRecord> records) {
+        Long[] ids = new Long[records.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = records.get(i).id();
+        }
+        return ids;
+    }
+}
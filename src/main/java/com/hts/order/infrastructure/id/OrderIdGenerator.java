@@ -0,0 +1,111 @@
+package com.hts.order.infrastructure.id;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake 방식 64bit 주문 ID.
+ * [1bit 0][41bit epoch 이후 ms][10bit node][12bit sequence]
+ *
+ * - lock-free: (timestamp, sequence)를 AtomicLong 하나에 담아 CAS로 증가
+ * - sequence 소진(ms당 4096개 초과)이나 시계 역행 시 대기하지 않고 논리 timestamp를 앞당겨 계속 발급
+ *   (실제 시계가 따라잡으면 다시 실제 시각 기준으로 돌아옴)
+ * - node-id는 레플리카마다 달라야 함 (application.properties 또는 Consul config).
+ *   지정하지 않으면 0으로 발급하되 경고하고, require-node-id=true면 기동을 거부한다
+ *   (두 레플리카가 같은 node-id를 쓰면 같은 ms에 같은 ID가 나온다)
+ */
+@ApplicationScoped
+public class OrderIdGenerator {
+
+    private static final Logger log = Logger.getLogger(OrderIdGenerator.class);
+
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH_MS = 1704067200000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    @ConfigProperty(name = "order.id.node-id")
+    Optional<Long> configuredNodeId;
+
+    @ConfigProperty(name = "order.id.require-node-id", defaultValue = "false")
+    boolean requireNodeId;
+
+    long nodeId;
+
+    // (timestamp - EPOCH_MS) << SEQUENCE_BITS | sequence
+    private final AtomicLong state = new AtomicLong();
+    private long nodeBits;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (configuredNodeId.isEmpty()) {
+            if (requireNodeId) {
+                throw new IllegalStateException(
+                    "order.id.node-id (ORDER_NODE_ID) must be set to a unique value per replica");
+            }
+            log.warn("order.id.node-id is not set, using 0. Set a unique ORDER_NODE_ID per replica "
+                     + "when running more than one, or order IDs will collide");
+        }
+        nodeId = configuredNodeId.orElse(0L);
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("order.id.node-id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        nodeBits = nodeId << SEQUENCE_BITS;
+        log.infof("OrderIdGenerator initialized: nodeId=%d", nodeId);
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MS) << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            // 같은 ms, 시계 역행, 앞당겨 쓴 ms 안이면 이전 값 + 1 (sequence 넘치면 자연히 다음 ms로 올라감)
+            next = now > prev ? now : prev + 1;
+        } while (!state.compareAndSet(prev, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * 주문 ID에서 파생한 reserve ID (base36, 13자 이하).
+     * 주문 1건당 reserve 1건이므로 주문 ID의 유일성을 그대로 따른다.
+     */
+    public static String reserveIdOf(long orderId) {
+        return Long.toString(orderId, Character.MAX_RADIX);
+    }
+
+    /**
+     * node-id가 명시적으로 지정됐는지 (아니면 기본값 0이라 다른 레플리카와 겹칠 수 있음)
+     */
+    public boolean isNodeIdConfigured() {
+        return configuredNodeId != null && configuredNodeId.isPresent();
+    }
+
+    /**
+     * 이 노드(node-id)가 발급한 ID인지
+     */
+    public boolean isOwnId(long id) {
+        return ((id >>> SEQUENCE_BITS) & MAX_NODE_ID) == nodeId;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MS;
+    }
+
+    /**
+     * epochMs 시각에 발급될 수 있는 가장 작은 ID (order_id 시간 범위 파티션 경계)
+     */
+    public static long firstIdAt(long epochMs) {
+        return (epochMs - EPOCH_MS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+}
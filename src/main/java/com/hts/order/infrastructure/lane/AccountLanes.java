@@ -0,0 +1,378 @@
+package com.hts.order.infrastructure.lane;
+
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.AccountCommand;
+import com.hts.order.api.grpc.AccountGrpcClient;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.core.Context;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 계좌별 순서 보장 실행 lane.
+ *
+ * accountId를 고정된 수의 lane에 해시하고, lane마다 Vert.x context 하나에 고정된 단일 소비자가 명령을 꺼낸다.
+ * - 제출은 lock-free MPSC 큐(ConcurrentLinkedQueue)에 넣기만 하고, 비어 있던 lane이면 그 context에 drain을 예약
+ * - 계좌별 상태(실행 중 여부, 대기열)는 lane context에서만 읽고 쓰므로 lock이 없다
+ * - 같은 계좌의 명령은 앞 명령의 Uni가 끝나야 시작한다 (취소가 그 주문의 접수를 앞지르지 않음)
+ * - lane은 순서만 정하고 실행을 직렬화하지 않는다. 같은 lane의 다른 계좌 명령은 동시에 진행
+ * - 계좌 대기열 맨 앞에 연속된 주문 접수(PLACE)가 쌓여 있으면 한 묶음으로 같이 시작하고,
+ *   묶음의 reserve들을 ReserveBatch 한 번으로 보낸다 (account 서비스에서 같은 계좌끼리 경합하지 않도록)
+ */
+@ApplicationScoped
+public class AccountLanes {
+
+    private static final Logger log = Logger.getLogger(AccountLanes.class);
+
+    public enum Kind { PLACE, CANCEL }
+
+    /**
+     * 묶음으로 시작한 명령의 reserve 경로. 묶음의 다른 명령들이 모두 reserve를 보내거나 끝나면 한 번에 전송된다.
+     */
+    public interface ReserveBatch {
+        Uni<CommonReply> reserve(AccountCommand command);
+    }
+
+    @Inject Vertx vertx;
+    @Inject AccountGrpcClient accountClient;
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.lanes.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.lanes.count", defaultValue = "64")
+    int laneCount;
+
+    @ConfigProperty(name = "order.lanes.max-depth", defaultValue = "4096")
+    int maxDepth;
+
+    @ConfigProperty(name = "order.lanes.reserve-batch.enabled", defaultValue = "true")
+    boolean batchEnabled;
+
+    @ConfigProperty(name = "order.lanes.reserve-batch.max-size", defaultValue = "32")
+    int maxBatchSize;
+
+    // 묶음 중 하나가 reserve 없이 오래 걸리면(다른 노드와 경합하는 idempotency 등) 모인 것만 먼저 보낸다
+    @ConfigProperty(name = "order.lanes.reserve-batch.max-wait", defaultValue = "PT0.005S")
+    Duration batchMaxWait;
+
+    private Lane[] lanes;
+
+    private Timer waitTimer;
+    private DistributionSummary batchSize;
+    private Counter rejected;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            // 이벤트 루프 밖에서 만든 context는 이벤트 루프에 round-robin으로 배정된다
+            lanes[i] = new Lane(vertx.getDelegate().getOrCreateContext());
+        }
+
+        waitTimer = Timer.builder("order.lane.wait")
+                .description("Time a command waits in its account lane before it starts")
+                .publishPercentileHistogram()
+                .register(registry);
+        batchSize = DistributionSummary.builder("order.lane.reserve.batch.size")
+                .description("Reservations sent together for consecutive orders of one account")
+                .register(registry);
+        rejected = Counter.builder("order.lane.rejected")
+                .description("Commands rejected because their lane was full")
+                .register(registry);
+        Gauge.builder("order.lane.depth", this, AccountLanes::totalDepth)
+                .description("Commands waiting in all lanes")
+                .register(registry);
+        Gauge.builder("order.lane.depth.max", this, AccountLanes::maxLaneDepth)
+                .description("Commands waiting in the busiest lane")
+                .register(registry);
+        log.infof("Account lanes enabled: lanes=%d, maxDepth=%d, reserveBatch=%s(max %d)",
+                  laneCount, maxDepth, batchEnabled, maxBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param batchKey 같은 묶음에 넣지 않을 명령 구분 키 (idempotency key: 같은 키끼리는 서로를 기다리므로)
+     * @param command  시작될 때 호출됨. 묶음으로 시작하지 않으면 ReserveBatch는 null (직접 reserve)
+     */
+    public <T> Uni<T> submit(long accountId, Kind kind, String batchKey, Function<ReserveBatch, Uni<T>> command) {
+        Lane lane = lanes[Math.floorMod(Long.hashCode(accountId), lanes.length)];
+        return Uni.createFrom().emitter(emitter -> {
+            if (lane.depth.incrementAndGet() > maxDepth) {
+                lane.depth.decrementAndGet();
+                rejected.increment();
+                emitter.fail(Status.RESOURCE_EXHAUSTED.withDescription("Account lane full").asRuntimeException());
+                return;
+            }
+            lane.submit(new Job<>(accountId, kind, batchKey, command, emitter, System.nanoTime()));
+        });
+    }
+
+    private double totalDepth() {
+        long total = 0;
+        for (Lane lane : lanes) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+
+    private double maxLaneDepth() {
+        int max = 0;
+        for (Lane lane : lanes) {
+            max = Math.max(max, lane.depth.get());
+        }
+        return max;
+    }
+
+    private final class Lane {
+        private final Context context;
+        private final ConcurrentLinkedQueue<Job<?>> inbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // 아직 시작하지 않은 명령 수 (inbox + 계좌 대기열)
+        private final AtomicInteger depth = new AtomicInteger();
+
+        // lane context 전용: 실행 중인 계좌 → 그 뒤에 대기 중인 명령 (키가 있으면 실행 중)
+        private final Map<Long, ArrayDeque<Job<?>>> accounts = new HashMap<>();
+
+        Lane(Context context) {
+            this.context = context;
+        }
+
+        void submit(Job<?> job) {
+            inbox.offer(job);
+            if (scheduled.compareAndSet(false, true)) {
+                context.runOnContext(v -> drain());
+            }
+        }
+
+        private void drain() {
+            scheduled.set(false);
+            Job<?> job;
+            while ((job = inbox.poll()) != null) {
+                ArrayDeque<Job<?>> waiting = accounts.get(job.accountId());
+                if (waiting != null) {
+                    waiting.add(job);
+                } else {
+                    accounts.put(job.accountId(), new ArrayDeque<>());
+                    start(job.accountId(), List.of(job));
+                }
+            }
+        }
+
+        /**
+         * 계좌의 앞 명령(묶음)이 모두 끝남: 다음 명령 또는 연속된 PLACE 묶음을 시작
+         */
+        private void next(long accountId) {
+            ArrayDeque<Job<?>> waiting = accounts.get(accountId);
+            if (waiting.isEmpty()) {
+                accounts.remove(accountId);
+                return;
+            }
+            Job<?> first = waiting.poll();
+            if (!batchEnabled || first.kind() != Kind.PLACE || waiting.peek() == null
+                    || waiting.peek().kind() != Kind.PLACE) {
+                start(accountId, List.of(first));
+                return;
+            }
+            List<Job<?>> group = new ArrayList<>();
+            Set<String> keys = new HashSet<>();
+            group.add(first);
+            keys.add(first.batchKey());
+            while (group.size() < maxBatchSize && waiting.peek() != null && waiting.peek().kind() == Kind.PLACE
+                    && !keys.contains(waiting.peek().batchKey())) {
+                Job<?> job = waiting.poll();
+                group.add(job);
+                keys.add(job.batchKey());
+            }
+            start(accountId, group);
+        }
+
+        private void start(long accountId, List<Job<?>> group) {
+            long now = System.nanoTime();
+            int[] remaining = {group.size()};
+            GroupReserve batch = group.size() > 1 ? new GroupReserve(group.size()) : null;
+            if (batch != null) {
+                vertx.setTimer(Math.max(1, batchMaxWait.toMillis()), id -> batch.flush());
+            }
+
+            for (Job<?> job : group) {
+                depth.decrementAndGet();
+                waitTimer.record(now - job.enqueuedNanos(), TimeUnit.NANOSECONDS);
+                GroupReserve.Slot slot = batch != null ? batch.slot() : null;
+                job.run(slot, () -> context.runOnContext(v -> {
+                    if (slot != null) {
+                        slot.finished();
+                    }
+                    if (--remaining[0] == 0) {
+                        next(accountId);
+                    }
+                }));
+            }
+        }
+    }
+
+    private record Job<T>(long accountId, Kind kind, String batchKey, Function<ReserveBatch, Uni<T>> command,
+                          UniEmitter<? super T> emitter, long enqueuedNanos) {
+
+        void run(ReserveBatch batch, Runnable finished) {
+            Uni<T> uni;
+            try {
+                uni = command.apply(batch);
+            } catch (Throwable t) {
+                uni = Uni.createFrom().failure(t);
+            }
+            uni.subscribe().with(
+                    item -> {
+                        emitter.complete(item);
+                        finished.run();
+                    },
+                    t -> {
+                        emitter.fail(t);
+                        finished.run();
+                    });
+        }
+    }
+
+    /**
+     * 묶음 하나의 reserve 모음. 모든 명령이 reserve를 보냈거나(대기) reserve 없이 끝나면 ReserveBatch 한 번으로 전송.
+     * max-wait가 지나면 그때까지 모인 것만 보내고, 그 뒤의 reserve는 각자 바로 보낸다.
+     * 명령들이 여러 스레드에서 reserve를 부르므로 synchronized로 보호한다.
+     */
+    private final class GroupReserve {
+        private final List<AccountCommand> commands = new ArrayList<>();
+        private final List<UniEmitter<? super CommonReply>> emitters = new ArrayList<>();
+        private int undecided;
+        private boolean flushed;
+
+        GroupReserve(int size) {
+            this.undecided = size;
+        }
+
+        Slot slot() {
+            return new Slot();
+        }
+
+        private Uni<CommonReply> add(AccountCommand command) {
+            return Uni.createFrom().emitter(emitter -> {
+                boolean late;
+                synchronized (this) {
+                    late = flushed;
+                    if (!late) {
+                        commands.add(command);
+                        emitters.add(emitter);
+                        undecided--;
+                    }
+                }
+                if (late) {
+                    send(List.of(command), List.of(emitter));
+                } else {
+                    flushIfReady();
+                }
+            });
+        }
+
+        private void skip() {
+            synchronized (this) {
+                undecided--;
+            }
+            flushIfReady();
+        }
+
+        private void flushIfReady() {
+            synchronized (this) {
+                if (undecided > 0) {
+                    return;
+                }
+            }
+            flush();
+        }
+
+        /**
+         * 모인 reserve를 보낸다. max-wait 타이머는 한 번만 울리므로, 아직 모인 게 없어도 flushed로 바꿔
+         * 이후의 reserve는 기다리지 않고 바로 보내게 한다.
+         */
+        void flush() {
+            List<AccountCommand> batch;
+            List<UniEmitter<? super CommonReply>> waiting;
+            synchronized (this) {
+                if (flushed) {
+                    return;
+                }
+                flushed = true;
+                if (commands.isEmpty()) {
+                    return;
+                }
+                batch = List.copyOf(commands);
+                waiting = List.copyOf(emitters);
+            }
+            send(batch, waiting);
+        }
+
+        private void send(List<AccountCommand> batch, List<UniEmitter<? super CommonReply>> waiting) {
+            batchSize.record(batch.size());
+            accountClient.executeBatch(batch).subscribe().with(
+                    replies -> {
+                        for (int i = 0; i < waiting.size(); i++) {
+                            waiting.get(i).complete(replies.get(i));
+                        }
+                    },
+                    t -> waiting.forEach(emitter -> emitter.fail(t)));
+        }
+
+        final class Slot implements ReserveBatch {
+            private boolean reserved;
+
+            @Override
+            public Uni<CommonReply> reserve(AccountCommand command) {
+                synchronized (GroupReserve.this) {
+                    reserved = true;
+                }
+                return add(command);
+            }
+
+            /**
+             * lane context에서 명령이 끝난 뒤 호출. reserve 없이 끝난 명령(중복 요청, 검증 실패 등)은 기다리지 않게 뺀다.
+             */
+            void finished() {
+                boolean skip;
+                synchronized (GroupReserve.this) {
+                    skip = !reserved;
+                }
+                if (skip) {
+                    skip();
+                }
+            }
+        }
+    }
+}
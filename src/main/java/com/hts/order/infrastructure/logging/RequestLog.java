@@ -0,0 +1,194 @@
+package com.hts.order.infrastructure.logging;
+
+import com.hts.generated.grpc.CancelOrderRequest;
+import com.hts.generated.grpc.OrderResponse;
+import com.hts.generated.grpc.OrderStatus;
+import com.hts.generated.grpc.PlaceOrderRequest;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaceOrder/CancelOrder 요청 로그 (category: order.request).
+ *
+ * 요청이 끝날 때 key=value 한 줄을 남긴다. REJECTED 응답은 항상 남기고, 나머지는 mode에 따라
+ * 지정 계좌(accounts) 또는 비율(sample-rate)로 샘플링한다. 샘플링에서 빠진 요청은 난수 하나만 뽑고 끝난다.
+ * 호출 스레드는 {@link Line} 객체 하나만 만들어 넘기고(long boxing 없음), 문자열 포맷과 출력은
+ * application.properties의 전용 async 핸들러(REQUEST) 스레드가 맡는다.
+ *
+ * override-file을 지정하면 reload-interval마다 파일을 다시 읽어 재시작 없이 설정을 바꾼다.
+ * (ConfigMap 마운트 등, 키: mode, sample-rate, accounts)
+ */
+@ApplicationScoped
+public class RequestLog {
+
+    private static final Logger log = Logger.getLogger("order.request");
+
+    private static final int SAMPLE_SCALE = 1 << 24;
+    private static final int BUFFER_SIZE = 256;
+
+    public enum Mode { OFF, SAMPLED, ALL }
+
+    /**
+     * @param sampleThreshold [0, SAMPLE_SCALE) 난수가 이 값보다 작으면 기록
+     * @param accounts        정렬된 계좌 ID (항상 기록)
+     */
+    record Settings(Mode mode, int sampleThreshold, long[] accounts) {}
+
+    @Inject Vertx vertx;
+
+    @ConfigProperty(name = "order.request-log.mode", defaultValue = "SAMPLED")
+    Mode mode;
+
+    @ConfigProperty(name = "order.request-log.sample-rate", defaultValue = "0.01")
+    double sampleRate;
+
+    @ConfigProperty(name = "order.request-log.accounts")
+    Optional<String> accounts;
+
+    @ConfigProperty(name = "order.request-log.override-file")
+    Optional<String> overrideFile;
+
+    @ConfigProperty(name = "order.request-log.reload-interval", defaultValue = "PT10S")
+    Duration reloadInterval;
+
+    private volatile Settings settings = new Settings(Mode.SAMPLED, 0, new long[0]);
+    private volatile long overrideModified = -1;
+    private long timer = -1;
+
+    void onStart(@Observes StartupEvent ev) {
+        configure(mode, sampleRate, accounts.orElse(""));
+        if (overrideFile.isPresent()) {
+            timer = vertx.setPeriodic(reloadInterval.toMillis(), id -> reload(overrideFile.get()));
+        }
+        log.infof("Request log: mode=%s, sampleRate=%s, accounts=%d, overrideFile=%s",
+                  settings.mode(), sampleRate, settings.accounts().length, overrideFile.orElse("-"));
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (timer >= 0) {
+            vertx.cancelTimer(timer);
+        }
+    }
+
+    void configure(Mode mode, double sampleRate, String accounts) {
+        long[] ids = Arrays.stream(accounts.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .mapToLong(Long::parseLong)
+                .sorted()
+                .toArray();
+        double rate = Math.max(0.0, Math.min(1.0, sampleRate));
+        settings = new Settings(mode, (int) Math.round(rate * SAMPLE_SCALE), ids);
+    }
+
+    public void place(long accountId, PlaceOrderRequest request, OrderResponse response, long startNanos) {
+        if (shouldLog(accountId, response)) {
+            log.infof("%s", new Line(accountId, request, null, response, System.nanoTime() - startNanos));
+        }
+    }
+
+    public void cancel(long accountId, CancelOrderRequest request, OrderResponse response, long startNanos) {
+        if (shouldLog(accountId, response)) {
+            log.infof("%s", new Line(accountId, null, request, response, System.nanoTime() - startNanos));
+        }
+    }
+
+    boolean shouldLog(long accountId, OrderResponse response) {
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        if (response.getStatus() == OrderStatus.REJECTED) {
+            return true;
+        }
+        Settings current = settings;
+        return switch (current.mode()) {
+            case OFF -> false;
+            case ALL -> true;
+            case SAMPLED -> (current.accounts().length > 0 && Arrays.binarySearch(current.accounts(), accountId) >= 0)
+                    || ThreadLocalRandom.current().nextInt(SAMPLE_SCALE) < current.sampleThreshold();
+        };
+    }
+
+    /**
+     * 로그 한 줄. 요청/응답 protobuf는 불변이라 참조만 들고, 문자열은 async 핸들러 스레드가
+     * 메시지를 포맷할 때(toString) 만든다.
+     */
+    record Line(long accountId, PlaceOrderRequest place, CancelOrderRequest cancel,
+                OrderResponse response, long latencyNanos) {
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+            sb.append("rpc=").append(place != null ? "PlaceOrder" : "CancelOrder")
+              .append(" account=").append(accountId)
+              .append(" status=").append(response.getStatus().name())
+              .append(" orderId=").append(response.getOrderId())
+              .append(" latencyUs=").append(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            if (place != null) {
+                sb.append(" symbol=").append(place.getSymbol())
+                  .append(" side=").append(place.getSide().name())
+                  .append(" type=").append(place.getOrderType().name())
+                  .append(" qty=").append(place.getQuantity())
+                  .append(" price=").append(place.getPrice())
+                  .append(" key=").append(place.getIdempotencyKey());
+            } else {
+                sb.append(" cancelOrderId=").append(cancel.getOrderId())
+                  .append(" key=").append(cancel.getIdempotencyKey());
+            }
+            if (!response.getMessage().isEmpty()) {
+                sb.append(" message=\"").append(response.getMessage()).append('"');
+            }
+            return sb.toString();
+        }
+    }
+
+    private void reload(String path) {
+        vertx.fileSystem().props(path)
+            .chain(props -> {
+                if (props.lastModifiedTime() == overrideModified) {
+                    return Uni.createFrom().nullItem();
+                }
+                overrideModified = props.lastModifiedTime();
+                return vertx.fileSystem().readFile(path);
+            })
+            .subscribe().with(
+                buffer -> {
+                    if (buffer != null) {
+                        apply(path, buffer.toString());
+                    }
+                },
+                t -> log.warnf("Request log override not readable: %s (%s)", path, t.getMessage())
+            );
+    }
+
+    private void apply(String path, String content) {
+        Properties props = new Properties();
+        try {
+            props.load(new StringReader(content));
+            Mode newMode = Mode.valueOf(props.getProperty("mode", mode.name()).trim().toUpperCase(Locale.ROOT));
+            double newRate = Double.parseDouble(props.getProperty("sample-rate", String.valueOf(sampleRate)).trim());
+            configure(newMode, newRate, props.getProperty("accounts", accounts.orElse("")));
+            log.infof("Request log reloaded from %s: mode=%s, sampleRate=%s, accounts=%d",
+                      path, newMode, newRate, settings.accounts().length);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warnf("Invalid request log override %s, keeping current settings: %s", path, e.getMessage());
+        }
+    }
+}
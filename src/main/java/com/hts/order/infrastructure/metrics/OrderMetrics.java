@@ -0,0 +1,239 @@
+package com.hts.order.infrastructure.metrics;
+
+import com.hts.generated.grpc.OrderStatus;
+import com.hts.generated.grpc.Side;
+import com.hts.order.domain.model.ServiceResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 커맨드 파이프라인 계측.
+ *
+ * 모든 meter는 시작 시 (enum 조합별로) 미리 등록해 배열에 들고 있고, 요청 경로에서는 인덱스로만 꺼낸다.
+ * Timer는 SLO 경계(order.metrics.slo)와 percentile histogram을 같이 내보내므로
+ * histogram_quantile / SLO bucket 비율로 알림을 걸 수 있다.
+ *
+ * - order.command{operation, side, outcome}          요청 전체 지연
+ * - order.command.rejected{operation, side, reason}  REJECTED 응답 사유별 건수
+ * - order.command.stage{stage, side, outcome}        단계별 지연
+ * - order.command.timeout{stage}                     @Timeout으로 끊긴 단계 호출
+ * - order.account.rpc.attempts{rpc}                  account RPC 시도 수 (@Retry 재시도 포함)
+ * - order.compensation{type, outcome}                보상(reserve 해제) 실행
+ */
+@ApplicationScoped
+public class OrderMetrics {
+
+    public enum Operation { PLACE, CANCEL }
+
+    public enum Stage { IDEMPOTENCY_ACQUIRE, ACCOUNT_RESERVE, PERSIST, CANCEL_UPDATE, ACCOUNT_RELEASE }
+
+    public enum Outcome { ACCEPTED, REJECTED, REPLAYED, FAILED }
+
+    public enum AccountRpc { RESERVE_CASH, RESERVE_POSITION, RELEASE_CASH, RELEASE_POSITION }
+
+    public enum Compensation { CASH, POSITION }
+
+    /**
+     * REJECTED 메시지 -> 태그 (메시지를 그대로 태그로 쓰면 카디널리티가 열려 있으므로 고정 집합으로 매핑)
+     */
+    public enum Reason {
+        INVALID_REQUEST, IN_PROGRESS, PREVIOUSLY_FAILED, INSUFFICIENT_FUNDS, INSUFFICIENT_POSITION,
+        ACCOUNT_UNAVAILABLE, ORDER_NOT_FOUND, OTHER;
+
+        public static Reason of(String message) {
+            return switch (message) {
+                case "Idempotency key required", "Invalid side" -> INVALID_REQUEST;
+                case "Processing" -> IN_PROGRESS;
+                case "Previously failed" -> PREVIOUSLY_FAILED;
+                case "Insufficient funds" -> INSUFFICIENT_FUNDS;
+                case "Insufficient position" -> INSUFFICIENT_POSITION;
+                case "Account service unavailable" -> ACCOUNT_UNAVAILABLE;
+                case "Order not found or database error" -> ORDER_NOT_FOUND;
+                default -> OTHER;
+            };
+        }
+    }
+
+    // side 태그: BUY, SELL, NONE (취소 요청처럼 side를 모르는 경우)
+    private static final String[] SIDES = {"BUY", "SELL", "NONE"};
+    private static final int SIDE_NONE = 2;
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.metrics.slo", defaultValue = "PT0.01S,PT0.05S,PT0.1S,PT0.25S,PT0.5S")
+    List<Duration> slo;
+
+    private Timer[][][] commands;
+    private Counter[][][] rejected;
+    private Timer[][][] stages;
+    private Counter[] timeouts;
+    private Counter[] accountAttempts;
+    private Timer[][] compensations;
+
+    public OrderMetrics() {
+    }
+
+    /**
+     * CDI 밖(벤치마크 등)에서 생성할 때
+     */
+    public OrderMetrics(MeterRegistry registry, List<Duration> slo) {
+        this.registry = registry;
+        this.slo = slo;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        Operation[] operations = Operation.values();
+        Outcome[] outcomes = Outcome.values();
+        Reason[] reasons = Reason.values();
+        Stage[] stageValues = Stage.values();
+
+        commands = new Timer[operations.length][SIDES.length][outcomes.length];
+        rejected = new Counter[operations.length][SIDES.length][reasons.length];
+        for (Operation operation : operations) {
+            for (int side = 0; side < SIDES.length; side++) {
+                for (Outcome outcome : outcomes) {
+                    commands[operation.ordinal()][side][outcome.ordinal()] = timer("order.command")
+                            .description("End-to-end order command latency")
+                            .tag("operation", tag(operation))
+                            .tag("side", SIDES[side])
+                            .tag("outcome", tag(outcome))
+                            .register(registry);
+                }
+                for (Reason reason : reasons) {
+                    rejected[operation.ordinal()][side][reason.ordinal()] = Counter.builder("order.command.rejected")
+                            .description("Order commands answered with REJECTED, by reason")
+                            .tag("operation", tag(operation))
+                            .tag("side", SIDES[side])
+                            .tag("reason", tag(reason))
+                            .register(registry);
+                }
+            }
+        }
+
+        stages = new Timer[stageValues.length][SIDES.length][2];
+        timeouts = new Counter[stageValues.length];
+        for (Stage stage : stageValues) {
+            for (int side = 0; side < SIDES.length; side++) {
+                for (int failed = 0; failed < 2; failed++) {
+                    stages[stage.ordinal()][side][failed] = timer("order.command.stage")
+                            .description("Latency of a single order pipeline stage")
+                            .tag("stage", tag(stage))
+                            .tag("side", SIDES[side])
+                            .tag("outcome", failed == 0 ? "success" : "failure")
+                            .register(registry);
+                }
+            }
+            timeouts[stage.ordinal()] = Counter.builder("order.command.timeout")
+                    .description("Stage calls cut off by a fault-tolerance @Timeout")
+                    .tag("stage", tag(stage))
+                    .register(registry);
+        }
+
+        accountAttempts = new Counter[AccountRpc.values().length];
+        for (AccountRpc rpc : AccountRpc.values()) {
+            accountAttempts[rpc.ordinal()] = Counter.builder("order.account.rpc.attempts")
+                    .description("Account RPC attempts including @Retry re-invocations")
+                    .tag("rpc", tag(rpc))
+                    .register(registry);
+        }
+
+        compensations = new Timer[Compensation.values().length][2];
+        for (Compensation type : Compensation.values()) {
+            for (int failed = 0; failed < 2; failed++) {
+                compensations[type.ordinal()][failed] = timer("order.compensation")
+                        .description("Reserve releases executed to compensate a failed order write")
+                        .tag("type", tag(type))
+                        .tag("outcome", failed == 0 ? "success" : "failure")
+                        .register(registry);
+            }
+        }
+    }
+
+    /**
+     * 요청 전체 결과 기록. 호출부에서 {@link System#nanoTime()}으로 잡은 시작 시각을 넘긴다.
+     */
+    public void recordCommand(Operation operation, Side side, long startNanos, ServiceResult result, boolean replayed) {
+        int sideIndex = sideIndex(side);
+        Outcome outcome;
+        if (replayed) {
+            outcome = Outcome.REPLAYED;
+        } else if (result.status() == OrderStatus.REJECTED) {
+            outcome = Outcome.REJECTED;
+        } else {
+            outcome = Outcome.ACCEPTED;
+        }
+        if (result.status() == OrderStatus.REJECTED) {
+            rejected[operation.ordinal()][sideIndex][Reason.of(result.message()).ordinal()].increment();
+        }
+        commands[operation.ordinal()][sideIndex][outcome.ordinal()]
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCommandFailure(Operation operation, Side side, long startNanos) {
+        commands[operation.ordinal()][sideIndex(side)][Outcome.FAILED.ordinal()]
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 단계 Uni의 지연을 기록. 시작 시각은 이 메서드를 부른 시점이므로,
+     * 조립 즉시 구독되는 체인(transformToUni/chain 안) 에서만 쓴다.
+     */
+    public <T> Uni<T> timeStage(Stage stage, Side side, Uni<T> uni) {
+        long start = System.nanoTime();
+        int sideIndex = sideIndex(side);
+        return uni.onItemOrFailure().invoke((item, failure) -> {
+            stages[stage.ordinal()][sideIndex][failure == null ? 0 : 1]
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (failure instanceof TimeoutException) {
+                timeouts[stage.ordinal()].increment();
+            }
+        });
+    }
+
+    public void accountAttempt(AccountRpc rpc) {
+        accountAttempts[rpc.ordinal()].increment();
+    }
+
+    public <T> Uni<T> timeCompensation(Compensation type, Uni<T> uni) {
+        long start = System.nanoTime();
+        return uni.onItemOrFailure().invoke((item, failure) ->
+                compensations[type.ordinal()][failure == null ? 0 : 1]
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private Timer.Builder timer(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(slo.toArray(Duration[]::new))
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+
+    private static int sideIndex(Side side) {
+        return switch (side) {
+            case BUY -> 0;
+            case SELL -> 1;
+            default -> SIDE_NONE;
+        };
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
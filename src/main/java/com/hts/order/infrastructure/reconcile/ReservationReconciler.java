@@ -0,0 +1,236 @@
+package com.hts.order.infrastructure.reconcile;
+
+import com.hts.generated.grpc.account.order.ListReservationsReply;
+import com.hts.generated.grpc.account.order.Reservation;
+import com.hts.generated.grpc.account.order.ReservationType;
+import com.hts.order.api.grpc.AccountGrpcClient;
+import com.hts.order.infrastructure.CompensationExecutor;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask.Type;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 고아 reserve 정리 (docs/문제점.md: reserve 성공 후 주문 기록 전에 프로세스가 죽은 경우).
+ *
+ * account-service의 미해제 reserve를 ListReservations로 한 페이지씩 받아, 페이지마다
+ * orders / compensation_tasks와 anti-join해서 어디에도 없는 reserve를 보상 큐에 RELEASE로 넣는다.
+ * 메모리에는 한 페이지만 올라오므로 orders 크기와 무관하게 돈다.
+ *
+ * grace-period 안에 만들어진 reserve는 아직 주문 기록 중일 수 있으므로 보지 않는다
+ * (요청 타임아웃, group commit 지연보다 충분히 길게). 잘못된 대상(다른 환경의 DB 등)에 붙었을 때
+ * 대량 해제를 막기 위해 한 번에 max-releases-per-run을 넘으면 그 run을 중단한다.
+ * 기본값은 꺼져 있고, 켜더라도 dry-run을 풀기 전까지는 찾기만 하고 해제하지 않는다.
+ */
+@ApplicationScoped
+public class ReservationReconciler {
+
+    private static final Logger log = Logger.getLogger(ReservationReconciler.class);
+
+    private static final String ORPHANED = "ORPHANED";
+
+    @Inject Vertx vertx;
+    @Inject AccountGrpcClient accountClient;
+    @Inject CompensationTaskRepository taskRepository;
+    @Inject CompensationExecutor compensationExecutor;
+    @Inject MeterRegistry registry;
+
+    @ConfigProperty(name = "order.reservation.reconcile.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.reservation.reconcile.interval", defaultValue = "PT10M")
+    Duration interval;
+
+    @ConfigProperty(name = "order.reservation.reconcile.grace-period", defaultValue = "PT10M")
+    Duration gracePeriod;
+
+    @ConfigProperty(name = "order.reservation.reconcile.page-size", defaultValue = "1000")
+    int pageSize;
+
+    @ConfigProperty(name = "order.reservation.reconcile.page-pause", defaultValue = "PT0.05S")
+    Duration pagePause;
+
+    @ConfigProperty(name = "order.reservation.reconcile.max-releases-per-run", defaultValue = "1000")
+    int maxReleasesPerRun;
+
+    @ConfigProperty(name = "order.reservation.reconcile.dry-run", defaultValue = "true")
+    boolean dryRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private long timer = -1;
+
+    private Counter scannedCounter;
+    private Counter orphanCounter;
+    private Timer runTimer;
+
+    void onStart(@Observes StartupEvent ev) {
+        scannedCounter = Counter.builder("order.reservation.reconcile.scanned")
+                .description("Account-side reservations checked against orders")
+                .register(registry);
+        orphanCounter = Counter.builder("order.reservation.reconcile.orphans")
+                .description("Reservations without an order, queued for release")
+                .register(registry);
+        runTimer = Timer.builder("order.reservation.reconcile.run")
+                .description("Duration of a full reconciliation pass")
+                .register(registry);
+
+        if (!enabled) {
+            log.info("Reservation reconciler disabled");
+            return;
+        }
+        timer = vertx.setPeriodic(interval.toMillis(), id -> reconcile());
+        log.infof("Reservation reconciler started: interval=%s, gracePeriod=%s, pageSize=%d, dryRun=%s",
+                  interval, gracePeriod, pageSize, dryRun);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (timer >= 0) {
+            vertx.cancelTimer(timer);
+        }
+    }
+
+    private void reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        RunStats stats = new RunStats();
+
+        runOnce(stats)
+            .subscribe().with(
+                v -> {
+                    running.set(false);
+                    runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (stats.orphans > 0 || stats.aborted) {
+                        log.warnf("Reservation reconcile finished: scanned=%d, orphans=%d, aborted=%s, dryRun=%s",
+                                  stats.scanned, stats.orphans, stats.aborted, dryRun);
+                    } else {
+                        log.debugf("Reservation reconcile finished: scanned=%d", stats.scanned);
+                    }
+                },
+                t -> {
+                    running.set(false);
+                    log.errorf(t, "Reservation reconcile failed: scanned=%d, orphans=%d",
+                               stats.scanned, stats.orphans);
+                }
+            );
+    }
+
+    /**
+     * 처음부터 마지막 페이지까지 한 번 훑는다 (중단 시 그 페이지에서 멈춤)
+     */
+    Uni<Void> runOnce(RunStats stats) {
+        long createdBefore = System.currentTimeMillis() - gracePeriod.toMillis();
+        return scanFrom("", createdBefore, stats);
+    }
+
+    private Uni<Void> scanFrom(String after, long createdBefore, RunStats stats) {
+        return accountClient.listReservations(after, pageSize, createdBefore)
+            .chain(page -> reconcilePage(page, createdBefore, stats)
+                .chain(() -> {
+                    String next = page.getNextReserveId();
+                    if (next.isEmpty() || stats.aborted) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    return Uni.createFrom().voidItem()
+                        .onItem().delayIt().by(pagePause)
+                        .chain(() -> scanFrom(next, createdBefore, stats));
+                }));
+    }
+
+    private Uni<Void> reconcilePage(ListReservationsReply page, long createdBefore, RunStats stats) {
+        Map<String, Reservation> candidates = new HashMap<>(page.getReservationsCount() * 2);
+        for (Reservation reservation : page.getReservationsList()) {
+            // 서버가 created_before를 무시하더라도 grace 안의 reserve는 건드리지 않는다
+            if (reservation.getCreatedAtEpochMs() <= createdBefore) {
+                candidates.put(reservation.getReserveId(), reservation);
+            }
+        }
+        stats.scanned += candidates.size();
+        scannedCounter.increment(candidates.size());
+        if (candidates.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+
+        String[] reserveIds = candidates.keySet().toArray(String[]::new);
+        Long[] orderIds = new Long[reserveIds.length];
+        for (int i = 0; i < reserveIds.length; i++) {
+            orderIds[i] = parseOrderId(candidates.get(reserveIds[i]).getOrderId());
+        }
+        return taskRepository.findUntracked(reserveIds, orderIds)
+            .chain(untracked -> {
+                if (untracked.isEmpty()) {
+                    return Uni.createFrom().voidItem();
+                }
+                if (stats.orphans + untracked.size() > maxReleasesPerRun) {
+                    stats.aborted = true;
+                    log.errorf("Reservation reconcile aborted: orphans would exceed %d (found %d so far, %d in this page)",
+                               maxReleasesPerRun, stats.orphans, untracked.size());
+                    return Uni.createFrom().voidItem();
+                }
+
+                List<CompensationTask> tasks = new ArrayList<>(untracked.size());
+                for (String reserveId : untracked) {
+                    Reservation reservation = candidates.get(reserveId);
+                    Type type = typeOf(reservation.getType());
+                    if (type == null) {
+                        log.warnf("Orphaned reservation with unknown type skipped: reserveId=%s, accountId=%d",
+                                  reserveId, reservation.getAccountId());
+                        continue;
+                    }
+                    log.warnf("Orphaned reservation: reserveId=%s, accountId=%d, orderId=%s, type=%s, createdAt=%d",
+                              reserveId, reservation.getAccountId(), reservation.getOrderId(),
+                              type, reservation.getCreatedAtEpochMs());
+                    tasks.add(CompensationTask.of(type, reservation.getAccountId(), reserveId,
+                                                  parseOrderId(reservation.getOrderId()), ORPHANED));
+                }
+                stats.orphans += tasks.size();
+                orphanCounter.increment(tasks.size());
+                if (dryRun || tasks.isEmpty()) {
+                    return Uni.createFrom().voidItem();
+                }
+                return compensationExecutor.enqueue(tasks);
+            });
+    }
+
+    private static Type typeOf(ReservationType type) {
+        return switch (type) {
+            case RESERVATION_CASH -> Type.RELEASE_CASH;
+            case RESERVATION_POSITION -> Type.RELEASE_POSITION;
+            default -> null;
+        };
+    }
+
+    private static long parseOrderId(String orderId) {
+        try {
+            return Long.parseLong(orderId);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static final class RunStats {
+        long scanned;
+        long orphans;
+        boolean aborted;
+    }
+}
@@ -0,0 +1,201 @@
+package com.hts.order.infrastructure.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * compensation_tasks 큐.
+ * 요청 트랜잭션이 실패한 뒤에 기록하므로 주문 트랜잭션과 무관하게 pool에서 바로 실행한다.
+ */
+@ApplicationScoped
+public class CompensationTaskRepository {
+
+    @Inject PgPool client;
+
+    /**
+     * 여러 작업을 multi-row INSERT 한 번으로 등록. 같은 (reserve_id, task_type)이 이미 있으면 무시한다.
+     */
+    public Uni<Void> enqueue(List<CompensationTask> tasks) {
+        int n = tasks.size();
+        String[] types = new String[n];
+        Long[] accountIds = new Long[n];
+        String[] reserveIds = new String[n];
+        Long[] orderIds = new Long[n];
+        String[] reasons = new String[n];
+        for (int i = 0; i < n; i++) {
+            CompensationTask task = tasks.get(i);
+            types[i] = task.type().name();
+            accountIds[i] = task.accountId();
+            reserveIds[i] = task.reserveId();
+            orderIds[i] = task.orderId();
+            reasons[i] = task.reason();
+        }
+
+        return client.preparedQuery("""
+            INSERT INTO compensation_tasks (task_type, account_id, reserve_id, order_id, reason)
+            SELECT * FROM unnest($1::varchar[], $2::bigint[], $3::varchar[], $4::bigint[], $5::varchar[])
+            ON CONFLICT (reserve_id, task_type) DO NOTHING
+            """)
+            .execute(Tuple.of(types, accountIds, reserveIds, orderIds, reasons))
+            .replaceWithVoid();
+    }
+
+    /**
+     * 실행할 때가 된 PENDING 작업을 lease 기간 동안 선점한다 (attempts 증가, available_at = NOW() + lease).
+     * 선점한 워커가 결과를 기록하기 전에 죽으면 lease가 끝난 뒤 다른 워커가 다시 가져간다.
+     */
+    public Uni<List<CompensationTask>> claimDue(int batchSize, Duration lease) {
+        return client.preparedQuery("""
+            UPDATE compensation_tasks t
+            SET attempts = t.attempts + 1,
+                available_at = NOW() + make_interval(secs => $2::int)
+            FROM (
+                SELECT id FROM compensation_tasks
+                WHERE status = 'PENDING' AND available_at <= NOW()
+                ORDER BY available_at
+                LIMIT $1
+                FOR UPDATE SKIP LOCKED
+            ) due
+            WHERE t.id = due.id
+            RETURNING t.id, t.task_type, t.account_id, t.reserve_id, t.order_id, t.reason, t.attempts,
+                      (EXTRACT(EPOCH FROM (NOW() - t.created_at)) * 1000)::BIGINT AS age_millis
+            """)
+            .execute(Tuple.of(batchSize, (int) lease.toSeconds()))
+            .map(rows -> {
+                List<CompensationTask> tasks = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    tasks.add(new CompensationTask(
+                        row.getLong("id"),
+                        CompensationTask.Type.valueOf(row.getString("task_type")),
+                        row.getLong("account_id"),
+                        row.getString("reserve_id"),
+                        row.getLong("order_id"),
+                        row.getString("reason"),
+                        row.getInteger("attempts"),
+                        row.getLong("age_millis")
+                    ));
+                }
+                return tasks;
+            });
+    }
+
+    public Uni<Void> markDone(Long[] ids) {
+        return client.preparedQuery("""
+            UPDATE compensation_tasks
+            SET status = 'DONE', completed_at = NOW(), last_error = NULL
+            WHERE id = ANY($1)
+            """)
+            .execute(Tuple.of(ids))
+            .replaceWithVoid();
+    }
+
+    /**
+     * 행마다 다른 backoff(ms)로 다시 PENDING 대기열에 넣는다.
+     */
+    public Uni<Void> reschedule(Long[] ids, Long[] delayMillis, String[] errors) {
+        return client.preparedQuery("""
+            UPDATE compensation_tasks t
+            SET available_at = NOW() + u.delay_ms * INTERVAL '1 millisecond',
+                last_error = u.error
+            FROM unnest($1::bigint[], $2::bigint[], $3::text[]) AS u(id, delay_ms, error)
+            WHERE t.id = u.id
+            """)
+            .execute(Tuple.of(ids, delayMillis, errors))
+            .replaceWithVoid();
+    }
+
+    /**
+     * 재시도해도 풀리지 않는 작업. 운영자가 확인할 수 있도록 행은 남겨 둔다.
+     */
+    public Uni<Void> markFailed(Long[] ids, String[] errors) {
+        return client.preparedQuery("""
+            UPDATE compensation_tasks t
+            SET status = 'FAILED', completed_at = NOW(), last_error = u.error
+            FROM unnest($1::bigint[], $2::text[]) AS u(id, error)
+            WHERE t.id = u.id
+            """)
+            .execute(Tuple.of(ids, errors))
+            .replaceWithVoid();
+    }
+
+    /**
+     * PENDING 작업 수와 가장 오래된 작업의 나이(ms)
+     */
+    public Uni<QueueStats> stats() {
+        return client.preparedQuery("""
+            SELECT COUNT(*) AS depth,
+                   COALESCE((EXTRACT(EPOCH FROM (NOW() - MIN(created_at))) * 1000)::BIGINT, 0) AS oldest_millis
+            FROM compensation_tasks
+            WHERE status = 'PENDING'
+            """)
+            .execute()
+            .map(rows -> {
+                Row row = rows.iterator().next();
+                return new QueueStats(row.getLong("depth"), row.getLong("oldest_millis"));
+            });
+    }
+
+    /**
+     * reserve_id 묶음 중 orders에도 compensation_tasks에도 없는 것만 반환 (reconciliation용).
+     * orders는 order_id로 파티셔닝되어 있으므로 account-service가 알려준 order_id로 먼저 찾고(파티션 1개),
+     * 거기서 못 찾은 것만 idx_orders_reserve_id로 전체 파티션을 본다 (order_id가 없거나 틀린 reserve).
+     * 비용이 orders 전체 크기가 아니라 묶음 크기에 비례한다.
+     *
+     * @param orderIds reserveIds와 같은 순서, 모르면 0
+     */
+    public Uni<List<String>> findUntracked(String[] reserveIds, Long[] orderIds) {
+        return client.preparedQuery("""
+            SELECT r.reserve_id
+            FROM unnest($1::varchar[], $2::bigint[]) AS r(reserve_id, order_id)
+            WHERE NOT EXISTS (SELECT 1 FROM orders o WHERE o.order_id = r.order_id AND o.reserve_id = r.reserve_id)
+              AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.reserve_id = r.reserve_id)
+              AND NOT EXISTS (SELECT 1 FROM compensation_tasks c WHERE c.reserve_id = r.reserve_id)
+            """)
+            .execute(Tuple.of(reserveIds, orderIds))
+            .map(rows -> {
+                List<String> untracked = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    untracked.add(row.getString("reserve_id"));
+                }
+                return untracked;
+            });
+    }
+
+    public Uni<Integer> pruneDone(Duration retention, int batchSize) {
+        return client.preparedQuery("""
+            DELETE FROM compensation_tasks
+            WHERE id IN (
+                SELECT id FROM compensation_tasks
+                WHERE status = 'DONE' AND completed_at < NOW() - make_interval(secs => $1::int)
+                LIMIT $2
+            )
+            """)
+            .execute(Tuple.of((int) retention.toSeconds(), batchSize))
+            .map(rows -> rows.rowCount());
+    }
+
+    /**
+     * @param id        등록 전에는 0
+     * @param attempts  선점 시점까지의 실행 횟수 (이번 실행 포함)
+     * @param ageMillis 등록 후 경과 시간
+     */
+    public record CompensationTask(long id, Type type, long accountId, String reserveId, long orderId,
+                                   String reason, int attempts, long ageMillis) {
+
+        public enum Type { RELEASE_CASH, RELEASE_POSITION }
+
+        public static CompensationTask of(Type type, long accountId, String reserveId, long orderId, String reason) {
+            return new CompensationTask(0, type, accountId, reserveId, orderId, reason, 0, 0);
+        }
+    }
+
+    public record QueueStats(long depth, long oldestMillis) {}
+}
@@ -1,42 +1,170 @@
 package com.hts.order.infrastructure.repository;
 
+import com.hts.generated.grpc.OrderStatus;
+import com.hts.order.domain.model.ResponsePayloads;
+import com.hts.order.domain.model.ServiceResult;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.mutiny.pgclient.PgPool;
 import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+
 @ApplicationScoped
 public class IdempotencyRepository {
 
     private static final Logger log = Logger.getLogger(IdempotencyRepository.class);
 
+    private static final byte[] STALE_PROCESSING = ResponsePayloads.failure("Stale processing");
+
     @Inject PgPool client;
 
-    public Uni<Boolean> tryAcquireLock(String idempotencyKey, long accountId) {
+    @ConfigProperty(name = "order.idempotency.retention.dedup-window", defaultValue = "PT24H")
+    Duration dedupWindow;
+
+    /**
+     * 키 선점과 기존 결과 조회를 한 statement로 처리 (ON CONFLICT DO NOTHING + fallback SELECT).
+     * 중복 키를 예외로 감지하지 않으므로 duplicate 요청도 1 round trip으로 끝난다.
+     * idempotency_keys는 created_day로 파티셔닝되어 PK가 (idempotency_key, created_day)이므로,
+     * 오늘 파티션의 중복은 ON CONFLICT로, dedup window 안의 이전 날짜는 prior 조회로 걸러낸다.
+     * FAILED 키(reserve 거절, stale PROCESSING 정리 등)는 같은 계좌의 재시도가 retry로 다시 선점한다.
+     * 동시에 두 재시도가 들어오면 하나만 선점하고 나머지는 IN_PROGRESS를 받는다.
+     */
+    public Uni<AcquireResult> acquire(String idempotencyKey, long accountId) {
         return client.preparedQuery("""
-            INSERT INTO idempotency_keys (idempotency_key, account_id, status)
-            VALUES ($1, $2, 'PROCESSING')
+            WITH prior AS (
+                SELECT status, account_id, order_id, response, response_payload
+                FROM idempotency_keys
+                WHERE idempotency_key = $1
+                  AND created_day >= (NOW() - make_interval(secs => $3::int))::date
+                  AND created_day < CURRENT_DATE
+                  AND created_at >= NOW() - make_interval(secs => $3::int)
+                LIMIT 1
+            ),
+            retry AS (
+                UPDATE idempotency_keys
+                SET status = 'PROCESSING', order_id = NULL, response = NULL, response_payload = NULL,
+                    created_at = NOW()
+                WHERE idempotency_key = $1 AND account_id = $2 AND status = 'FAILED'
+                  AND created_day >= (NOW() - make_interval(secs => $3::int))::date
+                  AND created_at >= NOW() - make_interval(secs => $3::int)
+                RETURNING idempotency_key
+            ),
+            ins AS (
+                INSERT INTO idempotency_keys (idempotency_key, account_id, status, created_day)
+                SELECT $1, $2, 'PROCESSING', CURRENT_DATE
+                WHERE NOT EXISTS (SELECT 1 FROM prior) AND NOT EXISTS (SELECT 1 FROM retry)
+                ON CONFLICT (idempotency_key, created_day) DO NOTHING
+                RETURNING idempotency_key
+            )
+            SELECT TRUE AS acquired, NULL::VARCHAR AS status, NULL::BIGINT AS order_id,
+                   NULL::BYTEA AS response, NULL::JSONB AS response_payload
+            FROM ins
+            UNION ALL
+            SELECT TRUE, NULL, NULL, NULL, NULL
+            FROM retry
+            UNION ALL
+            -- snapshot에는 FAILED로 보이지만 retry가 못 잡았으면 동시 재시도가 먼저 선점한 것
+            SELECT FALSE, CASE WHEN status = 'FAILED' AND account_id = $2 THEN 'PROCESSING' ELSE status END,
+                   order_id, response, response_payload
+            FROM prior
+            WHERE NOT EXISTS (SELECT 1 FROM retry)
+            UNION ALL
+            SELECT FALSE, CASE WHEN status = 'FAILED' AND account_id = $2 THEN 'PROCESSING' ELSE status END,
+                   order_id, response, response_payload
+            FROM idempotency_keys
+            WHERE idempotency_key = $1 AND created_day = CURRENT_DATE
+              AND NOT EXISTS (SELECT 1 FROM ins) AND NOT EXISTS (SELECT 1 FROM prior)
+              AND NOT EXISTS (SELECT 1 FROM retry)
             """)
-            .execute(Tuple.of(idempotencyKey, accountId))
-            .map(rowSet -> true)
-            .onFailure().recoverWithItem(ex -> {
-                if (ex.getMessage() != null && ex.getMessage().contains("duplicate key")) {
-                    return false;
+            .execute(Tuple.of(idempotencyKey, accountId, dedupWindowSeconds()))
+            .map(rows -> {
+                // 동시 INSERT가 이 statement의 snapshot 이후에 커밋되면 fallback SELECT가 비어 있을 수 있음
+                if (!rows.iterator().hasNext()) {
+                    return AcquireResult.IN_PROGRESS;
+                }
+                Row row = rows.iterator().next();
+                if (row.getBoolean("acquired")) {
+                    return AcquireResult.ACQUIRED;
                 }
-                throw new RuntimeException("Idempotency lock failed", ex);
+                return switch (row.getString("status")) {
+                    case "SUCCESS" -> new AcquireResult(AcquireState.SUCCEEDED, row.getLong("order_id"), null,
+                                                        responseOf(row));
+                    case "FAILED" -> new AcquireResult(AcquireState.FAILED, null, reasonOf(row), null);
+                    default -> AcquireResult.IN_PROGRESS;
+                };
             });
     }
 
+    /**
+     * crash 등으로 PROCESSING에 멈춘 키를 FAILED로 정리한다. 같은 키의 재시도는 acquire에서 다시 선점된다
+     */
+    public Uni<Integer> failStaleProcessing(Duration staleAfter) {
+        return client.preparedQuery("""
+            UPDATE idempotency_keys
+            SET status = 'FAILED', response = $3
+            WHERE status = 'PROCESSING'
+              AND created_at < NOW() - make_interval(secs => $1::int)
+              AND created_day >= (NOW() - make_interval(secs => $2::int))::date
+            """)
+            .execute(Tuple.of((int) staleAfter.toSeconds(), dedupWindowSeconds(), Buffer.buffer(STALE_PROCESSING)))
+            .map(rows -> rows.rowCount());
+    }
+
+    private int dedupWindowSeconds() {
+        return (int) dedupWindow.toSeconds();
+    }
+
+    /**
+     * 저장된 응답 바이트. V5 이전에 jsonb로 저장된 행은 protobuf로 변환해서 돌려준다
+     * (dedup window가 지나 기존 행이 사라지면 legacy 분기는 제거)
+     */
+    private static byte[] responseOf(Row row) {
+        var response = row.getBuffer("response");
+        if (response != null) {
+            return response.getBytes();
+        }
+        JsonObject legacy = row.getJsonObject("response_payload");
+        if (legacy == null || legacy.getJsonArray("results") == null) {
+            return null;
+        }
+        JsonArray items = legacy.getJsonArray("results");
+        ServiceResult[] results = new ServiceResult[items.size()];
+        for (int i = 0; i < results.length; i++) {
+            JsonObject item = items.getJsonObject(i);
+            results[i] = ServiceResult.of(OrderStatus.valueOf(item.getString("status")),
+                                          item.getLong("orderId", 0L), item.getString("message", ""));
+        }
+        return ResponsePayloads.encode(results);
+    }
+
+    private static String reasonOf(Row row) {
+        var response = row.getBuffer("response");
+        if (response != null) {
+            return ResponsePayloads.decode(response.getBytes()).message();
+        }
+        JsonObject legacy = row.getJsonObject("response_payload");
+        return legacy == null ? null : legacy.getString("error");
+    }
+
     public Uni<IdempotencyResult> findResult(String idempotencyKey) {
         return client.preparedQuery("""
-            SELECT order_id, status, response_payload
+            SELECT order_id, status, response, response_payload
             FROM idempotency_keys
             WHERE idempotency_key = $1
+              AND created_day >= (NOW() - make_interval(secs => $2::int))::date
+              AND created_at >= NOW() - make_interval(secs => $2::int)
+            ORDER BY created_at DESC
+            LIMIT 1
             """)
-            .execute(Tuple.of(idempotencyKey))
+            .execute(Tuple.of(idempotencyKey, dedupWindowSeconds()))
             .map(rows -> {
                 if (!rows.iterator().hasNext()) {
                     return null;
@@ -45,40 +173,92 @@ public class IdempotencyRepository {
                 return new IdempotencyResult(
                     row.getLong("order_id"),
                     row.getString("status"),
-                    row.getJsonObject("response_payload")
+                    responseOf(row)
                 );
             });
     }
 
-    public Uni<Void> updateSuccess(String idempotencyKey, long orderId, String responsePayload) {
+    /**
+     * 결과 갱신도 acquire와 같은 dedup window 범위의 파티션만 본다
+     * (window가 하루보다 길면 이틀 전 이전에 선점된 키도 갱신되어야 하므로 CURRENT_DATE 기준으로 자르지 않음)
+     */
+    public Uni<Void> updateSuccess(String idempotencyKey, long orderId, byte[] response) {
         return client.preparedQuery("""
             UPDATE idempotency_keys
-            SET status = 'SUCCESS', order_id = $1, response_payload = $2::jsonb
-            WHERE idempotency_key = $3
+            SET status = 'SUCCESS', order_id = $1, response = $2
+            WHERE idempotency_key = $3 AND created_day >= (NOW() - make_interval(secs => $4::int))::date
             """)
-            .execute(Tuple.of(orderId, responsePayload, idempotencyKey))
+            .execute(Tuple.of(orderId, Buffer.buffer(response), idempotencyKey, dedupWindowSeconds()))
             .replaceWithVoid();
     }
 
-    public Uni<Void> updateSuccessInTx(io.vertx.mutiny.sqlclient.SqlConnection conn, String idempotencyKey, long orderId, String responsePayload) {
+    public Uni<Void> updateSuccessInTx(io.vertx.mutiny.sqlclient.SqlConnection conn, String idempotencyKey, long orderId, byte[] response) {
         return conn.preparedQuery("""
             UPDATE idempotency_keys
-            SET status = 'SUCCESS', order_id = $1, response_payload = $2::jsonb
-            WHERE idempotency_key = $3
+            SET status = 'SUCCESS', order_id = $1, response = $2
+            WHERE idempotency_key = $3 AND created_day >= (NOW() - make_interval(secs => $4::int))::date
             """)
-            .execute(Tuple.of(orderId, responsePayload, idempotencyKey))
+            .execute(Tuple.of(orderId, Buffer.buffer(response), idempotencyKey, dedupWindowSeconds()))
+            .replaceWithVoid();
+    }
+
+    /**
+     * 그룹 커밋용 bulk SUCCESS 업데이트. 세 배열은 같은 인덱스끼리 한 건을 이룬다
+     */
+    public Uni<Void> updateSuccessBatchInTx(io.vertx.mutiny.sqlclient.SqlConnection conn, String[] idempotencyKeys,
+                                            Long[] orderIds, byte[][] responses) {
+        Buffer[] buffers = new Buffer[responses.length];
+        for (int i = 0; i < responses.length; i++) {
+            buffers[i] = Buffer.buffer(responses[i]);
+        }
+        return conn.preparedQuery("""
+            UPDATE idempotency_keys k
+            SET status = 'SUCCESS', order_id = u.order_id, response = u.response
+            FROM unnest($1::varchar[], $2::bigint[], $3::bytea[]) AS u(idempotency_key, order_id, response)
+            WHERE k.idempotency_key = u.idempotency_key
+              AND k.created_day >= (NOW() - make_interval(secs => $4::int))::date
+            """)
+            .execute(Tuple.tuple()
+                .addArrayOfString(idempotencyKeys)
+                .addArrayOfLong(orderIds)
+                .addValue(buffers)
+                .addInteger(dedupWindowSeconds()))
+            .replaceWithVoid();
+    }
+
+    /**
+     * 바스켓처럼 단일 order_id가 없는 요청의 결과 저장
+     */
+    public Uni<Void> updateResult(String idempotencyKey, byte[] response) {
+        return updateResultInTx(client, idempotencyKey, response);
+    }
+
+    public Uni<Void> updateResultInTx(io.vertx.mutiny.sqlclient.SqlClient conn, String idempotencyKey, byte[] response) {
+        return conn.preparedQuery("""
+            UPDATE idempotency_keys
+            SET status = 'SUCCESS', response = $1
+            WHERE idempotency_key = $2 AND created_day >= (NOW() - make_interval(secs => $3::int))::date
+            """)
+            .execute(Tuple.of(Buffer.buffer(response), idempotencyKey, dedupWindowSeconds()))
             .replaceWithVoid();
     }
 
     public Uni<Void> updateFailed(String idempotencyKey, String reason) {
         return client.preparedQuery("""
             UPDATE idempotency_keys
-            SET status = 'FAILED', response_payload = $1::jsonb
-            WHERE idempotency_key = $2
+            SET status = 'FAILED', response = $1
+            WHERE idempotency_key = $2 AND created_day >= (NOW() - make_interval(secs => $3::int))::date
             """)
-            .execute(Tuple.of(String.format("{\"error\":\"%s\"}", reason), idempotencyKey))
+            .execute(Tuple.of(Buffer.buffer(ResponsePayloads.failure(reason)), idempotencyKey, dedupWindowSeconds()))
             .replaceWithVoid();
     }
 
-    public record IdempotencyResult(Long orderId, String status, io.vertx.core.json.JsonObject responsePayload) {}
+    public record IdempotencyResult(Long orderId, String status, byte[] response) {}
+
+    public enum AcquireState { ACQUIRED, IN_PROGRESS, SUCCEEDED, FAILED }
+
+    public record AcquireResult(AcquireState state, Long orderId, String reason, byte[] response) {
+        static final AcquireResult ACQUIRED = new AcquireResult(AcquireState.ACQUIRED, null, null, null);
+        static final AcquireResult IN_PROGRESS = new AcquireResult(AcquireState.IN_PROGRESS, null, null, null);
+    }
 }
@@ -1,14 +1,20 @@
 package com.hts.order.infrastructure.repository;
 
-import com.hts.generated.events.order.OrderFillEvent;
+import com.hts.order.domain.model.FillDelta;
+import com.hts.order.exceptions.FillRejectedException;
 import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.pgclient.PgPool;
-import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 @ApplicationScoped
 public class OrderUpdateRepository {
 
@@ -17,61 +23,131 @@ public class OrderUpdateRepository {
     @Inject PgPool client;
 
     /**
-     * 주문을 FILLED 상태로 업데이트하고 order_history에 기록
+     * 체결 delta들을 한 문장으로 적용.
+     * 1. order_fills에 event_id로 기록 (이미 있으면 중복이므로 건너뜀)
+     * 2. 새로 기록된 delta를 주문별로 합산해서 조건부 UPDATE 1번
+     *    (누적 수량이 0 ~ quantity 범위를 벗어나거나 REJECTED 주문이면 적용 안 됨)
+     * 3. 바뀐 주문마다 order_history 1행
+     *
+     * 적용되지 못한 주문이 하나라도 있으면 FillRejectedException으로 트랜잭션 전체를 롤백한다.
+     * (order_fills에 기록만 되고 주문에 반영되지 않는 상태를 만들지 않기 위함)
      */
-    public Uni<Boolean> updateOrderToFilled(OrderFillEvent event) {
-        return client.withTransaction(conn -> {
-            // 1. orders 테이블 업데이트
-            return updateOrderStatus(conn, event)
-                .chain(updated -> {
-                    if (!updated) {
-                        LOG.warnf("Order not found or not in valid status: %s", event.getClientOrderId());
-                        return Uni.createFrom().item(false);
-                    }
-
-                    // 2. order_history에 기록
-                    return insertOrderHistory(conn, event)
-                        .replaceWith(true);
-                });
-        });
-    }
-
-    private Uni<Boolean> updateOrderStatus(SqlConnection conn, OrderFillEvent event) {
-        // 체결 수량 계산
-        long totalFilledQty = event.getFillsList().stream()
-            .mapToLong(fill -> fill.getQuantity())
-            .sum();
+    public Uni<FillResult> applyFills(List<FillDelta> deltas) {
+        int n = deltas.size();
+        String[] eventIds = new String[n];
+        Long[] orderIds = new Long[n];
+        String[] executionTypes = new String[n];
+        Long[] quantityDeltas = new Long[n];
+        Long[] notionalDeltas = new Long[n];
+        for (int i = 0; i < n; i++) {
+            FillDelta delta = deltas.get(i);
+            eventIds[i] = delta.eventId();
+            orderIds[i] = delta.orderId();
+            executionTypes[i] = delta.executionType().name();
+            quantityDeltas[i] = delta.quantityDelta();
+            notionalDeltas[i] = delta.notionalDelta();
+        }
 
-        return conn.preparedQuery("""
-            UPDATE orders
-            SET status = 'FILLED', filled_quantity = $1, updated_at = NOW()
-            WHERE order_id = $2 AND status IN ('RECEIVED', 'ACCEPTED', 'SENT')
+        return client.withTransaction(conn -> conn.preparedQuery("""
+            WITH input AS (
+                SELECT * FROM unnest($1::varchar[], $2::bigint[], $3::varchar[], $4::bigint[], $5::bigint[])
+                    AS t(event_id, order_id, execution_type, quantity_delta, notional_delta)
+            ),
+            ins AS (
+                INSERT INTO order_fills(event_id, order_id, execution_type, quantity_delta, notional_delta)
+                SELECT event_id, order_id, execution_type, quantity_delta, notional_delta FROM input
+                ON CONFLICT (event_id) DO NOTHING
+                RETURNING order_id, quantity_delta, notional_delta
+            ),
+            delta AS (
+                SELECT order_id, sum(quantity_delta)::bigint AS quantity_delta,
+                       sum(notional_delta)::bigint AS notional_delta, count(*) AS events
+                FROM ins GROUP BY order_id
+            ),
+            cur AS (
+                SELECT o.order_id, o.status
+                FROM orders o JOIN delta d ON d.order_id = o.order_id
+                FOR UPDATE OF o
+            ),
+            upd AS (
+                UPDATE orders o
+                SET filled_quantity = o.filled_quantity + d.quantity_delta,
+                    filled_notional = o.filled_notional + d.notional_delta,
+                    status = CASE
+                        WHEN o.filled_quantity + d.quantity_delta >= o.quantity THEN 'FILLED'
+                        WHEN o.status IN ('CANCEL_REQUESTED', 'CANCELED') THEN o.status
+                        WHEN o.filled_quantity + d.quantity_delta > 0 THEN 'PARTIALLY_FILLED'
+                        WHEN o.status IN ('PARTIALLY_FILLED', 'FILLED') THEN 'ACCEPTED'
+                        ELSE o.status
+                    END,
+                    updated_at = NOW()
+                FROM delta d JOIN cur c ON c.order_id = d.order_id
+                WHERE o.order_id = d.order_id
+                  AND o.status <> 'REJECTED'
+                  AND o.filled_quantity + d.quantity_delta BETWEEN 0 AND o.quantity
+                RETURNING o.order_id, o.account_id, o.status, c.status AS previous_status,
+                          o.quantity, o.price, o.filled_quantity, d.events, o.side, o.reserve_id
+            ),
+            hist AS (
+                INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity, reason)
+                SELECT order_id, account_id, status, previous_status, quantity, price, filled_quantity,
+                       'Fill applied (' || events || ' events)'
+                FROM upd
+            )
+            SELECT (SELECT count(*) FROM ins) AS inserted,
+                   (SELECT count(*) FROM upd) AS updated,
+                   ARRAY(SELECT order_id FROM delta EXCEPT SELECT order_id FROM upd) AS rejected,
+                   ARRAY(SELECT order_id FROM upd ORDER BY order_id) AS changed_ids,
+                   ARRAY(SELECT account_id FROM upd ORDER BY order_id) AS changed_accounts,
+                   ARRAY(SELECT side FROM upd ORDER BY order_id) AS changed_sides,
+                   ARRAY(SELECT reserve_id FROM upd ORDER BY order_id) AS changed_reserves,
+                   ARRAY(SELECT status FROM upd ORDER BY order_id) AS changed_statuses
             """)
-            .execute(Tuple.of(totalFilledQty, parseOrderId(event.getClientOrderId())))
-            .map(rows -> rows.rowCount() > 0);
+            .execute(Tuple.of(eventIds, orderIds, executionTypes, quantityDeltas, notionalDeltas))
+            .map(rows -> {
+                Row row = rows.iterator().next();
+                Long[] rejected = row.getArrayOfLongs("rejected");
+                if (rejected.length > 0) {
+                    LOG.warnf("Fill rejected: orderIds=%s", Arrays.toString(rejected));
+                    throw new FillRejectedException("Fill cannot be applied to orders " + Arrays.toString(rejected));
+                }
+                int inserted = row.getInteger("inserted");
+                Long[] ids = row.getArrayOfLongs("changed_ids");
+                Long[] accounts = row.getArrayOfLongs("changed_accounts");
+                String[] sides = row.getArrayOfStrings("changed_sides");
+                String[] reserves = row.getArrayOfStrings("changed_reserves");
+                String[] statuses = row.getArrayOfStrings("changed_statuses");
+                List<OrderState> changed = new ArrayList<>(ids.length);
+                for (int i = 0; i < ids.length; i++) {
+                    changed.add(new OrderState(ids[i], accounts[i], sides[i], reserves[i], statuses[i]));
+                }
+                return new FillResult(inserted, n - inserted, row.getInteger("updated"), changed);
+            }));
     }
 
-    private Uni<Void> insertOrderHistory(SqlConnection conn, OrderFillEvent event) {
-        long totalFilledQty = event.getFillsList().stream()
-            .mapToLong(fill -> fill.getQuantity())
-            .sum();
-
-        return conn.preparedQuery("""
-            INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity, reason)
-            SELECT order_id, account_id, 'FILLED', status, quantity, price, $1, 'Order filled by exchange'
-            FROM orders
-            WHERE order_id = $2
+    /**
+     * 보존 기간이 지난 order_fills를 batchSize 단위로 삭제 (긴 락/대량 WAL 방지)
+     */
+    public Uni<Integer> pruneFills(Duration retention, int batchSize) {
+        return client.preparedQuery("""
+            DELETE FROM order_fills
+            WHERE event_id IN (
+                SELECT event_id FROM order_fills
+                WHERE created_at < NOW() - make_interval(secs => $1::int)
+                LIMIT $2
+            )
             """)
-            .execute(Tuple.of(totalFilledQty, parseOrderId(event.getClientOrderId())))
-            .replaceWithVoid();
+            .execute(Tuple.of((int) retention.toSeconds(), batchSize))
+            .map(rows -> rows.rowCount());
     }
 
-    private long parseOrderId(String clientOrderId) {
-        try {
-            return Long.parseLong(clientOrderId);
-        } catch (NumberFormatException e) {
-            LOG.errorf("Invalid client_order_id format: %s", clientOrderId);
-            return 0L;
-        }
-    }
+    /**
+     * @param applied    새로 적용한 이벤트 수
+     * @param duplicates event_id가 이미 적용되어 있던 이벤트 수
+     * @param orders     상태가 바뀐 주문 수
+     * @param changed    바뀐 주문의 반영 후 상태
+     */
+    public record FillResult(int applied, int duplicates, int orders, List<OrderState> changed) {}
+
+    public record OrderState(long orderId, long accountId, String side, String reserveId, String status) {}
 }
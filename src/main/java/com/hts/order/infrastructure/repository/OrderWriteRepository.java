@@ -2,12 +2,14 @@ package com.hts.order.infrastructure.repository;
 
 import com.hts.order.domain.model.OrderEntity;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.mutiny.sqlclient.SqlConnection;
 import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 
 import java.util.Arrays;
+import java.util.List;
 
 @ApplicationScoped
 public class OrderWriteRepository {
@@ -60,25 +62,133 @@ public class OrderWriteRepository {
         String idempotencyKey = eventType + "-" + order.orderId() + "-" + System.currentTimeMillis();
         return conn.preparedQuery("""
            INSERT INTO outbox(aggregate_type, aggregate_id, event_type, payload, idempotency_key, status)
-           VALUES ($1, $2, $3, $4::jsonb, $5, 'PENDING')
+           VALUES ($1, $2, $3, $4, $5, 'PENDING')
         """)
         .execute(Tuple.of(
             "Order",
             order.orderId(),
             eventType,
-            new String(order.serializeForOutbox()),
+            Buffer.buffer(order.serializeForOutbox()),
             idempotencyKey
         ))
         .replaceWithVoid();
     }
 
+    /**
+     * 그룹 커밋용: 여러 주문을 unnest 기반 multi-row INSERT 3개로 기록 (orders, order_history, outbox)
+     */
+    public Uni<Void> insertOrdersBatch(SqlConnection conn, List<OrderEntity> orders, String eventType) {
+        int n = orders.size();
+        Long[] orderIds = new Long[n];
+        Long[] accountIds = new Long[n];
+        String[] symbols = new String[n];
+        String[] sides = new String[n];
+        String[] orderTypes = new String[n];
+        Long[] quantities = new Long[n];
+        Long[] prices = new Long[n];
+        String[] timeInForces = new String[n];
+        String[] statuses = new String[n];
+        String[] reserveIds = new String[n];
+        Buffer[] payloads = new Buffer[n];
+        String[] outboxKeys = new String[n];
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            OrderEntity order = orders.get(i);
+            orderIds[i] = order.orderId();
+            accountIds[i] = order.accountId();
+            symbols[i] = order.symbol();
+            sides[i] = order.side().name();
+            orderTypes[i] = order.orderType().name();
+            quantities[i] = order.quantity();
+            prices[i] = order.price();
+            timeInForces[i] = order.timeInForce().name();
+            statuses[i] = order.status().name();
+            reserveIds[i] = order.reserveId();
+            payloads[i] = Buffer.buffer(order.serializeForOutbox());
+            outboxKeys[i] = eventType + "-" + order.orderId() + "-" + now;
+        }
+
+        return conn.preparedQuery("""
+            INSERT INTO orders(order_id, account_id, symbol, side, order_type, quantity, price,
+                              time_in_force, status, reserve_id, filled_quantity)
+            SELECT order_id, account_id, symbol, side, order_type, quantity, price,
+                   time_in_force, status, reserve_id, 0
+            FROM unnest($1::bigint[], $2::bigint[], $3::varchar[], $4::varchar[], $5::varchar[],
+                        $6::bigint[], $7::bigint[], $8::varchar[], $9::varchar[], $10::varchar[])
+                 AS t(order_id, account_id, symbol, side, order_type, quantity, price,
+                      time_in_force, status, reserve_id)
+        """)
+        .execute(Tuple.tuple()
+            .addArrayOfLong(orderIds)
+            .addArrayOfLong(accountIds)
+            .addArrayOfString(symbols)
+            .addArrayOfString(sides)
+            .addArrayOfString(orderTypes)
+            .addArrayOfLong(quantities)
+            .addArrayOfLong(prices)
+            .addArrayOfString(timeInForces)
+            .addArrayOfString(statuses)
+            .addArrayOfString(reserveIds))
+        .chain(() -> conn.preparedQuery("""
+            INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity)
+            SELECT order_id, account_id, status, NULL, quantity, price, 0
+            FROM unnest($1::bigint[], $2::bigint[], $3::varchar[], $4::bigint[], $5::bigint[])
+                 AS t(order_id, account_id, status, quantity, price)
+        """)
+        .execute(Tuple.tuple()
+            .addArrayOfLong(orderIds)
+            .addArrayOfLong(accountIds)
+            .addArrayOfString(statuses)
+            .addArrayOfLong(quantities)
+            .addArrayOfLong(prices)))
+        .chain(() -> conn.preparedQuery("""
+            INSERT INTO outbox(aggregate_type, aggregate_id, event_type, payload, idempotency_key, status)
+            SELECT 'Order', aggregate_id, $1, payload, idempotency_key, 'PENDING'
+            FROM unnest($2::bigint[], $3::bytea[], $4::varchar[]) AS t(aggregate_id, payload, idempotency_key)
+        """)
+        .execute(Tuple.tuple()
+            .addString(eventType)
+            .addArrayOfLong(orderIds)
+            .addValue(payloads)
+            .addArrayOfString(outboxKeys)))
+        .replaceWithVoid();
+    }
+
+    /**
+     * 취소 상태 변경 + order_history + outbox를 writable CTE 한 문장으로 (round trip 1번).
+     * prev에서 행을 잠그고 읽으므로 history의 previous_status가 실제 이전 상태가 된다.
+     *
+     * @return 취소할 수 없는 주문(없음/계좌 불일치/이미 종결)이면 null
+     */
     public Uni<CancelResult> markCancelRequested(SqlConnection conn, long orderId, long accountId) {
         return conn.preparedQuery("""
-           UPDATE orders SET status = 'CANCEL_REQUESTED', updated_at = NOW()
-           WHERE order_id = $1 AND account_id = $2 AND status IN ('RECEIVED', 'ACCEPTED')
-           RETURNING side, reserve_id
+            WITH prev AS (
+                SELECT order_id, status FROM orders
+                WHERE order_id = $1 AND account_id = $2 AND status IN ('RECEIVED', 'ACCEPTED', 'PARTIALLY_FILLED')
+                FOR UPDATE
+            ),
+            upd AS (
+                UPDATE orders o SET status = 'CANCEL_REQUESTED', updated_at = NOW()
+                FROM prev
+                WHERE o.order_id = prev.order_id
+                RETURNING o.order_id, o.account_id, o.side, o.symbol, o.reserve_id, o.quantity, o.price,
+                          o.filled_quantity, prev.status AS previous_status
+            ),
+            hist AS (
+                INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity, reason)
+                SELECT order_id, account_id, 'CANCEL_REQUESTED', previous_status, quantity, price, filled_quantity, 'User requested'
+                FROM upd
+            ),
+            evt AS (
+                INSERT INTO outbox(aggregate_type, aggregate_id, event_type, payload, idempotency_key, status)
+                SELECT 'Order', order_id, 'ORDER_CANCEL_REQUESTED', ''::bytea,
+                       'ORDER_CANCEL_REQUESTED-' || order_id || '-' || $3::bigint, 'PENDING'
+                FROM upd
+            )
+            SELECT side, symbol, reserve_id FROM upd
         """)
-        .execute(Tuple.of(orderId, accountId))
+        .execute(Tuple.of(orderId, accountId, System.currentTimeMillis()))
         .map(rows -> {
             if (!rows.iterator().hasNext()) {
                 return null;
@@ -86,37 +196,11 @@ public class OrderWriteRepository {
             var row = rows.iterator().next();
             return new CancelResult(
                 row.getString("side"),
-                row.getString("reserve_id")
+                row.getString("reserve_id"),
+                row.getString("symbol")
             );
-        })
-        .call(result -> {
-            if (result != null) {
-                return insertCancelHistory(conn, orderId)
-                    .chain(() -> insertCancelOutbox(conn, orderId));
-            }
-            return Uni.createFrom().voidItem();
         });
     }
 
-    private Uni<Void> insertCancelHistory(SqlConnection conn, long orderId) {
-        return conn.preparedQuery("""
-            INSERT INTO order_history(order_id, account_id, status, previous_status, quantity, price, filled_quantity, reason)
-            SELECT order_id, account_id, 'CANCEL_REQUESTED', 'RECEIVED', quantity, price, filled_quantity, 'User requested'
-            FROM orders WHERE order_id = $1
-        """)
-        .execute(Tuple.of(orderId))
-        .replaceWithVoid();
-    }
-
-    private Uni<Void> insertCancelOutbox(SqlConnection conn, long orderId) {
-        String idempotencyKey = "ORDER_CANCEL_REQUESTED-" + orderId + "-" + System.currentTimeMillis();
-        return conn.preparedQuery("""
-            INSERT INTO outbox(aggregate_type, aggregate_id, event_type, payload, idempotency_key, status)
-            VALUES ($1, $2, $3, '{}'::jsonb, $4, 'PENDING')
-        """)
-        .execute(Tuple.of("Order", orderId, "ORDER_CANCEL_REQUESTED", idempotencyKey))
-        .replaceWithVoid();
-    }
-
-    public record CancelResult(String side, String reserveId) {}
+    public record CancelResult(String side, String reserveId, String symbol) {}
 }
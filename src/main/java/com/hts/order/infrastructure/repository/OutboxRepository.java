@@ -0,0 +1,87 @@
+package com.hts.order.infrastructure.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ApplicationScoped
+public class OutboxRepository {
+
+    /**
+     * PENDING 행을 lease 기간 동안 선점 (available_at = 현재 + lease). 한 문장이라 바로 커밋되므로
+     * Kafka ack를 기다리는 동안 행 잠금이나 트랜잭션을 잡고 있지 않는다.
+     * SKIP LOCKED 덕분에 여러 워커가 같은 행을 동시에 선점하지 않고, 발행 전에 워커가 죽으면 lease가 끝난 뒤 다시 발행된다.
+     */
+    public Uni<List<OutboxRecord>> claimPending(SqlConnection conn, int batchSize, long leaseMillis) {
+        return conn.preparedQuery("""
+            UPDATE outbox o
+            SET available_at = clock_timestamp() + $2 * INTERVAL '1 millisecond'
+            FROM (
+                SELECT id, created_at FROM outbox
+                WHERE status = 'PENDING' AND available_at <= NOW()
+                ORDER BY available_at
+                LIMIT $1
+                FOR UPDATE SKIP LOCKED
+            ) due
+            WHERE o.id = due.id AND o.created_at = due.created_at
+            RETURNING o.id, o.aggregate_id, o.event_type, o.payload, o.content_type
+        """)
+        .execute(Tuple.of(batchSize, leaseMillis))
+        .map(rows -> {
+            List<OutboxRecord> records = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                records.add(new OutboxRecord(
+                    row.getLong("id"),
+                    row.getLong("aggregate_id"),
+                    row.getString("event_type"),
+                    row.getBuffer("payload").getBytes(),
+                    row.getString("content_type")
+                ));
+            }
+            return records;
+        });
+    }
+
+    /**
+     * 발행 완료된 배치를 한 번의 UPDATE로 마킹하고, 행별 created_at → published_at 지연(µs)을 반환.
+     * NOW()는 트랜잭션 시작 시각이므로 published_at은 clock_timestamp()로 찍는다.
+     * (available_at은 선점 때 lease 만료 시각으로 바뀌므로 기준으로 쓰지 않음)
+     */
+    public Uni<long[]> markPublished(SqlConnection conn, Long[] ids) {
+        return conn.preparedQuery("""
+            UPDATE outbox
+            SET status = 'PUBLISHED', published_at = clock_timestamp()
+            WHERE id = ANY($1) AND status = 'PENDING'
+            RETURNING (EXTRACT(EPOCH FROM (published_at - created_at)) * 1000000)::BIGINT AS lag_micros
+        """)
+        .execute(Tuple.of(ids))
+        .map(rows -> {
+            long[] lags = new long[rows.size()];
+            int i = 0;
+            for (Row row : rows) {
+                lags[i++] = row.getLong("lag_micros");
+            }
+            return lags;
+        });
+    }
+
+    /**
+     * 발행에 실패한 배치의 lease를 풀어 다음 poll에서 다시 선점되게 한다
+     */
+    public Uni<Void> releaseClaim(SqlConnection conn, Long[] ids) {
+        return conn.preparedQuery("""
+            UPDATE outbox
+            SET available_at = NOW()
+            WHERE id = ANY($1) AND status = 'PENDING'
+        """)
+        .execute(Tuple.of(ids))
+        .replaceWithVoid();
+    }
+
+    public record OutboxRecord(long id, long aggregateId, String eventType, byte[] payload, String contentType) {}
+}
@@ -0,0 +1,83 @@
+package com.hts.order.infrastructure.retention;
+
+import com.hts.order.infrastructure.repository.OrderUpdateRepository;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * order_fills(체결 event_id 원장) 보존 정책.
+ * retention은 order.filled.events 토픽의 보존 기간(재전달 가능 기간)보다 길어야 한다.
+ */
+@ApplicationScoped
+public class FillDedupRetentionJob {
+
+    private static final Logger log = Logger.getLogger(FillDedupRetentionJob.class);
+
+    @Inject Vertx vertx;
+    @Inject OrderUpdateRepository updateRepository;
+
+    @ConfigProperty(name = "order.fill.dedup.retention.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.fill.dedup.retention.keep", defaultValue = "P8D")
+    Duration keep;
+
+    @ConfigProperty(name = "order.fill.dedup.retention.interval", defaultValue = "PT10M")
+    Duration interval;
+
+    @ConfigProperty(name = "order.fill.dedup.retention.batch-size", defaultValue = "5000")
+    int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private long timer = -1;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            log.info("Fill dedup retention disabled");
+            return;
+        }
+        timer = vertx.setPeriodic(interval.toMillis(), id -> prune());
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (timer >= 0) {
+            vertx.cancelTimer(timer);
+        }
+    }
+
+    private void prune() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        pruneUntilDone(0)
+            .subscribe().with(
+                deleted -> {
+                    running.set(false);
+                    if (deleted > 0) {
+                        log.infof("Pruned order_fills: count=%d", deleted);
+                    }
+                },
+                t -> {
+                    running.set(false);
+                    log.errorf(t, "order_fills pruning failed");
+                }
+            );
+    }
+
+    private Uni<Integer> pruneUntilDone(int total) {
+        return updateRepository.pruneFills(keep, batchSize)
+            .chain(deleted -> deleted < batchSize
+                ? Uni.createFrom().item(total + deleted)
+                : pruneUntilDone(total + deleted));
+    }
+}
@@ -0,0 +1,93 @@
+package com.hts.order.infrastructure.retention;
+
+import com.hts.order.infrastructure.repository.IdempotencyRepository;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * idempotency_keys 보존 정책.
+ * - 일 단위 파티션을 미리 생성하고, dedup window가 지난 파티션은 DELETE 대신 DROP
+ * - PROCESSING에 멈춘 키(노드 crash 등)를 주기적으로 FAILED 처리
+ */
+@ApplicationScoped
+public class IdempotencyRetentionJob {
+
+    private static final Logger log = Logger.getLogger(IdempotencyRetentionJob.class);
+
+    private static final String TABLE = "idempotency_keys";
+
+    @Inject Vertx vertx;
+    @Inject PartitionManager partitionManager;
+    @Inject IdempotencyRepository idempotencyRepository;
+
+    @ConfigProperty(name = "order.idempotency.retention.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.idempotency.retention.dedup-window", defaultValue = "PT24H")
+    Duration dedupWindow;
+
+    @ConfigProperty(name = "order.idempotency.retention.partitions-ahead", defaultValue = "7")
+    int partitionsAhead;
+
+    @ConfigProperty(name = "order.idempotency.retention.maintenance-interval", defaultValue = "PT1H")
+    Duration maintenanceInterval;
+
+    @ConfigProperty(name = "order.idempotency.retention.stale-processing-after", defaultValue = "PT1M")
+    Duration staleProcessingAfter;
+
+    @ConfigProperty(name = "order.idempotency.retention.sweep-interval", defaultValue = "PT10S")
+    Duration sweepInterval;
+
+    private long maintenanceTimer = -1;
+    private long sweepTimer = -1;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            log.info("Idempotency retention disabled");
+            return;
+        }
+        maintainPartitions();
+        maintenanceTimer = vertx.setPeriodic(maintenanceInterval.toMillis(), id -> maintainPartitions());
+        sweepTimer = vertx.setPeriodic(sweepInterval.toMillis(), id -> sweepStaleProcessing());
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (maintenanceTimer >= 0) {
+            vertx.cancelTimer(maintenanceTimer);
+        }
+        if (sweepTimer >= 0) {
+            vertx.cancelTimer(sweepTimer);
+        }
+    }
+
+    private void maintainPartitions() {
+        // window가 걸친 날짜 + 자정 경계 여유 1일
+        int keepDays = (int) Math.ceil(dedupWindow.toSeconds() / 86400.0) + 1;
+
+        partitionManager.maintainDaily(TABLE, partitionsAhead, keepDays, "WITH (fillfactor = 90)")
+            .subscribe().with(
+                v -> log.debugf("Idempotency partitions maintained: ahead=%d, keepDays=%d", partitionsAhead, keepDays),
+                t -> log.errorf(t, "Idempotency partition maintenance failed")
+            );
+    }
+
+    private void sweepStaleProcessing() {
+        idempotencyRepository.failStaleProcessing(staleProcessingAfter)
+            .subscribe().with(
+                swept -> {
+                    if (swept > 0) {
+                        log.warnf("Marked stale PROCESSING idempotency keys as FAILED: count=%d", swept);
+                    }
+                },
+                t -> log.errorf(t, "Stale idempotency sweep failed")
+            );
+    }
+}
@@ -0,0 +1,82 @@
+package com.hts.order.infrastructure.retention;
+
+import com.hts.order.infrastructure.retention.PartitionManager.Bounds;
+import com.hts.order.infrastructure.retention.PartitionManager.Expiry;
+import com.hts.order.infrastructure.retention.PartitionManager.Policy;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * orders / order_history / outbox 파티션 유지 (V7).
+ * - orders: order_id 일 단위 파티션을 미리 생성만 하고 정리하지 않음 (미체결 GTC 주문이 남아 있을 수 있음)
+ * - order_history: created_at 일 단위, history.keep-days가 지나면 DETACH(기본) 또는 DROP
+ *   (이력은 이벤트 시각 파티션에 쌓이므로 오래 살아 있는 주문의 새 이력은 정리 대상 파티션에 들어가지 않음)
+ * - outbox: created_at 일 단위, outbox.keep-days가 지나고 PENDING 행이 없는 파티션만 DROP
+ *   (발행 완료 행을 DELETE/VACUUM하지 않음)
+ */
+@ApplicationScoped
+public class OrderPartitionJob {
+
+    private static final Logger log = Logger.getLogger(OrderPartitionJob.class);
+
+    @Inject Vertx vertx;
+    @Inject PartitionManager partitionManager;
+
+    @ConfigProperty(name = "order.partition.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "order.partition.days-ahead", defaultValue = "7")
+    int daysAhead;
+
+    @ConfigProperty(name = "order.partition.maintenance-interval", defaultValue = "PT1H")
+    Duration maintenanceInterval;
+
+    @ConfigProperty(name = "order.partition.history.keep-days", defaultValue = "90")
+    int historyKeepDays;
+
+    @ConfigProperty(name = "order.partition.history.expiry", defaultValue = "DETACH")
+    Expiry historyExpiry;
+
+    @ConfigProperty(name = "order.partition.outbox.keep-days", defaultValue = "2")
+    int outboxKeepDays;
+
+    private long maintenanceTimer = -1;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            log.info("Order partition maintenance disabled");
+            return;
+        }
+        maintainPartitions();
+        maintenanceTimer = vertx.setPeriodic(maintenanceInterval.toMillis(), id -> maintainPartitions());
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (maintenanceTimer >= 0) {
+            vertx.cancelTimer(maintenanceTimer);
+        }
+    }
+
+    private void maintainPartitions() {
+        maintain("orders", new Policy(Bounds.ORDER_ID, daysAhead, 0, Expiry.KEEP, "WITH (fillfactor = 90)", null));
+        maintain("order_history", new Policy(Bounds.DATE, daysAhead, historyKeepDays, historyExpiry, "", null));
+        maintain("outbox", new Policy(Bounds.DATE, daysAhead, outboxKeepDays, Expiry.DROP, "", "status = 'PENDING'"));
+    }
+
+    private void maintain(String table, Policy policy) {
+        partitionManager.maintain(table, policy)
+            .subscribe().with(
+                v -> log.debugf("Partitions maintained: table=%s, ahead=%d, keepDays=%d, expiry=%s",
+                                table, policy.daysAhead(), policy.keepDays(), policy.expiry()),
+                t -> log.errorf(t, "Partition maintenance failed: table=%s", table)
+            );
+    }
+}
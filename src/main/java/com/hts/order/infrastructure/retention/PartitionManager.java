@@ -0,0 +1,161 @@
+package com.hts.order.infrastructure.retention;
+
+import com.hts.order.infrastructure.id.OrderIdGenerator;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 일 단위 RANGE 파티션(<parent>_pYYYYMMDD) 생성/정리.
+ * 여러 노드가 동시에 돌아도 DDL이 겹치지 않도록 부모 테이블별 advisory lock을 잡은 트랜잭션 안에서만 실행한다.
+ * 날짜 기준은 애플리케이션 시계가 아니라 DB의 CURRENT_DATE.
+ *
+ * 파티션 키는 날짜/타임스탬프 컬럼(DATE) 또는 Snowflake order_id(ORDER_ID, 하루 = UTC 자정 기준 ID 구간).
+ * 이름이 <parent>_pYYYYMMDD 형식이 아닌 파티션(예: 마이그레이션 때 붙인 _archive)은 건드리지 않는다.
+ */
+@ApplicationScoped
+public class PartitionManager {
+
+    private static final Logger log = Logger.getLogger(PartitionManager.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Inject PgPool client;
+
+    public enum Bounds { DATE, ORDER_ID }
+
+    public enum Expiry { DROP, DETACH, KEEP }
+
+    /**
+     * @param bounds        파티션 키 종류
+     * @param daysAhead     오늘 이후로 미리 만들어 둘 파티션 수
+     * @param keepDays      오늘 기준 keepDays일보다 오래된 파티션은 expiry 대상
+     * @param expiry        만료 파티션 처리 (DETACH는 일반 테이블로 떼어 두어 보관/아카이빙은 운영자가 처리)
+     * @param storageClause 파티션별 storage 옵션 (예: "WITH (fillfactor = 90)"), 없으면 빈 문자열
+     * @param retainWhile   이 조건에 맞는 행이 남아 있으면 만료돼도 정리하지 않음 (예: "status = 'PENDING'"), 없으면 null
+     */
+    public record Policy(Bounds bounds, int daysAhead, int keepDays, Expiry expiry,
+                         String storageClause, String retainWhile) {}
+
+    /**
+     * @param parent        파티션 부모 테이블
+     * @param daysAhead     오늘 이후로 미리 만들어 둘 파티션 수
+     * @param keepDays      오늘 기준 keepDays일보다 오래된 파티션은 DROP
+     * @param storageClause 파티션별 storage 옵션 (예: "WITH (fillfactor = 90)"), 없으면 빈 문자열
+     */
+    public Uni<Void> maintainDaily(String parent, int daysAhead, int keepDays, String storageClause) {
+        return maintain(parent, new Policy(Bounds.DATE, daysAhead, keepDays, Expiry.DROP, storageClause, null));
+    }
+
+    public Uni<Void> maintain(String parent, Policy policy) {
+        return client.withTransaction(conn ->
+            conn.preparedQuery("SELECT pg_try_advisory_xact_lock(hashtext($1)) AS locked, CURRENT_DATE AS today")
+                .execute(Tuple.of(parent))
+                .chain(rows -> {
+                    Row row = rows.iterator().next();
+                    if (!row.getBoolean("locked")) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    LocalDate today = row.getLocalDate("today");
+                    Uni<Void> created = createAhead(conn, parent, today, policy);
+                    return policy.expiry() == Expiry.KEEP
+                        ? created
+                        : created.chain(() -> expire(conn, parent, today.minusDays(policy.keepDays()), policy));
+                })
+        );
+    }
+
+    private Uni<Void> createAhead(SqlConnection conn, String parent, LocalDate today, Policy policy) {
+        List<Uni<Void>> ddl = new ArrayList<>(policy.daysAhead() + 1);
+        for (int i = 0; i <= policy.daysAhead(); i++) {
+            LocalDate day = today.plusDays(i);
+            String create = String.format(
+                "CREATE TABLE IF NOT EXISTS %s_p%s PARTITION OF %s FOR VALUES FROM (%s) TO (%s) %s",
+                parent, SUFFIX.format(day), parent, lowerBound(policy.bounds(), day),
+                lowerBound(policy.bounds(), day.plusDays(1)), policy.storageClause());
+            // 오늘까지는 마이그레이션 때 붙인 archive 파티션 범위라 겹칠 수 있음 (42P17) -> 그날은 건너뜀
+            create = "DO $$ BEGIN " + create + "; EXCEPTION WHEN invalid_object_definition THEN NULL; END $$";
+            ddl.add(conn.query(create).execute().replaceWithVoid());
+        }
+        return Uni.join().all(ddl).andFailFast().replaceWithVoid();
+    }
+
+    private static String lowerBound(Bounds bounds, LocalDate day) {
+        return switch (bounds) {
+            case DATE -> "'" + day + "'";
+            case ORDER_ID -> Long.toString(
+                    OrderIdGenerator.firstIdAt(day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()));
+        };
+    }
+
+    private Uni<Void> expire(SqlConnection conn, String parent, LocalDate cutoff, Policy policy) {
+        return conn.preparedQuery("""
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = $1
+        """)
+        .execute(Tuple.of(parent))
+        .chain(rows -> {
+            String prefix = parent + "_p";
+            List<String> expired = new ArrayList<>();
+            for (Row row : rows) {
+                LocalDate day = dayOf(row.getString("relname"), prefix);
+                if (day != null && day.isBefore(cutoff)) {
+                    expired.add(prefix + SUFFIX.format(day));
+                }
+            }
+            Uni<Void> chain = Uni.createFrom().voidItem();
+            for (String partition : expired) {
+                chain = chain.chain(() -> expireOne(conn, parent, partition, policy));
+            }
+            return chain;
+        });
+    }
+
+    private Uni<Void> expireOne(SqlConnection conn, String parent, String partition, Policy policy) {
+        Uni<Boolean> retained = policy.retainWhile() == null
+            ? Uni.createFrom().item(false)
+            : conn.query(String.format("SELECT EXISTS (SELECT 1 FROM %s WHERE %s) AS retained",
+                                       partition, policy.retainWhile()))
+                .execute()
+                .map(rows -> rows.iterator().next().getBoolean("retained"));
+
+        return retained.chain(keep -> {
+            if (keep) {
+                log.warnf("Expired partition still has rows matching [%s], keeping: %s", policy.retainWhile(), partition);
+                return Uni.createFrom().voidItem();
+            }
+            if (policy.expiry() == Expiry.DETACH) {
+                log.infof("Detaching expired partition: %s", partition);
+                return conn.query("ALTER TABLE " + parent + " DETACH PARTITION " + partition).execute().replaceWithVoid();
+            }
+            log.infof("Dropping expired partition: %s", partition);
+            return conn.query("DROP TABLE IF EXISTS " + partition).execute().replaceWithVoid();
+        });
+    }
+
+    private static LocalDate dayOf(String partition, String prefix) {
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(prefix.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
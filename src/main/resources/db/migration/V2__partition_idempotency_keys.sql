@@ -0,0 +1,43 @@
+-- idempotency_keys: created_day 기준 일 단위 RANGE 파티셔닝
+-- 만료된 키는 DELETE 대신 파티션 DROP으로 정리한다 (IdempotencyRetentionJob).
+-- 파티션 테이블의 PK는 파티션 키를 포함해야 하므로 (idempotency_key, created_day).
+
+ALTER TABLE idempotency_keys RENAME TO idempotency_keys_legacy;
+ALTER TABLE idempotency_keys_legacy RENAME CONSTRAINT idempotency_keys_pkey TO idempotency_keys_legacy_pkey;
+DROP INDEX IF EXISTS idx_idempotency_account;
+DROP INDEX IF EXISTS idx_idempotency_created;
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(128) NOT NULL,
+    account_id BIGINT NOT NULL,
+    order_id BIGINT,
+    status VARCHAR(20) NOT NULL,
+    response_payload JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    created_day DATE NOT NULL DEFAULT CURRENT_DATE,
+    PRIMARY KEY (idempotency_key, created_day)
+) PARTITION BY RANGE (created_day);
+
+CREATE INDEX idx_idempotency_created ON idempotency_keys(created_at) WHERE status = 'PROCESSING';
+
+-- 어제 ~ +7일 파티션 (이후는 IdempotencyRetentionJob이 미리 생성)
+DO $$
+DECLARE
+    d DATE;
+BEGIN
+    FOR i IN -1..7 LOOP
+        d := CURRENT_DATE + i;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS idempotency_keys_p%s PARTITION OF idempotency_keys FOR VALUES FROM (%L) TO (%L) WITH (fillfactor = 90)',
+            to_char(d, 'YYYYMMDD'), d, d + 1
+        );
+    END LOOP;
+END $$;
+
+-- dedup window(기본 24h) 안의 키만 이관, 나머지는 legacy 테이블과 함께 폐기
+INSERT INTO idempotency_keys (idempotency_key, account_id, order_id, status, response_payload, created_at, created_day)
+SELECT idempotency_key, account_id, order_id, status, response_payload, created_at, created_at::date
+FROM idempotency_keys_legacy
+WHERE created_at >= CURRENT_DATE - 1;
+
+DROP TABLE idempotency_keys_legacy;
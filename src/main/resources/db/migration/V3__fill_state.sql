@@ -0,0 +1,22 @@
+-- 누적 체결 상태: filled_quantity / filled_notional은 체결 이벤트의 delta로만 증감한다.
+-- avg_fill_price(VWAP) = filled_notional / filled_quantity (micro units)
+
+UPDATE orders SET filled_quantity = 0 WHERE filled_quantity IS NULL;
+ALTER TABLE orders ALTER COLUMN filled_quantity SET NOT NULL;
+
+ALTER TABLE orders ADD COLUMN filled_notional BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN avg_fill_price BIGINT GENERATED ALWAYS AS (
+    CASE WHEN filled_quantity > 0 THEN filled_notional / filled_quantity ELSE 0 END
+) STORED;
+
+-- 적용한 체결 이벤트 원장 (event_id로 중복 적용 방지, bust/correction 추적)
+CREATE TABLE order_fills (
+    event_id VARCHAR(64) PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    execution_type VARCHAR(16) NOT NULL,
+    quantity_delta BIGINT NOT NULL,
+    notional_delta BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_order_fills_order_id ON order_fills(order_id);
@@ -0,0 +1,2 @@
+-- order_fills는 재전달 중복 방지용이므로 Kafka 재전달 가능 기간이 지나면 삭제한다 (FillDedupRetentionJob)
+CREATE INDEX idx_order_fills_created ON order_fills(created_at);
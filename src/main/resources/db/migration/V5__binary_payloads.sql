@@ -0,0 +1,10 @@
+-- outbox payload: JSON 문자열 -> OrderCreatedEvent protobuf (bytea)
+-- 기존 PENDING 행은 UTF-8 JSON 바이트 그대로 두고 content_type으로 구분해서 발행한다.
+ALTER TABLE outbox ALTER COLUMN payload TYPE BYTEA USING convert_to(payload, 'UTF8');
+ALTER TABLE outbox ADD COLUMN content_type VARCHAR(32) NOT NULL DEFAULT 'application/json';
+ALTER TABLE outbox ALTER COLUMN content_type SET DEFAULT 'application/x-protobuf';
+
+-- idempotency 응답: jsonb -> OrderResponse / PlaceOrdersResponse protobuf (bytea)
+-- response_payload(jsonb)는 dedup window 안의 기존 행을 읽기 위해 남겨두고,
+-- window가 지나 기존 행이 파티션째 정리되면 이후 마이그레이션에서 제거한다.
+ALTER TABLE idempotency_keys ADD COLUMN response BYTEA;
@@ -0,0 +1,26 @@
+-- 보상(reserve 해제) 작업 큐: 주문 기록/취소가 실패한 경로에서 INSERT만 하고 응답하며,
+-- CompensationWorker가 배치로 꺼내 account-service release를 재시도한다.
+-- release는 reserve_id 기준 멱등이므로 같은 작업이 두 번 실행돼도 안전하다.
+CREATE TABLE compensation_tasks (
+    id BIGSERIAL PRIMARY KEY,
+    task_type VARCHAR(32) NOT NULL,          -- RELEASE_CASH | RELEASE_POSITION
+    account_id BIGINT NOT NULL,
+    reserve_id VARCHAR(64) NOT NULL,
+    order_id BIGINT NOT NULL,
+    reason VARCHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',   -- PENDING | DONE | FAILED
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    completed_at TIMESTAMP
+);
+
+-- 같은 reserve에 대한 중복 등록은 ON CONFLICT DO NOTHING으로 흡수
+CREATE UNIQUE INDEX uq_compensation_tasks_reserve ON compensation_tasks(reserve_id, task_type);
+
+-- 워커 poll / 큐 깊이 조회용
+CREATE INDEX idx_compensation_tasks_due ON compensation_tasks(available_at) WHERE status = 'PENDING';
+
+-- 완료 행 정리용
+CREATE INDEX idx_compensation_tasks_completed ON compensation_tasks(completed_at) WHERE status = 'DONE';
@@ -0,0 +1,155 @@
+-- orders / order_history / outbox 시간 파티셔닝 + 명령 경로에서 쓰지 않는 인덱스 제거
+--
+-- orders: order_id RANGE 파티셔닝.
+--   order_id는 Snowflake라 상위 비트가 발급 시각이므로 하루 = 연속된 ID 구간
+--   [(UTC 자정 ms - 2024-01-01 epoch) << 22, (다음 자정 ms - epoch) << 22).
+--   취소/체결 반영은 모두 order_id로 찾으므로 항상 한 파티션만 본다. 정리하지 않는다 (GTC 주문).
+-- order_history: created_at 일 단위 RANGE 파티셔닝. 행은 이벤트 시각에 append되므로
+--   오래된 주문(90일 넘은 GTC 등)의 취소/체결 이력도 항상 오늘 파티션에 들어가고,
+--   보존 기간이 지난 파티션을 DETACH/DROP해도 살아 있는 주문의 쓰기가 실패하지 않는다.
+--   파티션 생성/정리는 OrderPartitionJob.
+--   기존 테이블은 복사하지 않고 _archive 파티션(MINVALUE ~ 내일 0시)으로 그대로 붙인다.
+--   _archive는 <parent>_pYYYYMMDD 형식이 아니라 자동 정리 대상이 아니다.
+-- outbox: created_at 일 단위 RANGE 파티셔닝. 발행이 끝난 파티션은 DELETE/VACUUM 대신 DROP.
+--   PENDING 행만 이관하고 발행 완료 행은 legacy 테이블과 함께 폐기한다.
+--
+-- 남기는 인덱스 (OrderWriteRepository / OrderUpdateRepository / OutboxRepository / CompensationTaskRepository 기준)
+--   orders: PK(order_id), idx_orders_reserve_id (ReservationReconciler anti-join)
+--   order_history: 없음 (append-only 감사 로그, 명령 경로에서 읽지 않음)
+--   outbox: PK(id, created_at) (markPublished), PENDING partial index (claimPending)
+
+-- orders ---------------------------------------------------------------------------------------
+ALTER TABLE orders RENAME TO orders_archive;
+ALTER TABLE orders_archive RENAME CONSTRAINT orders_pkey TO orders_archive_pkey;
+ALTER INDEX idx_orders_reserve_id RENAME TO orders_archive_reserve_id_idx;
+DROP INDEX IF EXISTS idx_orders_account;
+DROP INDEX IF EXISTS idx_orders_status;
+DROP INDEX IF EXISTS idx_orders_created;
+DROP INDEX IF EXISTS idx_orders_account_status;
+DROP INDEX IF EXISTS idx_orders_symbol_status;
+DROP INDEX IF EXISTS idx_orders_cancel_lookup;
+
+CREATE TABLE orders (
+    order_id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    symbol VARCHAR(20) NOT NULL,
+    reserve_id VARCHAR(255) NOT NULL,
+    side VARCHAR(4) NOT NULL,
+    order_type VARCHAR(10) NOT NULL,
+    quantity BIGINT NOT NULL,
+    price BIGINT NOT NULL,
+    time_in_force VARCHAR(10) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    filled_quantity BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    filled_notional BIGINT NOT NULL DEFAULT 0,
+    avg_fill_price BIGINT GENERATED ALWAYS AS (
+        CASE WHEN filled_quantity > 0 THEN filled_notional / filled_quantity ELSE 0 END
+    ) STORED,
+    PRIMARY KEY (order_id)
+) PARTITION BY RANGE (order_id);
+
+CREATE INDEX idx_orders_reserve_id ON orders(reserve_id);
+
+-- order_history --------------------------------------------------------------------------------
+-- PK(id)는 파티션 키를 포함하지 않아 유지할 수 없고, 읽는 곳도 없어 인덱스 없이 둔다.
+ALTER TABLE order_history RENAME TO order_history_archive;
+ALTER TABLE order_history_archive DROP CONSTRAINT order_history_pkey;
+DROP INDEX IF EXISTS idx_order_history_order_id;
+DROP INDEX IF EXISTS idx_order_history_account_id;
+DROP INDEX IF EXISTS idx_order_history_created;
+
+CREATE TABLE order_history (
+    id BIGINT NOT NULL DEFAULT nextval('order_history_id_seq'),
+    order_id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    previous_status VARCHAR(20),
+    quantity BIGINT NOT NULL,
+    price BIGINT NOT NULL,
+    filled_quantity BIGINT DEFAULT 0,
+    reason TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE order_history_id_seq OWNED BY order_history.id;
+
+-- archive 연결 + 내일 ~ +7일 파티션 (이후는 OrderPartitionJob이 미리 생성)
+-- ATTACH는 archive 전체를 한 번 스캔해 범위를 검증한다 (재작성은 없음).
+DO $$
+DECLARE
+    d DATE;
+    boundary BIGINT := ((extract(epoch FROM (CURRENT_DATE + 1)::timestamp AT TIME ZONE 'UTC') * 1000)::bigint
+                        - 1704067200000) << 22;
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    EXECUTE format('ALTER TABLE orders ATTACH PARTITION orders_archive FOR VALUES FROM (MINVALUE) TO (%s)', boundary);
+    EXECUTE format('ALTER TABLE order_history ATTACH PARTITION order_history_archive FOR VALUES FROM (MINVALUE) TO (%L)',
+                   CURRENT_DATE + 1);
+
+    FOR i IN 1..7 LOOP
+        d := CURRENT_DATE + i;
+        lo := ((extract(epoch FROM d::timestamp AT TIME ZONE 'UTC') * 1000)::bigint - 1704067200000) << 22;
+        hi := ((extract(epoch FROM (d + 1)::timestamp AT TIME ZONE 'UTC') * 1000)::bigint - 1704067200000) << 22;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS orders_p%s PARTITION OF orders FOR VALUES FROM (%s) TO (%s) WITH (fillfactor = 90)',
+            to_char(d, 'YYYYMMDD'), lo, hi
+        );
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS order_history_p%s PARTITION OF order_history FOR VALUES FROM (%L) TO (%L)',
+            to_char(d, 'YYYYMMDD'), d, d + 1
+        );
+    END LOOP;
+END $$;
+
+-- outbox ---------------------------------------------------------------------------------------
+ALTER TABLE outbox RENAME TO outbox_legacy;
+ALTER TABLE outbox_legacy RENAME CONSTRAINT outbox_pkey TO outbox_legacy_pkey;
+DROP INDEX IF EXISTS idx_outbox_status_available;
+DROP INDEX IF EXISTS idx_outbox_aggregate;
+DROP INDEX IF EXISTS idx_outbox_created;
+
+CREATE TABLE outbox (
+    id BIGINT NOT NULL DEFAULT nextval('outbox_id_seq'),
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload BYTEA NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    published_at TIMESTAMP,
+    content_type VARCHAR(32) NOT NULL DEFAULT 'application/x-protobuf',
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE outbox_id_seq OWNED BY outbox.id;
+
+CREATE INDEX idx_outbox_status_available ON outbox(available_at) WHERE status = 'PENDING';
+
+-- 어제 ~ +7일 파티션
+DO $$
+DECLARE
+    d DATE;
+BEGIN
+    FOR i IN -1..7 LOOP
+        d := CURRENT_DATE + i;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS outbox_p%s PARTITION OF outbox FOR VALUES FROM (%L) TO (%L)',
+            to_char(d, 'YYYYMMDD'), d, d + 1
+        );
+    END LOOP;
+END $$;
+
+-- 미발행 행만 이관 (어제보다 오래된 PENDING은 created_at만 어제 파티션으로 당긴다. 발행 순서는 available_at 기준)
+INSERT INTO outbox (id, aggregate_type, aggregate_id, event_type, payload, idempotency_key, status,
+                    created_at, available_at, published_at, content_type)
+SELECT id, aggregate_type, aggregate_id, event_type, payload, idempotency_key, status,
+       GREATEST(created_at, (CURRENT_DATE - 1)::timestamp), available_at, published_at, content_type
+FROM outbox_legacy
+WHERE status = 'PENDING';
+
+DROP TABLE outbox_legacy;
@@ -0,0 +1,226 @@
+package com.hts.order.api.grpc;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.AccountCommand;
+import com.hts.generated.grpc.account.order.AccountCommandReply;
+import com.hts.generated.grpc.account.order.AccountOrderService;
+import com.hts.generated.grpc.account.order.ListReservationsReply;
+import com.hts.generated.grpc.account.order.ListReservationsRequest;
+import com.hts.generated.grpc.account.order.ReleaseCashRequest;
+import com.hts.generated.grpc.account.order.ReleasePositionRequest;
+import com.hts.generated.grpc.account.order.ReserveBatchReply;
+import com.hts.generated.grpc.account.order.ReserveBatchRequest;
+import com.hts.generated.grpc.account.order.ReserveCashRequest;
+import com.hts.generated.grpc.account.order.ReservePositionRequest;
+import io.grpc.Status;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 배치 RPC 실패 시 건별 unary 재전송 경로.
+ * account 서비스가 배치를 적용한 뒤 응답이 유실되면 재전송은 reserve_id 중복 제거에 기대므로,
+ * reserve_id로 중복을 거르는 stub으로 예약이 한 번만 잡히고 호출자는 SUCCESS를 받는지 확인한다.
+ */
+class AccountCommandBatcherTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    private Vertx vertx;
+    private DedupingAccountService account;
+    private AccountCommandBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        account = new DedupingAccountService();
+
+        batcher = new AccountCommandBatcher();
+        batcher.accountService = account;
+        batcher.vertx = vertx;
+        batcher.enabled = true;
+        // 크기로만 flush되도록 window는 넉넉하게
+        batcher.windowMs = 60_000;
+        batcher.maxBatchSize = BATCH_SIZE;
+        batcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vertx.closeAndAwait();
+    }
+
+    @Test
+    void batchAppliedButReplyLostIsResentOnceAndReportedAsSuccess() {
+        account.batchMode = BatchMode.APPLY_THEN_FAIL;
+
+        List<CommonReply> replies = reserveAll();
+
+        assertEquals(1, account.batchCalls.get());
+        assertEquals(BATCH_SIZE, account.unaryCalls.get());
+        assertEquals(BATCH_SIZE, account.duplicates.get());
+        assertEquals(BATCH_SIZE, account.reservations.size());
+        replies.forEach(reply -> assertEquals(AccoutResult.SUCCESS, reply.getCode()));
+    }
+
+    @Test
+    void batchRejectedBeforeApplyIsReservedByUnaryResend() {
+        account.batchMode = BatchMode.FAIL;
+
+        List<CommonReply> replies = reserveAll();
+
+        assertEquals(BATCH_SIZE, account.unaryCalls.get());
+        assertEquals(0, account.duplicates.get());
+        assertEquals(BATCH_SIZE, account.reservations.size());
+        replies.forEach(reply -> assertEquals(AccoutResult.SUCCESS, reply.getCode()));
+    }
+
+    @Test
+    void unimplementedBatchFallsBackToUnaryAndDisablesBatching() {
+        account.batchMode = BatchMode.UNIMPLEMENTED;
+
+        List<CommonReply> replies = reserveAll();
+
+        assertFalse(batcher.isEnabled());
+        assertEquals(BATCH_SIZE, account.reservations.size());
+        replies.forEach(reply -> assertEquals(AccoutResult.SUCCESS, reply.getCode()));
+    }
+
+    @Test
+    void duplicateOnFirstSendIsNotMaskedAsSuccess() {
+        account.batchMode = BatchMode.APPLY;
+        account.reservations.put("reserve-0", 1L);
+
+        List<CommonReply> replies = reserveAll();
+
+        assertEquals(AccoutResult.DUPLICATE_REQUEST, replies.get(0).getCode());
+        for (int i = 1; i < BATCH_SIZE; i++) {
+            assertEquals(AccoutResult.SUCCESS, replies.get(i).getCode());
+        }
+    }
+
+    private List<CommonReply> reserveAll() {
+        List<Uni<CommonReply>> calls = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ReserveCashRequest request = ReserveCashRequest.newBuilder()
+                    .setAccountId(1L)
+                    .setAmountMicroUnits(1_000_000L)
+                    .setCurrency("USD")
+                    .setReserveId("reserve-" + i)
+                    .setOrderId(String.valueOf(i))
+                    .build();
+            calls.add(batcher.submit(AccountCommand.newBuilder().setReserveCash(request).build(),
+                                     () -> account.reserveCash(request)));
+        }
+        return Uni.join().all(calls).andFailFast().await().atMost(Duration.ofSeconds(5));
+    }
+
+    private enum BatchMode { APPLY, APPLY_THEN_FAIL, FAIL, UNIMPLEMENTED }
+
+    /**
+     * reserve_id로 중복을 거르는 account 서비스 stub
+     */
+    private static final class DedupingAccountService implements AccountOrderService {
+
+        final Map<String, Long> reservations = new ConcurrentHashMap<>();
+        final AtomicInteger batchCalls = new AtomicInteger();
+        final AtomicInteger unaryCalls = new AtomicInteger();
+        final AtomicInteger duplicates = new AtomicInteger();
+        volatile BatchMode batchMode = BatchMode.APPLY;
+
+        @Override
+        public Uni<CommonReply> reserveCash(ReserveCashRequest request) {
+            unaryCalls.incrementAndGet();
+            return Uni.createFrom().item(reserve(request.getReserveId(), request.getAccountId()));
+        }
+
+        @Override
+        public Uni<CommonReply> reservePosition(ReservePositionRequest request) {
+            unaryCalls.incrementAndGet();
+            return Uni.createFrom().item(reserve(request.getReserveId(), request.getAccountId()));
+        }
+
+        @Override
+        public Uni<CommonReply> releaseCash(ReleaseCashRequest request) {
+            unaryCalls.incrementAndGet();
+            return Uni.createFrom().item(release(request.getReserveId()));
+        }
+
+        @Override
+        public Uni<CommonReply> releasePosition(ReleasePositionRequest request) {
+            unaryCalls.incrementAndGet();
+            return Uni.createFrom().item(release(request.getReserveId()));
+        }
+
+        @Override
+        public Uni<ReserveBatchReply> reserveBatch(ReserveBatchRequest request) {
+            batchCalls.incrementAndGet();
+            if (batchMode == BatchMode.UNIMPLEMENTED) {
+                return Uni.createFrom().failure(Status.UNIMPLEMENTED.asRuntimeException());
+            }
+            if (batchMode == BatchMode.FAIL) {
+                return Uni.createFrom().failure(Status.UNAVAILABLE.asRuntimeException());
+            }
+            ReserveBatchReply.Builder reply = ReserveBatchReply.newBuilder();
+            for (AccountCommand command : request.getItemsList()) {
+                reply.addResults(apply(command));
+            }
+            if (batchMode == BatchMode.APPLY_THEN_FAIL) {
+                return Uni.createFrom().failure(Status.DEADLINE_EXCEEDED.asRuntimeException());
+            }
+            return Uni.createFrom().item(reply.build());
+        }
+
+        @Override
+        public Uni<ListReservationsReply> listReservations(ListReservationsRequest request) {
+            return Uni.createFrom().item(ListReservationsReply.getDefaultInstance());
+        }
+
+        @Override
+        public Multi<AccountCommandReply> reserveStream(Multi<AccountCommand> request) {
+            return Multi.createFrom().failure(Status.UNIMPLEMENTED.asRuntimeException());
+        }
+
+        private CommonReply apply(AccountCommand command) {
+            return switch (command.getCommandCase()) {
+                case RESERVE_CASH -> reserve(command.getReserveCash().getReserveId(),
+                                             command.getReserveCash().getAccountId());
+                case RESERVE_POSITION -> reserve(command.getReservePosition().getReserveId(),
+                                                 command.getReservePosition().getAccountId());
+                case RELEASE_CASH -> release(command.getReleaseCash().getReserveId());
+                case RELEASE_POSITION -> release(command.getReleasePosition().getReserveId());
+                default -> reply(AccoutResult.INVALID_REQUEST);
+            };
+        }
+
+        private CommonReply reserve(String reserveId, long accountId) {
+            if (reservations.putIfAbsent(reserveId, accountId) != null) {
+                duplicates.incrementAndGet();
+                return reply(AccoutResult.DUPLICATE_REQUEST);
+            }
+            return reply(AccoutResult.SUCCESS);
+        }
+
+        private CommonReply release(String reserveId) {
+            return reply(reservations.remove(reserveId) != null ? AccoutResult.SUCCESS : AccoutResult.DUPLICATE_REQUEST);
+        }
+
+        private static CommonReply reply(AccoutResult code) {
+            return CommonReply.newBuilder().setCode(code).build();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.hts.order.api.grpc;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.*;
+import io.grpc.Status;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.vertx.mutiny.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 스트림이 끊겼을 때 ack 받지 못한 명령이 재연결 backoff를 기다리지 않고
+ * 호출자의 timeout(100ms) 안에 unary로 끝나는지 확인한다.
+ */
+class AccountStreamTransportTest {
+
+    private static final Duration CALLER_TIMEOUT = Duration.ofMillis(100);
+
+    private Vertx vertx;
+    private SilentStreamAccountService account;
+    private AccountStreamTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        account = new SilentStreamAccountService();
+
+        transport = new AccountStreamTransport();
+        transport.accountService = account;
+        transport.vertx = vertx;
+        transport.enabled = true;
+        transport.maxInFlight = 16;
+        // 호출자 timeout보다 훨씬 긴 backoff
+        transport.reconnectBackoffMs = 10_000;
+        transport.onStart(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.onStop(null);
+        vertx.closeAndAwait();
+    }
+
+    @Test
+    void unackedCommandAppliedByStreamIsResentAsUnaryWithinCallerTimeout() throws InterruptedException {
+        assertTrue(transport.isAvailable());
+        ReserveCashRequest request = request("reserve-1");
+
+        Uni<CommonReply> reply = transport.send(request.getReserveId(),
+                AccountCommand.newBuilder().setReserveCash(request).build(),
+                () -> account.reserveCash(request))
+            .memoize().indefinitely();
+        reply.subscribe().with(r -> { }, t -> { });
+
+        assertTrue(account.applied.await(1, TimeUnit.SECONDS));
+        account.replies.onError(Status.UNAVAILABLE.asRuntimeException());
+
+        CommonReply result = reply.await().atMost(CALLER_TIMEOUT);
+        assertEquals(AccoutResult.SUCCESS, result.getCode());
+        assertEquals(1, account.reservations.size());
+    }
+
+    @Test
+    void commandsAfterDisconnectGoStraightToUnary() {
+        account.replies.onError(Status.UNAVAILABLE.asRuntimeException());
+        ReserveCashRequest request = request("reserve-2");
+
+        CommonReply result = transport.send(request.getReserveId(),
+                AccountCommand.newBuilder().setReserveCash(request).build(),
+                () -> account.reserveCash(request))
+            .await().atMost(CALLER_TIMEOUT);
+
+        assertEquals(AccoutResult.SUCCESS, result.getCode());
+    }
+
+    private static ReserveCashRequest request(String reserveId) {
+        return ReserveCashRequest.newBuilder()
+                .setAccountId(1L)
+                .setAmountMicroUnits(1_000_000L)
+                .setCurrency("USD")
+                .setReserveId(reserveId)
+                .setOrderId("1")
+                .build();
+    }
+
+    /**
+     * 스트림으로 받은 명령은 적용만 하고 응답은 보내지 않는 (응답 유실) account 서비스 stub.
+     * reserve는 reserve_id로 중복을 거른다.
+     */
+    private static final class SilentStreamAccountService implements AccountOrderService {
+
+        final Map<String, Long> reservations = new ConcurrentHashMap<>();
+        final CountDownLatch applied = new CountDownLatch(1);
+        volatile BroadcastProcessor<AccountCommandReply> replies;
+
+        @Override
+        public Multi<AccountCommandReply> reserveStream(Multi<AccountCommand> request) {
+            BroadcastProcessor<AccountCommandReply> processor = BroadcastProcessor.create();
+            replies = processor;
+            request.subscribe().with(command -> {
+                reserve(command.getReserveCash().getReserveId(), command.getReserveCash().getAccountId());
+                applied.countDown();
+            }, t -> { });
+            return processor;
+        }
+
+        @Override
+        public Uni<CommonReply> reserveCash(ReserveCashRequest request) {
+            return Uni.createFrom().item(reserve(request.getReserveId(), request.getAccountId()));
+        }
+
+        @Override
+        public Uni<CommonReply> releaseCash(ReleaseCashRequest request) {
+            return Uni.createFrom().failure(Status.UNIMPLEMENTED.asRuntimeException());
+        }
+
+        @Override
+        public Uni<CommonReply> reservePosition(ReservePositionRequest request) {
+            return Uni.createFrom().failure(Status.UNIMPLEMENTED.asRuntimeException());
+        }
+
+        @Override
+        public Uni<CommonReply> releasePosition(ReleasePositionRequest request) {
+            return Uni.createFrom().failure(Status.UNIMPLEMENTED.asRuntimeException());
+        }
+
+        @Override
+        public Uni<ReserveBatchReply> reserveBatch(ReserveBatchRequest request) {
+            return Uni.createFrom().failure(Status.UNIMPLEMENTED.asRuntimeException());
+        }
+
+        @Override
+        public Uni<ListReservationsReply> listReservations(ListReservationsRequest request) {
+            return Uni.createFrom().item(ListReservationsReply.getDefaultInstance());
+        }
+
+        private CommonReply reserve(String reserveId, long accountId) {
+            AccoutResult code = reservations.putIfAbsent(reserveId, accountId) == null
+                    ? AccoutResult.SUCCESS : AccoutResult.DUPLICATE_REQUEST;
+            return CommonReply.newBuilder().setCode(code).build();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.hts.order.api.grpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void cancelReturnsPermitWithoutSample() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 10, 1000, 2.0, 0.9, 1000);
+        limiter.release(limiter.tryAcquire(), 1_000_000, false);
+        int limit = limiter.limit();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(limiter.tryAcquire() > 0);
+            limiter.cancel();
+        }
+        // 빠른 반납이 최소 RTT를 끌어내렸다면 평소 RTT가 tolerance를 넘어 limit이 줄었을 것
+        limiter.release(limiter.tryAcquire(), 1_500_000, false);
+
+        assertEquals(0, limiter.inFlight());
+        assertTrue(limiter.limit() >= limit, "limit shrank: " + limiter.limit());
+    }
+
+    @Test
+    void backsOffOnDroppedAndSlowSamples() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 10, 1000, 2.0, 0.9, 1000);
+        limiter.release(limiter.tryAcquire(), 1_000_000, false);
+
+        limiter.release(limiter.tryAcquire(), 1_000_000, true);
+        assertEquals(90, limiter.limit());
+
+        limiter.release(limiter.tryAcquire(), 3_000_000, false);
+        assertEquals(81, limiter.limit());
+    }
+
+    @Test
+    void growsWhenBusyAndFast() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 20, 2.0, 0.9, 1000);
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(limiter.limit(), 1_000_000, false);
+        }
+        assertEquals(20, limiter.limit());
+    }
+
+    @Test
+    void concurrentSamplesStayWithinBounds() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(64, 8, 256, 2.0, 0.9, 100);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 100_000; i++) {
+                    int inFlight = limiter.tryAcquire();
+                    if (inFlight < 0) {
+                        continue;
+                    }
+                    limiter.release(inFlight, 1_000_000 + random.nextLong(2_000_000), random.nextInt(100) == 0);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, limiter.inFlight());
+        assertTrue(limiter.limit() >= 8 && limiter.limit() <= 256, "limit out of bounds: " + limiter.limit());
+    }
+}
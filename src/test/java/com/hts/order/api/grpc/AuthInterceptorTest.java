@@ -0,0 +1,236 @@
+package com.hts.order.api.grpc;
+
+import com.hts.order.infrastructure.cache.SessionCache;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * session-id 검증 결과에 따른 AuthInterceptor의 호출 시작/종료.
+ * 캐시 hit은 interceptCall 안에서 바로 시작하고, miss면 검증이 끝날 때까지 들어온 이벤트를 쌓았다가 순서대로 넘기는지,
+ * 무효 세션은 UNAUTHENTICATED, 검증 타임아웃은 UNAVAILABLE로 닫는지 확인한다.
+ */
+class AuthInterceptorTest {
+
+    private static final Metadata.Key<String> SESSION_ID_KEY =
+            Metadata.Key.of("session-id", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final long ACCOUNT_ID = 42L;
+
+    private StubSessionCache sessions;
+    private AuthInterceptor interceptor;
+    private RecordingCall call;
+    private RecordingHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new StubSessionCache();
+        interceptor = new AuthInterceptor();
+        interceptor.sessions = sessions;
+        interceptor.registry = new SimpleMeterRegistry();
+        interceptor.enabled = true;
+        interceptor.onStart(null);
+
+        call = new RecordingCall();
+        handler = new RecordingHandler();
+    }
+
+    @Test
+    void cacheHitStartsCallInline() {
+        sessions.results.put("s1", Uni.createFrom().item(ACCOUNT_ID));
+
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, headers("s1"), handler);
+
+        assertTrue(handler.started, "call should start before interceptCall returns");
+        assertEquals(ACCOUNT_ID, (long) handler.accountId);
+
+        listener.onMessage("a");
+        listener.onHalfClose();
+        assertEquals(List.of("message:a", "halfClose"), handler.events);
+        assertEquals(null, call.status);
+    }
+
+    @Test
+    void missBuffersEventsUntilValidatedThenReplaysInOrder() {
+        UniEmitter<? super Long>[] emitter = holdValidation("s1");
+
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, headers("s1"), handler);
+        listener.onReady();
+        listener.onMessage("a");
+        listener.onHalfClose();
+
+        assertFalse(handler.started);
+        assertEquals(List.of(), handler.events);
+
+        emitter[0].complete(ACCOUNT_ID);
+
+        assertTrue(handler.started);
+        assertEquals(ACCOUNT_ID, (long) handler.accountId);
+        assertEquals(List.of("ready", "message:a", "halfClose"), handler.events);
+
+        listener.onComplete();
+        assertEquals(List.of("ready", "message:a", "halfClose", "complete"), handler.events);
+    }
+
+    @Test
+    void cancelledWhileValidatingIsNotStarted() {
+        UniEmitter<? super Long>[] emitter = holdValidation("s1");
+
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, headers("s1"), handler);
+        listener.onCancel();
+        emitter[0].complete(ACCOUNT_ID);
+
+        assertFalse(handler.started);
+    }
+
+    @Test
+    void invalidSessionIsUnauthenticated() {
+        sessions.results.put("s1", Uni.createFrom().item(SessionCache.INVALID));
+
+        interceptor.interceptCall(call, headers("s1"), handler);
+
+        assertFalse(handler.started);
+        assertEquals(Status.Code.UNAUTHENTICATED, call.status.getCode());
+    }
+
+    @Test
+    void missingSessionIdIsUnauthenticated() {
+        interceptor.interceptCall(call, new Metadata(), handler);
+
+        assertFalse(handler.started);
+        assertEquals(Status.Code.UNAUTHENTICATED, call.status.getCode());
+        assertEquals(0, sessions.calls);
+    }
+
+    @Test
+    void validationTimeoutIsUnavailable() {
+        sessions.results.put("s1", Uni.createFrom().failure(new TimeoutException("validateSession timed out")));
+
+        interceptor.interceptCall(call, headers("s1"), handler);
+
+        assertFalse(handler.started);
+        assertEquals(Status.Code.UNAVAILABLE, call.status.getCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    private UniEmitter<? super Long>[] holdValidation(String sessionId) {
+        UniEmitter<? super Long>[] emitter = new UniEmitter[1];
+        sessions.results.put(sessionId, Uni.createFrom().emitter(e -> emitter[0] = e));
+        return emitter;
+    }
+
+    private static Metadata headers(String sessionId) {
+        Metadata headers = new Metadata();
+        headers.put(SESSION_ID_KEY, sessionId);
+        return headers;
+    }
+
+    /**
+     * 세션별로 정해 둔 Uni를 돌려주는 SessionCache
+     */
+    private static final class StubSessionCache extends SessionCache {
+
+        final Map<String, Uni<Long>> results = new ConcurrentHashMap<>();
+        int calls;
+
+        @Override
+        public Uni<Long> validate(String sessionId) {
+            calls++;
+            return results.get(sessionId);
+        }
+    }
+
+    /**
+     * 시작 여부, Context의 계좌 ID, 넘겨받은 listener 이벤트를 기록하는 서비스 handler
+     */
+    private static final class RecordingHandler implements ServerCallHandler<String, String> {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        volatile boolean started;
+        volatile Long accountId;
+
+        @Override
+        public ServerCall.Listener<String> startCall(ServerCall<String, String> call, Metadata headers) {
+            started = true;
+            accountId = AuthInterceptor.ACCOUNT_ID_CONTEXT_KEY.get();
+            return new ServerCall.Listener<>() {
+                @Override
+                public void onMessage(String message) {
+                    events.add("message:" + message);
+                }
+
+                @Override
+                public void onHalfClose() {
+                    events.add("halfClose");
+                }
+
+                @Override
+                public void onCancel() {
+                    events.add("cancel");
+                }
+
+                @Override
+                public void onComplete() {
+                    events.add("complete");
+                }
+
+                @Override
+                public void onReady() {
+                    events.add("ready");
+                }
+            };
+        }
+    }
+
+    /**
+     * close 상태만 기록하는 ServerCall
+     */
+    private static final class RecordingCall extends ServerCall<String, String> {
+
+        volatile Status status;
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(String message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            this.status = status;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return status != null;
+        }
+
+        @Override
+        public MethodDescriptor<String, String> getMethodDescriptor() {
+            return null;
+        }
+    }
+}
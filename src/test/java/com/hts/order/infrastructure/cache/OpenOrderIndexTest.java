@@ -0,0 +1,65 @@
+package com.hts.order.infrastructure.cache;
+
+import com.hts.generated.grpc.Side;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 취소 거절 판단의 유효 기간.
+ * 인덱스에 없던 주문의 DB 거절은 아직 기록 중인 주문일 수 있으므로 not-found-ttl만큼만 믿고,
+ * 인덱스가 종결을 본 주문은 closed-ttl 동안 거절하는지 확인한다.
+ */
+class OpenOrderIndexTest {
+
+    private static final long ACCOUNT_ID = 7L;
+
+    private OpenOrderIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new OpenOrderIndex();
+        index.registry = new SimpleMeterRegistry();
+        index.enabled = true;
+        index.maxEntries = 1_000;
+        index.openTtl = Duration.ofDays(1);
+        index.closedTtl = Duration.ofMinutes(10);
+        index.notFoundTtl = Duration.ofMillis(100);
+        index.rejectUnknown = false;
+        index.onStart(null);
+    }
+
+    @Test
+    void notFoundRejectionIsTrustedOnlyForNotFoundTtl() throws InterruptedException {
+        index.cancelRejected(1L, ACCOUNT_ID);
+
+        assertTrue(index.rejectsCancel(1L, ACCOUNT_ID));
+        assertFalse(index.rejectsCancel(1L, ACCOUNT_ID + 1), "another account's cancel must reach the DB");
+
+        Thread.sleep(index.notFoundTtl.toMillis() * 3);
+
+        assertFalse(index.rejectsCancel(1L, ACCOUNT_ID), "order recorded after the rejection must be cancellable");
+    }
+
+    @Test
+    void closedOrderIsRejectedForClosedTtl() throws InterruptedException {
+        index.closed(2L, ACCOUNT_ID, Side.BUY, "reserve-2");
+
+        Thread.sleep(index.notFoundTtl.toMillis() * 3);
+
+        assertTrue(index.rejectsCancel(2L, ACCOUNT_ID));
+    }
+
+    @Test
+    void openOrderIsNotRejected() {
+        index.opened(3L, ACCOUNT_ID, Side.SELL, "reserve-3");
+
+        assertFalse(index.rejectsCancel(3L, ACCOUNT_ID));
+        assertTrue(index.rejectsCancel(3L, ACCOUNT_ID + 1));
+    }
+}
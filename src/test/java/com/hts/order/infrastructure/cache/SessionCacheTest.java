@@ -0,0 +1,169 @@
+package com.hts.order.infrastructure.cache;
+
+import com.hts.generated.grpc.internal.AuthInternalService;
+import com.hts.generated.grpc.internal.ValidateSessionReply;
+import com.hts.generated.grpc.internal.ValidateSessionRequest;
+import com.hts.order.api.grpc.AuthGrpcClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * auth 서비스 stub 앞에서의 세션 캐시 동작.
+ * 유효/무효 세션이 각각 ttl/negative-ttl 동안 재사용되는지, 동시 검증이 auth 호출 한 번으로 합쳐지는지,
+ * 검증 실패(타임아웃)는 캐시에 남지 않는지 확인한다.
+ */
+class SessionCacheTest {
+
+    private static final long ACCOUNT_ID = 42L;
+
+    private StubAuthService auth;
+    private SessionCache sessions;
+
+    @BeforeEach
+    void setUp() {
+        auth = new StubAuthService();
+        auth.accounts.put("valid", ACCOUNT_ID);
+
+        sessions = new SessionCache();
+        sessions.registry = new SimpleMeterRegistry();
+        sessions.authClient = new StubAuthClient(auth);
+        sessions.enabled = true;
+        sessions.maxEntries = 1_000;
+        sessions.ttl = Duration.ofMinutes(1);
+        sessions.negativeTtl = Duration.ofMillis(100);
+        sessions.onStart(null);
+    }
+
+    @Test
+    void validSessionIsServedFromCacheWithoutAuthCall() {
+        assertEquals(ACCOUNT_ID, await(sessions.validate("valid")));
+        assertEquals(ACCOUNT_ID, await(sessions.validate("valid")));
+
+        assertEquals(1, auth.calls.get());
+    }
+
+    @Test
+    void invalidSessionIsRememberedOnlyForNegativeTtl() throws InterruptedException {
+        assertEquals(SessionCache.INVALID, await(sessions.validate("unknown")));
+        assertEquals(SessionCache.INVALID, await(sessions.validate("unknown")));
+        assertEquals(1, auth.calls.get());
+
+        Thread.sleep(sessions.negativeTtl.toMillis() * 3);
+
+        assertEquals(SessionCache.INVALID, await(sessions.validate("unknown")));
+        assertEquals(2, auth.calls.get());
+    }
+
+    @Test
+    void concurrentValidationsShareOneAuthCall() {
+        auth.hold = true;
+
+        List<Long> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sessions.validate("valid").subscribe().with(results::add);
+        }
+        assertEquals(1, auth.calls.get());
+        assertEquals(0, results.size());
+
+        auth.releaseHeld();
+
+        assertEquals(5, results.size());
+        results.forEach(accountId -> assertEquals(ACCOUNT_ID, (long) accountId));
+        assertEquals(1, auth.calls.get());
+    }
+
+    @Test
+    void timedOutValidationIsNotCached() {
+        auth.timeout = true;
+        assertThrows(TimeoutException.class, () -> await(sessions.validate("valid")));
+
+        auth.timeout = false;
+        assertEquals(ACCOUNT_ID, await(sessions.validate("valid")));
+        assertEquals(2, auth.calls.get());
+    }
+
+    private static long await(Uni<Long> uni) {
+        return uni.await().atMost(Duration.ofSeconds(5));
+    }
+
+    /**
+     * FT 인터셉터 없이 stub을 그대로 부르는 client
+     */
+    private static final class StubAuthClient extends AuthGrpcClient {
+
+        private final AuthInternalService auth;
+
+        StubAuthClient(AuthInternalService auth) {
+            this.auth = auth;
+        }
+
+        @Override
+        public Uni<ValidateSessionReply> validateSession(String sessionId) {
+            return auth.validateSession(ValidateSessionRequest.newBuilder()
+                    .setSessionId(sessionId)
+                    .build());
+        }
+    }
+
+    /**
+     * 등록된 세션만 유효하다고 답하는 auth 서비스 stub.
+     * hold면 releaseHeld() 전까지 답하지 않고, timeout이면 @Timeout이 내는 예외로 실패한다.
+     */
+    private static final class StubAuthService implements AuthInternalService {
+
+        final Map<String, Long> accounts = new ConcurrentHashMap<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final List<Runnable> held = new ArrayList<>();
+        volatile boolean hold;
+        volatile boolean timeout;
+
+        @Override
+        public Uni<ValidateSessionReply> validateSession(ValidateSessionRequest request) {
+            calls.incrementAndGet();
+            if (timeout) {
+                return Uni.createFrom().failure(new TimeoutException("validateSession timed out"));
+            }
+            ValidateSessionReply reply = reply(request.getSessionId());
+            if (!hold) {
+                return Uni.createFrom().item(reply);
+            }
+            return Uni.createFrom().emitter((UniEmitter<? super ValidateSessionReply> emitter) -> {
+                synchronized (held) {
+                    held.add(() -> emitter.complete(reply));
+                }
+            });
+        }
+
+        void releaseHeld() {
+            List<Runnable> pending;
+            synchronized (held) {
+                pending = new ArrayList<>(held);
+                held.clear();
+            }
+            pending.forEach(Runnable::run);
+        }
+
+        private ValidateSessionReply reply(String sessionId) {
+            Long accountId = accounts.get(sessionId);
+            if (accountId == null) {
+                return ValidateSessionReply.newBuilder().setIsValid(false).build();
+            }
+            return ValidateSessionReply.newBuilder().setIsValid(true).setAccountId(accountId).build();
+        }
+    }
+}
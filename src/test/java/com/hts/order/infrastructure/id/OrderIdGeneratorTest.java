@@ -0,0 +1,106 @@
+package com.hts.order.infrastructure.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws InterruptedException {
+        OrderIdGenerator generator = generator(7L);
+        long[][] issued = issueConcurrently(generator);
+
+        for (long[] ids : issued) {
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "not increasing at " + i);
+            }
+        }
+        long[] all = Arrays.stream(issued).flatMapToLong(Arrays::stream).sorted().toArray();
+        assertEquals(THREADS * IDS_PER_THREAD, all.length);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] != all[i - 1], "duplicate id " + all[i]);
+        }
+        for (long id : all) {
+            assertTrue(generator.isOwnId(id));
+        }
+    }
+
+    @Test
+    void differentNodesNeverCollide() throws InterruptedException {
+        OrderIdGenerator node1 = generator(1L);
+        OrderIdGenerator node2 = generator(2L);
+
+        long[] ids1 = Arrays.stream(issueConcurrently(node1)).flatMapToLong(Arrays::stream).sorted().toArray();
+        long[] ids2 = Arrays.stream(issueConcurrently(node2)).flatMapToLong(Arrays::stream).toArray();
+
+        for (long id : ids2) {
+            assertTrue(Arrays.binarySearch(ids1, id) < 0, "collision " + id);
+            assertFalse(node1.isOwnId(id));
+        }
+    }
+
+    @Test
+    void missingNodeIdFailsStartupWhenRequired() {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.configuredNodeId = Optional.empty();
+        generator.requireNodeId = true;
+
+        assertThrows(IllegalStateException.class, () -> generator.onStart(null));
+    }
+
+    @Test
+    void missingNodeIdFallsBackToZero() {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.configuredNodeId = Optional.empty();
+        generator.onStart(null);
+
+        assertFalse(generator.isNodeIdConfigured());
+        assertTrue(generator.isOwnId(generator.nextId()));
+        assertEquals(0L, generator.nodeId);
+    }
+
+    private static OrderIdGenerator generator(long nodeId) {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.configuredNodeId = Optional.of(nodeId);
+        generator.onStart(null);
+        return generator;
+    }
+
+    private static long[][] issueConcurrently(OrderIdGenerator generator) throws InterruptedException {
+        long[][] issued = new long[THREADS][IDS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long[] ids = issued[t];
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = generator.nextId();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return issued;
+    }
+}
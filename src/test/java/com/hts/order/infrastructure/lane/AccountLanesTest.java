@@ -0,0 +1,144 @@
+package com.hts.order.infrastructure.lane;
+
+import com.hts.generated.grpc.AccoutResult;
+import com.hts.generated.grpc.CommonReply;
+import com.hts.generated.grpc.account.order.AccountCommand;
+import com.hts.generated.grpc.account.order.ReserveCashRequest;
+import com.hts.order.api.grpc.AccountGrpcClient;
+import com.hts.order.infrastructure.lane.AccountLanes.Kind;
+import com.hts.order.infrastructure.lane.AccountLanes.ReserveBatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 같은 계좌의 연속된 주문 접수 묶음과 reserve 묶음 전송.
+ * 묶음이 모두 곧바로 reserve하면 ReserveBatch 한 번으로 가고,
+ * 묶음의 한 명령이 reserve 없이 오래 걸려도 max-wait 뒤에 reserve한 명령은 그 명령을 기다리지 않는지 확인한다.
+ */
+class AccountLanesTest {
+
+    private static final long ACCOUNT_ID = 1L;
+
+    private Vertx vertx;
+    private RecordingAccountClient account;
+    private AccountLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        account = new RecordingAccountClient();
+
+        lanes = new AccountLanes();
+        lanes.vertx = vertx;
+        lanes.accountClient = account;
+        lanes.registry = new SimpleMeterRegistry();
+        lanes.enabled = true;
+        lanes.laneCount = 1;
+        lanes.maxDepth = 100;
+        lanes.batchEnabled = true;
+        lanes.maxBatchSize = 32;
+        lanes.batchMaxWait = Duration.ofMillis(5);
+        lanes.onStart(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        vertx.closeAndAwait();
+    }
+
+    @Test
+    void consecutivePlacesReserveInOneBatch() throws Exception {
+        CompletableFuture<String> blocker = blockAccount();
+        CompletableFuture<CommonReply> first = place("k1", batch -> batch.reserve(command("r1")));
+        CompletableFuture<CommonReply> second = place("k2", batch -> batch.reserve(command("r2")));
+
+        blocker.complete("done");
+
+        assertEquals(AccoutResult.SUCCESS, first.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(AccoutResult.SUCCESS, second.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(List.of(2), account.batchSizes);
+    }
+
+    @Test
+    void reserveAfterMaxWaitWithEmptyGroupIsNotHeldBySlowSibling() throws Exception {
+        CompletableFuture<String> blocker = blockAccount();
+        CompletableFuture<CommonReply> late = place("k1", batch -> Uni.createFrom().voidItem()
+                .onItem().delayIt().by(Duration.ofMillis(50))
+                .chain(() -> batch.reserve(command("r1"))));
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> sibling = lanes.submit(ACCOUNT_ID, Kind.PLACE, "k2",
+                        batch -> Uni.createFrom().completionStage(slow))
+                .subscribeAsCompletionStage();
+
+        blocker.complete("done");
+
+        try {
+            assertEquals(AccoutResult.SUCCESS, late.get(2, TimeUnit.SECONDS).getCode());
+            assertEquals(List.of(1), account.batchSizes);
+        } finally {
+            slow.complete("done");
+        }
+        sibling.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 계좌의 첫 명령을 붙잡아 두어 뒤의 PLACE들이 대기열에 쌓였다가 한 묶음으로 시작하게 한다
+     */
+    private CompletableFuture<String> blockAccount() {
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        lanes.submit(ACCOUNT_ID, Kind.PLACE, "k0", batch -> Uni.createFrom().completionStage(blocker))
+                .subscribe().with(v -> {}, t -> {});
+        return blocker;
+    }
+
+    private CompletableFuture<CommonReply> place(String batchKey,
+                                                 Function<ReserveBatch, Uni<CommonReply>> command) {
+        return lanes.submit(ACCOUNT_ID, Kind.PLACE, batchKey, batch -> {
+            assertTrue(batch != null, "expected to start as part of a group");
+            return command.apply(batch);
+        }).subscribeAsCompletionStage();
+    }
+
+    private static AccountCommand command(String reserveId) {
+        return AccountCommand.newBuilder()
+                .setReserveCash(ReserveCashRequest.newBuilder()
+                        .setAccountId(ACCOUNT_ID)
+                        .setAmountMicroUnits(1_000_000L)
+                        .setCurrency("USD")
+                        .setReserveId(reserveId)
+                        .build())
+                .build();
+    }
+
+    /**
+     * 배치 크기만 기록하고 모두 SUCCESS로 답하는 client
+     */
+    private static final class RecordingAccountClient extends AccountGrpcClient {
+
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Uni<List<CommonReply>> executeBatch(List<AccountCommand> commands) {
+            batchSizes.add(commands.size());
+            List<CommonReply> replies = new ArrayList<>(Collections.nCopies(commands.size(),
+                    CommonReply.newBuilder().setCode(AccoutResult.SUCCESS).build()));
+            return Uni.createFrom().item(replies);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.hts.order.infrastructure.reconcile;
+
+import com.hts.generated.grpc.account.order.ListReservationsReply;
+import com.hts.generated.grpc.account.order.Reservation;
+import com.hts.generated.grpc.account.order.ReservationType;
+import com.hts.order.api.grpc.AccountGrpcClient;
+import com.hts.order.infrastructure.CompensationExecutor;
+import com.hts.order.infrastructure.reconcile.ReservationReconciler.RunStats;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask;
+import com.hts.order.infrastructure.repository.CompensationTaskRepository.CompensationTask.Type;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 여러 페이지를 내주는 account-service stub과 메모리 anti-join stub으로 한 run을 돌린다.
+ * keyset으로 모든 페이지를 한 번씩 보는지, grace 안의 reserve와 주문/보상 큐에 있는 reserve는 해제하지 않는지,
+ * max-releases-per-run을 넘으면 그 페이지부터 아무것도 넣지 않고 멈추는지, dry-run은 세기만 하는지 확인한다.
+ */
+class ReservationReconcilerTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private StubAccountClient account;
+    private StubTaskRepository repository;
+    private RecordingExecutor executor;
+    private ReservationReconciler reconciler;
+
+    private long old;
+    private long recent;
+
+    @BeforeEach
+    void setUp() {
+        account = new StubAccountClient();
+        repository = new StubTaskRepository();
+        executor = new RecordingExecutor();
+
+        reconciler = new ReservationReconciler();
+        reconciler.accountClient = account;
+        reconciler.taskRepository = repository;
+        reconciler.compensationExecutor = executor;
+        reconciler.registry = new SimpleMeterRegistry();
+        reconciler.enabled = false;
+        reconciler.gracePeriod = Duration.ofMinutes(10);
+        reconciler.pageSize = PAGE_SIZE;
+        reconciler.pagePause = Duration.ofMillis(1);
+        reconciler.maxReleasesPerRun = 100;
+        reconciler.dryRun = false;
+        reconciler.onStart(null);
+
+        long now = System.currentTimeMillis();
+        old = now - Duration.ofHours(1).toMillis();
+        recent = now - Duration.ofMinutes(1).toMillis();
+    }
+
+    @Test
+    void walksAllPagesAndReleasesOnlyUntrackedReservationsOutsideGrace() {
+        account.add("r01", ReservationType.RESERVATION_CASH, "101", old);
+        account.add("r02", ReservationType.RESERVATION_POSITION, "102", old);
+        account.add("r03", ReservationType.RESERVATION_CASH, "103", recent);
+        account.add("r04", ReservationType.RESERVATION_CASH, "104", old);
+        account.add("r05", ReservationType.RESERVATION_CASH, "", old);
+        account.add("r06", ReservationType.RESERVATION_POSITION, "106", old);
+        account.add("r07", ReservationType.RESERVATION_CASH, "107", recent);
+        repository.orders.put("r02", 102L);
+        repository.compensations.add("r04");
+
+        RunStats stats = run();
+
+        assertEquals(List.of("", "r03", "r06"), account.afters);
+        assertFalse(repository.checked.contains("r03"), "reservation inside grace was checked");
+        assertFalse(repository.checked.contains("r07"), "reservation inside grace was checked");
+        assertEquals(Set.of("r01", "r02", "r04", "r05", "r06"), new HashSet<>(repository.checked));
+        assertEquals(0L, (long) repository.orderIds.get("r05"));
+
+        Map<String, CompensationTask> released = executor.byReserveId();
+        assertEquals(Set.of("r01", "r05", "r06"), released.keySet());
+        assertEquals(Type.RELEASE_CASH, released.get("r01").type());
+        assertEquals(101L, released.get("r01").orderId());
+        assertEquals(Type.RELEASE_POSITION, released.get("r06").type());
+        assertEquals(5, stats.scanned);
+        assertEquals(3, stats.orphans);
+        assertFalse(stats.aborted);
+    }
+
+    @Test
+    void abortsBeforeExceedingMaxReleasesPerRun() {
+        reconciler.maxReleasesPerRun = 4;
+        for (int i = 1; i <= 9; i++) {
+            account.add(String.format("r%02d", i), ReservationType.RESERVATION_CASH, String.valueOf(100 + i), old);
+        }
+
+        RunStats stats = run();
+
+        assertTrue(stats.aborted);
+        assertEquals(List.of("", "r03"), account.afters);
+        assertEquals(Set.of("r01", "r02", "r03"), executor.byReserveId().keySet());
+        assertEquals(3, stats.orphans);
+    }
+
+    @Test
+    void dryRunCountsOrphansWithoutQueueing() {
+        reconciler.dryRun = true;
+        account.add("r01", ReservationType.RESERVATION_CASH, "101", old);
+        account.add("r02", ReservationType.RESERVATION_POSITION, "102", old);
+
+        RunStats stats = run();
+
+        assertEquals(2, stats.orphans);
+        assertEquals(0, executor.tasks.size());
+    }
+
+    private RunStats run() {
+        RunStats stats = new RunStats();
+        reconciler.runOnce(stats).await().atMost(Duration.ofSeconds(5));
+        return stats;
+    }
+
+    /**
+     * reserve_id 순으로 page-size씩 내주는 ListReservations stub.
+     * 실제 서버가 created_before를 무시하는 경우를 흉내 내 grace 안의 reserve도 그대로 내준다.
+     */
+    private static final class StubAccountClient extends AccountGrpcClient {
+
+        final TreeMap<String, Reservation> reservations = new TreeMap<>();
+        final List<String> afters = new CopyOnWriteArrayList<>();
+
+        void add(String reserveId, ReservationType type, String orderId, long createdAt) {
+            reservations.put(reserveId, Reservation.newBuilder()
+                    .setReserveId(reserveId)
+                    .setAccountId(1L)
+                    .setType(type)
+                    .setOrderId(orderId)
+                    .setCreatedAtEpochMs(createdAt)
+                    .build());
+        }
+
+        @Override
+        public Uni<ListReservationsReply> listReservations(String afterReserveId, int pageSize, long createdBeforeEpochMs) {
+            afters.add(afterReserveId);
+            List<Reservation> page = new ArrayList<>(reservations.tailMap(afterReserveId, false).values());
+            ListReservationsReply.Builder reply = ListReservationsReply.newBuilder();
+            if (page.size() > pageSize) {
+                page = page.subList(0, pageSize);
+                reply.setNextReserveId(page.get(pageSize - 1).getReserveId());
+            }
+            return Uni.createFrom().item(reply.addAllReservations(page).build());
+        }
+    }
+
+    /**
+     * findUntracked의 anti-join을 메모리에서 흉내 낸다 (orders의 reserve_id, compensation_tasks의 reserve_id)
+     */
+    private static final class StubTaskRepository extends CompensationTaskRepository {
+
+        final Map<String, Long> orders = new HashMap<>();
+        final Set<String> compensations = new HashSet<>();
+        final List<String> checked = new CopyOnWriteArrayList<>();
+        final Map<String, Long> orderIds = new HashMap<>();
+
+        @Override
+        public Uni<List<String>> findUntracked(String[] reserveIds, Long[] orderIds) {
+            List<String> untracked = new ArrayList<>();
+            for (int i = 0; i < reserveIds.length; i++) {
+                checked.add(reserveIds[i]);
+                this.orderIds.put(reserveIds[i], orderIds[i]);
+                if (!orders.containsKey(reserveIds[i]) && !compensations.contains(reserveIds[i])) {
+                    untracked.add(reserveIds[i]);
+                }
+            }
+            return Uni.createFrom().item(untracked);
+        }
+    }
+
+    private static final class RecordingExecutor extends CompensationExecutor {
+
+        final List<CompensationTask> tasks = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Uni<Void> enqueue(List<CompensationTask> tasks) {
+            this.tasks.addAll(tasks);
+            return Uni.createFrom().voidItem();
+        }
+
+        Map<String, CompensationTask> byReserveId() {
+            Map<String, CompensationTask> byReserveId = new HashMap<>();
+            for (CompensationTask task : tasks) {
+                byReserveId.put(task.reserveId(), task);
+            }
+            return byReserveId;
+        }
+    }
+}